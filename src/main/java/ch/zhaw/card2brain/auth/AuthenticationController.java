@@ -3,6 +3,7 @@ package ch.zhaw.card2brain.auth;
 import ch.zhaw.card2brain.dto.LoginDto;
 import ch.zhaw.card2brain.dto.UserDto;
 import ch.zhaw.card2brain.objectmapper.UserMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -57,12 +58,14 @@ public class AuthenticationController {
      * The authenticate method is used for the user login in the frontend
      *
      * @param loginDto the DTO containing username(E-Mail) and password
+     * @param request  the request, its remote address limits the login attempts per client
      * @return a response entity containing the JWT-Token
      */
     @PostMapping("/authenticate")
     public ResponseEntity<AuthenticationResponse> authenticate(
-            @RequestBody LoginDto loginDto
+            @RequestBody LoginDto loginDto,
+            HttpServletRequest request
     ) {
-        return ResponseEntity.ok(service.authenticate(loginDto));
+        return ResponseEntity.ok(service.authenticate(loginDto, request.getRemoteAddr()));
     }
 }
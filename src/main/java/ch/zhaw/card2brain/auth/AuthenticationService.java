@@ -4,23 +4,25 @@ package ch.zhaw.card2brain.auth;
 import ch.zhaw.card2brain.config.JwtService;
 import ch.zhaw.card2brain.dto.LoginDto;
 import ch.zhaw.card2brain.exception.PasswordNotValidException;
+import ch.zhaw.card2brain.exception.TooManyLoginAttemptsException;
 import ch.zhaw.card2brain.exception.UserNotFoundException;
 import ch.zhaw.card2brain.model.User;
 import ch.zhaw.card2brain.repository.UserRepository;
+import ch.zhaw.card2brain.services.LoginThrottle;
+import ch.zhaw.card2brain.services.PasswordHashingService;
 import ch.zhaw.card2brain.services.UserService;
+import ch.zhaw.card2brain.util.HasLogger;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Executor;
+
 /**
  * The AuthenticationService class is a service that handles user registration and authentication.
- * It uses a {@link UserRepository} to access user data, a {@link PasswordEncoder} to encrypt passwords,
- * a {@link JwtService} to generate JSON web tokens, and an {@link AuthenticationManager} for authentication.
+ * It uses a {@link UserRepository} to access user data, a {@link PasswordHashingService} to encrypt and check passwords
+ * on its bounded pool of hashing threads, and a {@link JwtService} to generate JSON web tokens.
  * It also uses a {@link UserService} to validate user data.
  *
  * @author Niklaus Hänggi
@@ -31,20 +33,25 @@ import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class AuthenticationService {
+public class AuthenticationService implements HasLogger {
     private final UserRepository repository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
 
     @Autowired
     UserService userService;
 
+    // the stored hash is written by the task pool of the application, not by a hashing thread
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
 
     /**
      * This method is used to register a new user.
      * It validates the user data using the {@link UserService#isUserValid(User)} method,
-     * encrypts the password using the {@link PasswordEncoder},
+     * encrypts the password using the {@link PasswordHashingService},
      * adds the user to the repository using the {@link UserService#addUser(User)},
      * and generates a JSON web token using the {@link JwtService#generateToken(User)} method.
      *
@@ -59,7 +66,7 @@ public class AuthenticationService {
         userService.isUserValid(user);
 
         String password = user.getPassword();
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHashingService.encode(password));
         userService.addUser(user);
         var jwtToken = jwtService.generateToken(user);
         return AuthenticationResponse.builder()
@@ -69,40 +76,78 @@ public class AuthenticationService {
 
 
     /**
-     * This method is used to authenticate a user.
-     * It uses the {@link AuthenticationManager#authenticate(Authentication)}
-     * method to authenticate the user, then retrieves the user from the repository using the
-     * {@link UserRepository#findUserByMailAddress(String)} method.
-     * It then generates a JSON web token using the {@link JwtService#generateToken(User)} method.
+     * This method is used to authenticate a user without a known client address, only the attempts per mail address are limited.
      *
      * @param loginDto A DTO containing the user's email address and password
      * @return An {@link AuthenticationResponse} containing the generated JSON web token
-     * @throws RuntimeException if the user is not found in the repository
+     * @throws RuntimeException if the user is not found in the repository or the password is wrong
+     * @see #authenticate(LoginDto, String)
      */
 
     public AuthenticationResponse authenticate(LoginDto loginDto) throws RuntimeException {
+        return authenticate(loginDto, null);
+    }
+
+    /**
+     * This method is used to authenticate a user.
+     * The attempt is first checked against the limits of the {@link LoginThrottle} per mail address and per client address,
+     * so an attempt over a limit is rejected before its password is hashed.
+     * It retrieves the user from the repository using the {@link UserRepository#findUserByMailAddress(String)} method
+     * and checks the password against the stored hash using the {@link PasswordHashingService}.
+     * If the stored hash has another cost than the configured one, the password is hashed again with the configured cost
+     * in the background and stored, so the login does not wait for the second hash.
+     * It then generates a JSON web token using the {@link JwtService#generateToken(User)} method.
+     *
+     * @param loginDto      A DTO containing the user's email address and password
+     * @param clientAddress The address of the client, null if it is not known
+     * @return An {@link AuthenticationResponse} containing the generated JSON web token
+     * @throws RuntimeException if the user is not found in the repository or the password is wrong
+     * @throws ch.zhaw.card2brain.exception.TooManyLoginAttemptsException if the attempts exceed a limit
+     * @throws ch.zhaw.card2brain.exception.ServerBusyException if too many passwords are being checked
+     */
+
+    public AuthenticationResponse authenticate(LoginDto loginDto, String clientAddress) throws RuntimeException {
+
+        long retryAfterSeconds = loginThrottle.tryAcquire(loginDto.getMailAddress(), clientAddress);
+        if (retryAfterSeconds > 0) {
+            throw new TooManyLoginAttemptsException("Too many login attempts, please try again in " + retryAfterSeconds + " seconds.", retryAfterSeconds);
+        }
 
         var user = repository.findUserByMailAddress(loginDto.getMailAddress())
                 .orElseThrow(() -> new UserNotFoundException("User with E-Mail " + loginDto.getMailAddress() + " does not exsists."));
 
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginDto.getMailAddress(),
-                            loginDto.getPassword()
-                    )
-            );
-        } catch (AuthenticationException e) {
+        // the password is checked against the user read above, so the login reads the user once
+        if (loginDto.getPassword() == null || user.getPassword() == null || !passwordHashingService.matches(loginDto.getPassword(), user.getPassword())) {
             throw new PasswordNotValidException("Wrong Password, please try again");
         }
 
 
+        loginThrottle.release(loginDto.getMailAddress(), clientAddress);
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            rehash(user, loginDto.getPassword());
+        }
         var jwtToken = jwtService.generateToken(user);
         return AuthenticationResponse.builder()
                 .token(jwtToken)
                 .build();
     }
 
-
-
+    /**
+     * Hashes the password of a user again with the configured cost on the hashing pool and stores it
+     * with a thread of the application task pool, unless the password was changed in the meantime. A rehash which finds
+     * the queue of the pool half full is skipped, the next login tries again.
+     *
+     * @param user        the user whose password was just checked
+     * @param rawPassword the checked password
+     */
+    private void rehash(User user, String rawPassword) {
+        long userId = user.getId();
+        String oldHash = user.getPassword();
+        passwordHashingService.encodeLater(rawPassword)
+                .thenAcceptAsync(newHash -> repository.updatePassword(userId, oldHash, newHash), taskExecutor)
+                .exceptionally(e -> {
+                    getLogger().warn("Rehashing the password of user with Id " + userId + " failed: " + e.getMessage());
+                    return null;
+                });
+    }
 }
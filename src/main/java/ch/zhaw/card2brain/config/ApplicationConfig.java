@@ -3,6 +3,7 @@ package ch.zhaw.card2brain.config;
 
 import ch.zhaw.card2brain.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -31,6 +32,9 @@ public class ApplicationConfig {
 
   private final UserRepository userRepository;
 
+  @Value("${card2brain.password-hashing.strength:10}")
+  private int bcryptStrength;
+
   /**
 
    Returns a bean of UserDetailsService, which is used to load user-specific data in the application.
@@ -76,11 +80,12 @@ public class ApplicationConfig {
 
   /**
    * The passwordEncoder method returns a bean of BCryptPasswordEncoder, which is used to encode the user's password before storing it in the database.
+   * The cost of the hashes is card2brain.password-hashing.strength, stored hashes of another cost are replaced at the next login.
    * @return BCryptPasswordEncoder
    */
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    return new BCryptPasswordEncoder(bcryptStrength);
   }
 
 }
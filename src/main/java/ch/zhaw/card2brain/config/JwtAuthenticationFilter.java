@@ -1,5 +1,7 @@
 package ch.zhaw.card2brain.config;
 
+import ch.zhaw.card2brain.services.TokenVersionCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,19 +9,20 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 
 /**
  * JwtAuthenticationFilter is responsible for checking the validity of the JWT token present in the Authorization header of the incoming request.
- * If the token is valid, it sets the authenticated user's details in the SecurityContextHolder.
+ * If the token is valid and has the current token version of its user, it sets a {@link JwtPrincipal} built from the claims
+ * of the token in the SecurityContextHolder; the user is not read from the database.
  *
  * @author Niklaus Hänggi
  * @author Alexander Studer
@@ -27,15 +30,17 @@ import java.io.IOException;
  * @version 1.0
  * @see OncePerRequestFilter
  * @see JwtService
- * @see UserDetailsService
+ * @see TokenVersionCache
  * @since 28-01-2023
  */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+  private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("USER"));
+
   private final JwtService jwtService;
-  private final UserDetailsService userDetailsService;
+  private final TokenVersionCache tokenVersionCache;
 
 
   /**
@@ -56,20 +61,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   ) throws ServletException, IOException {
     final String authHeader = request.getHeader("Authorization");
     final String jwt;
-    final String userEmail;
     if (authHeader == null ||!authHeader.startsWith("Bearer ")) {
       filterChain.doFilter(request, response);
       return;
     }
     jwt = authHeader.substring(7);
-    userEmail = jwtService.extractUsername(jwt);
-    if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-      if (jwtService.isTokenValid(jwt, userDetails)) {
+    // the token is parsed and verified once, the principal is built from its claims without reading the user
+    final Claims claims = jwtService.verify(jwt);
+    final JwtPrincipal principal = jwtService.toPrincipal(claims);
+    if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+      if (jwtService.isTokenValid(claims) && tokenVersionCache.isCurrent(principal.userId(), principal.tokenVersion())) {
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-            userDetails,
+            principal,
             null,
-            userDetails.getAuthorities()
+            AUTHORITIES
         );
         authToken.setDetails(
             new WebAuthenticationDetailsSource().buildDetails(request)
@@ -0,0 +1,28 @@
+package ch.zhaw.card2brain.config;
+
+import java.security.Principal;
+
+/**
+ * JwtPrincipal is the authenticated user of a request, built from the claims of the verified JWT token without reading the user.
+ *
+ * @param userId       the id of the user, the claim ID of the token
+ * @param mailAddress  the mail address of the user, the subject of the token
+ * @param tokenVersion the token version of the user when the token was issued, the claim TV of the token
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public record JwtPrincipal(long userId, String mailAddress, int tokenVersion) implements Principal {
+
+    /**
+     * Returns the mail address of the user, the name the user logs in with.
+     *
+     * @return the mail address of the user
+     */
+    @Override
+    public String getName() {
+        return mailAddress;
+    }
+}
@@ -2,21 +2,30 @@ package ch.zhaw.card2brain.config;
 
 import ch.zhaw.card2brain.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 /**
- * JWT service to handle the generation, validation and extraction of claims from JWT tokens.
+ * JWT service to handle the generation and verification of JWT tokens and the extraction of their principal.
+ * <p>
+ * The signing key and the parser are built once. A token is parsed and its signature verified once into its claims,
+ * the claims of the last card2brain.jwt.verified-cache-size verified tokens are kept by the SHA-256 hash of the token
+ * until the token expires, so further requests with the same token are not verified again.
  *
  * @author Niklaus Hänggi
  * @author Alexander Studer
@@ -29,29 +38,68 @@ public class JwtService {
 
     private static final String SECRET_KEY = "703273357638792F413F4428472B4B6250655368566D597133743677397A2443";
 
+    private final Key signInKey = getSignInKey();
+
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+
+    private final int verifiedCacheSize;
+
+    private final Map<String, VerifiedToken> verifiedTokens;
+
     /**
-     * Extracts the username from the given JWT token
+     * The claims of a verified token.
      *
-     * @param token JWT token to extract the username from
-     * @return The extracted username
+     * @param claims    the claims of the token
+     * @param expiresAt the expiration of the token in milliseconds since the epoch
      */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private record VerifiedToken(Claims claims, long expiresAt) {
     }
 
     /**
-     * Extracts a claim from the given JWT token
+     * Creates the service.
      *
-     * @param token          JWT token to extract the claim from
-     * @param claimsResolver function to extract the claim
-     * @param <T>            type of the claim
-     * @return The extracted claim
+     * @param verifiedCacheSize the number of verified tokens whose claims are kept, 0 to verify every token
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public JwtService(@Value("${card2brain.jwt.verified-cache-size:10000}") int verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+        verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheSize || eldest.getValue().expiresAt() <= System.currentTimeMillis();
+            }
+        };
     }
 
+    /**
+     * Verifies the given JWT token and returns its claims, the token is only parsed if it was not verified before.
+     * The claims must not be changed.
+     *
+     * @param token JWT token to verify
+     * @return The claims of the token
+     * @throws io.jsonwebtoken.JwtException if the token is not valid or expired
+     */
+    public Claims verify(String token) {
+        if (verifiedCacheSize <= 0) {
+            return extractAllClaims(token);
+        }
+        String hash = hash(token);
+        synchronized (verifiedTokens) {
+            VerifiedToken verified = verifiedTokens.get(hash);
+            if (verified != null) {
+                if (verified.expiresAt() > System.currentTimeMillis()) {
+                    return verified.claims();
+                }
+                verifiedTokens.remove(hash);
+            }
+        }
+        Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(hash, new VerifiedToken(claims, claims.getExpiration().getTime()));
+            }
+        }
+        return claims;
+    }
     /**
      * Generates a JWT token for the given user with no extra claims
      *
@@ -70,40 +118,33 @@ public class JwtService {
      * @return The generated JWT token
      */
     public String generateToken(Map<String, Object> extraClaims, User user) {
-        return Jwts.builder().setClaims(extraClaims).setSubject(user.getMailAddress()).setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)).claim("ID", user.getId().toString()).signWith(getSignInKey(), SignatureAlgorithm.HS256).compact();
+        return Jwts.builder().setClaims(extraClaims).setSubject(user.getMailAddress()).setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)).claim("ID", user.getId().toString()).claim("TV", user.getTokenVersion()).signWith(signInKey, SignatureAlgorithm.HS256).compact();
     }
 
     /**
-     * Validates the given JWT token against the given user details
+     * Builds the principal of a request from the claims of a verified JWT token.
+     * A token issued before the token versions were introduced has version 0.
      *
-     * @param token       JWT token to validate
-     * @param userDetails user details to validate the token against
-     * @return true if the token is valid, false otherwise
+     * @param claims claims of the verified JWT token
+     * @return the principal, null if the token has no subject or no user id
      */
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public JwtPrincipal toPrincipal(Claims claims) {
+        String userId = claims.get("ID", String.class);
+        if (claims.getSubject() == null || userId == null) {
+            return null;
+        }
+        Integer tokenVersion = claims.get("TV", Integer.class);
+        return new JwtPrincipal(Long.parseLong(userId), claims.getSubject(), tokenVersion == null ? 0 : tokenVersion);
     }
 
     /**
-     * Checks if the given JWT token is expired
+     * Checks whether the claims of a verified JWT token are not expired
      *
-     * @param token JWT token to check
-     * @return true if the token is expired, false otherwise
+     * @param claims claims of the verified JWT token
+     * @return true if the token is not expired, false otherwise
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-
-    /**
-     * Extracts the expiration date from a given token.
-     *
-     * @param token the token from which to extract the expiration date
-     * @return the expiration date
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().after(new Date());
     }
 
     /**
@@ -114,16 +155,30 @@ public class JwtService {
      */
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSignInKey()).build().parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
 
+    /**
+     * Hashes a token, so the cache does not keep the tokens themselves.
+     *
+     * @param token the token to hash
+     * @return the Base64 encoded SHA-256 hash of the token
+     */
+    private static String hash(String token) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     /**
      * Gets the signing key used for authentication.
      *
      * @return the signing key
      */
-    private Key getSignInKey() {
+    private static Key getSignInKey() {
         byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
         return Keys.hmacShaKeyFor(keyBytes);
     }
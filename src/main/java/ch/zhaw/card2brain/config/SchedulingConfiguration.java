@@ -0,0 +1,18 @@
+package ch.zhaw.card2brain.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfiguration enables the scheduled background jobs of the application.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16-01-2023
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
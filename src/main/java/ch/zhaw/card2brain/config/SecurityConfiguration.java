@@ -1,5 +1,6 @@
 package ch.zhaw.card2brain.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,10 +53,11 @@ public class SecurityConfiguration {
     /**
      * This class configures the security filter chain for the application. It sets up the {@link HttpSecurity} object to
      * disable CSRF protection, authorize requests to certain paths, and set the session creation policy to stateless.
+     * The async dispatch of a streamed response is permitted, the request was already authorized when the response was started.
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        http.csrf().disable().authorizeHttpRequests().requestMatchers("/api/auth/**", "/swagger-ui.html", "/swagger-ui/index.html", "/swagger-ui/**", "/v3/**", "/healthCheck/**").permitAll().anyRequest().authenticated().and().sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and().authenticationProvider(authenticationProvider).addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class).cors();
+        http.csrf().disable().authorizeHttpRequests().dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll().requestMatchers("/api/auth/**", "/swagger-ui.html", "/swagger-ui/index.html", "/swagger-ui/**", "/v3/**", "/healthCheck/**").permitAll().anyRequest().authenticated().and().sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and().authenticationProvider(authenticationProvider).addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class).cors();
 
         return http.build();
     }
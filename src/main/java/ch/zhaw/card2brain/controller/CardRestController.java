@@ -1,22 +1,47 @@
 package ch.zhaw.card2brain.controller;
 
 import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardExportDto;
+import ch.zhaw.card2brain.dto.CardImportResultDto;
+import ch.zhaw.card2brain.dto.CardPageDto;
+import ch.zhaw.card2brain.dto.ImportJobDto;
+import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.objectmapper.CardMapper;
 import ch.zhaw.card2brain.objectmapper.CategoryMapper;
+import ch.zhaw.card2brain.objectmapper.UserMapper;
+import ch.zhaw.card2brain.services.AnkiImportService;
+import ch.zhaw.card2brain.services.CardExportWriter;
+import ch.zhaw.card2brain.services.CardFileFormat;
+import ch.zhaw.card2brain.services.CardImportReader;
 import ch.zhaw.card2brain.services.CardService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping(value = "/api/cards")
 public class CardRestController {
 
+    private static final String CSV_VALUE = "text/csv";
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     @Autowired
     private final CardService cardService;
 
@@ -26,6 +51,15 @@ public class CardRestController {
     @Autowired
     CategoryMapper categoryMapper;
 
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private AnkiImportService ankiImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
     public CardRestController(CardService cardService, CardMapper cardMapper) {
         this.cardService = cardService;
@@ -48,6 +82,50 @@ public class CardRestController {
 
     }
 
+    /**
+     * This endpoint is used to import many cards into a category with one request. The upload is read row by row,
+     * as CSV with the columns question and answer or as NDJSON with one object per line, and the cards are inserted in batches.
+     * Rows which are not valid are rejected, the other rows are imported.
+     * @param categoryId the id of the category of the new cards
+     * @param contentType text/csv or application/x-ndjson, with an optional charset (default UTF-8)
+     * @param body the upload
+     * @return the number of imported and rejected rows with the reasons of the first rejected rows
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/import", consumes = {CSV_VALUE, NDJSON_VALUE})
+    public ResponseEntity<CardImportResultDto> importCards(@RequestParam long categoryId, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        CardFileFormat format = mediaType.isCompatibleWith(MediaType.parseMediaType(CSV_VALUE)) ? CardFileFormat.CSV : CardFileFormat.NDJSON;
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        try (CardImportReader rows = new CardImportReader(new InputStreamReader(body, charset), format, objectMapper)) {
+            return new ResponseEntity<>(cardService.importCards(categoryId, rows), HttpStatus.OK);
+        }
+    }
+
+    /**
+     * This endpoint is used to import an Anki package (.apkg). The package is stored and imported in the background,
+     * every deck becomes a category of the user; the request returns the job of the import at once.
+     * @param userId the id of the user who gets the decks
+     * @param body the package
+     * @return the job of the import, with HTTP status ACCEPTED
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/import/anki", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "application/zip"})
+    public ResponseEntity<ImportJobDto> importAnkiPackage(@RequestParam long userId, InputStream body) throws IOException {
+        return new ResponseEntity<>(ankiImportService.startImport(userId, body), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * This endpoint is used to get the progress of an Anki import.
+     * @param jobId the id of the job
+     * @return the job of the import
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/import/anki/{jobId}")
+    public ResponseEntity<ImportJobDto> getAnkiImport(@PathVariable String jobId) {
+        return new ResponseEntity<>(ankiImportService.getJob(jobId), HttpStatus.OK);
+    }
+
     /**
      * This endpoint is used to update a card. It maps the incoming cardDto to a card and calls the cardService to update the card.
      * @param cardDto the cardDto to update
@@ -73,8 +151,88 @@ public class CardRestController {
     @GetMapping(value = {"/"})
     public ResponseEntity<List<CardDto>> getCardsByCategory(@RequestParam long categoryId) {
         //Get All Cards
-        return new ResponseEntity<>(cardService.getAllCardsOfACategory(categoryMapper.fromIdToCategory(categoryId)).stream().map(cardMapper::mapToCardDto).collect(Collectors.toList()), HttpStatus.OK);
+        return new ResponseEntity<>(cardService.getCardDtosOfACategory(categoryId), HttpStatus.OK);
+    }
+
+    /**
+     * This endpoint is used to get the cards of a category page by page, ordered by card id.
+     * The first page is requested without afterId, the next pages with the nextCursor of the previous page.
+     * @param categoryId the id of the category
+     * @param afterId the nextCursor of the previous page
+     * @param limit the number of cards per page, at most 1000
+     * @return one page of cardDtos with the cursor of the next page
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = {"/page"})
+    public ResponseEntity<CardPageDto> getCardPageByCategory(@RequestParam long categoryId, @RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = cardMapper.toPageSize(limit);
+        return new ResponseEntity<>(cardMapper.mapToCardPage(cardService.getCardsOfACategoryAfter(categoryMapper.fromIdToCategory(categoryId), afterId, pageSize + 1), pageSize), HttpStatus.OK);
+    }
+
+    /**
+     * This endpoint is used to get all cards of a category as one JSON array, which is written while the cards are read.
+     * Neither the cards nor the cardDtos of the category are collected in a list, so the memory use does not depend on the size of the category.
+     * @param categoryId the id of the category
+     * @return the streamed list of cardDtos
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = {"/stream"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCardsByCategory(@RequestParam long categoryId) {
+        Category category = categoryMapper.fromIdToCategory(categoryId); // throws exception before the response is started
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                cardService.streamCardsOfACategory(category, card -> {
+                    try {
+                        generator.writeObject(cardMapper.mapToCardDto(card));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * This endpoint is used to export all cards of a category with their scheduling state as a gzip compressed NDJSON or CSV file.
+     * The cards are read in chunks and compressed while they are written, so neither the cards nor the file are held in memory.
+     * @param categoryId the id of the category
+     * @param format the format of the file, NDJSON (default) or CSV
+     * @return the streamed file
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/export", params = "categoryId")
+    public ResponseEntity<StreamingResponseBody> exportCardsOfACategory(@RequestParam long categoryId, @RequestParam(defaultValue = "NDJSON") CardFileFormat format) {
+        categoryMapper.fromIdToCategory(categoryId); // throws exception before the response is started
+        return export("category-" + categoryId, format, consumer -> cardService.exportCardsOfACategory(categoryId, consumer));
+    }
+
+    /**
+     * This endpoint is used to export the cards of all categories of a user with their scheduling state as a gzip compressed NDJSON or CSV file.
+     * @param userId the id of the user
+     * @param format the format of the file, NDJSON (default) or CSV
+     * @return the streamed file
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/export", params = "userId")
+    public ResponseEntity<StreamingResponseBody> exportCardsOfAUser(@RequestParam long userId, @RequestParam(defaultValue = "NDJSON") CardFileFormat format) {
+        userMapper.getUserById(userId); // throws exception before the response is started
+        return export("user-" + userId, format, consumer -> cardService.exportCardsOfAUser(userId, consumer));
+    }
 
+    private ResponseEntity<StreamingResponseBody> export(String name, CardFileFormat format, Consumer<Consumer<CardExportDto>> cards) {
+        StreamingResponseBody body = outputStream -> {
+            try (CardExportWriter writer = new CardExportWriter(outputStream, format, objectMapper)) {
+                cards.accept(writer::write);
+            }
+        };
+        String fileName = name + "." + format.name().toLowerCase() + ".gz";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 
     /**
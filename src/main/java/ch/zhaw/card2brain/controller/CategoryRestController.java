@@ -2,7 +2,6 @@ package ch.zhaw.card2brain.controller;
 
 
 import ch.zhaw.card2brain.dto.CategoryDto;
-import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.objectmapper.CategoryMapper;
 import ch.zhaw.card2brain.services.CategoryService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -12,7 +11,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 /**
 
  The CategoryRestController class is responsible for handling HTTP requests for categories.
@@ -45,9 +43,7 @@ public class CategoryRestController {
     @SecurityRequirement(name = "bearerAuth")
     @GetMapping(value = "/")
     public ResponseEntity<List<CategoryDto>> getAllCategoriesOfUser(@RequestParam long userId) {
-        List<CategoryDto> categories = categoryService.getAllCategoriesOfUser(categoryMapper.fromIdToUser(userId)).stream().map((Category category) -> categoryMapper.toDto(category)).collect(Collectors.toList());
-
-        return new ResponseEntity<>(categories, HttpStatus.OK);
+        return new ResponseEntity<>(categoryService.getCategoryDtosOfUser(userId), HttpStatus.OK);
     }
 
     /**
@@ -80,6 +76,22 @@ public class CategoryRestController {
     }
 
 
+    /**
+
+     Clone a category with all its cards, for its owner or for another user. The cards are copied by the database
+     and start as new cards in the clone.
+     This endpoint is protected by bearerAuth security requirement.
+     @param categoryId the id of the category to be cloned
+     @param userId the id of the owner of the clone, the owner of the category if it is missing
+     @param categoryName the name of the clone, the name of the category if it is missing
+     @return a response entity containing the DTO of the clone and a status of CREATED
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/clone")
+    public ResponseEntity<CategoryDto> cloneCategory(@RequestParam long categoryId, @RequestParam(required = false) Long userId, @RequestParam(required = false) String categoryName) {
+        return new ResponseEntity<>(categoryMapper.toDto(categoryService.cloneCategory(categoryId, userId, categoryName)), HttpStatus.CREATED);
+    }
+
     /**
 
      Delete an existing category with the provided id.
@@ -95,11 +107,19 @@ public class CategoryRestController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
 
-
-
-
-
-
-
+     Set the repetition sequence of a category: the days until the next repetition per number of correct answers in a row.
+     An empty list resets the category to the default sequence. The sequence is used for the answers given from now on.
+     This endpoint is protected by bearerAuth security requirement.
+     @param categoryId the id of the category
+     @param repetitionSequence the days until the next repetition, the last entry applies to all longer rows
+     @return a response entity with a status of OK
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PutMapping(value = "/repetitionSequence")
+    public ResponseEntity<?> setRepetitionSequence(@RequestParam long categoryId, @RequestBody List<Integer> repetitionSequence) {
+        categoryService.setRepetitionSequence(categoryId, repetitionSequence);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
 }
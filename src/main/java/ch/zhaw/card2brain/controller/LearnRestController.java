@@ -1,11 +1,14 @@
 package ch.zhaw.card2brain.controller;
 
 import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardPageDto;
 import ch.zhaw.card2brain.dto.LearnDto;
-import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.dto.LearnResultDto;
+import ch.zhaw.card2brain.dto.LearnSessionDto;
 import ch.zhaw.card2brain.objectmapper.CardMapper;
 import ch.zhaw.card2brain.objectmapper.LearnMapper;
 import ch.zhaw.card2brain.services.LearnService;
+import ch.zhaw.card2brain.services.LearnSessionService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,7 +16,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * RestController class for handling when the user is in the learning mode.
@@ -33,6 +35,9 @@ public class LearnRestController {
     @Autowired
     private LearnService learnService;
 
+    @Autowired
+    private LearnSessionService learnSessionService;
+
     @Autowired
     private LearnMapper learnMapper;
 
@@ -52,6 +57,19 @@ public class LearnRestController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+
+     This method is used to submit all answers of a learning session in one request.
+     The answers are applied in one transaction, answers to cards that do not exist are reported per card.
+     @param learnDtos list of {@link LearnDto} objects in the order the cards were answered.
+     @return {@link ResponseEntity} with a list of {@link LearnResultDto} objects, one per answer, and status OK.
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/batch")
+    public ResponseEntity<List<LearnResultDto>> cardsLearned(@RequestBody List<LearnDto> learnDtos) {
+        return new ResponseEntity<>(learnService.cardsWereShown(learnMapper.toLearns(learnDtos)), HttpStatus.OK);
+    }
+
     /**
      This method is used to retrieve a list of cards to learn for a given category.
      @param categoryId the id of the category for which the cards to learn are requested.
@@ -60,7 +78,70 @@ public class LearnRestController {
     @SecurityRequirement(name = "bearerAuth")
     @GetMapping(value = "/")
     public ResponseEntity<List<CardDto>> cardsToLearn(@RequestParam long categoryId) {
-        return new ResponseEntity<>(learnService.cardsToLearn(learnMapper.getCardsToLearn(categoryId)).stream().map((Card card) -> cardMapper.mapToCardDto(card)).collect(Collectors.toList()), HttpStatus.OK);
+        return new ResponseEntity<>(learnService.cardsToLearn(categoryId), HttpStatus.OK);
+    }
+
+    /**
+     This method is used to retrieve the cards to learn of a given category page by page, ordered by card id.
+     The first page is requested without afterId, the next pages with the nextCursor of the previous page.
+     @param categoryId the id of the category for which the cards to learn are requested.
+     @param afterId the nextCursor of the previous page.
+     @param limit the number of cards per page, at most 1000.
+     @return {@link ResponseEntity} with one page of {@link CardDto} objects and status OK.
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/page")
+    public ResponseEntity<CardPageDto> cardPageToLearn(@RequestParam long categoryId, @RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = cardMapper.toPageSize(limit);
+        return new ResponseEntity<>(cardMapper.mapToCardPage(learnService.cardsToLearn(learnMapper.getCardsToLearn(categoryId), afterId, pageSize + 1), pageSize), HttpStatus.OK);
+    }
+
+    /**
+     This method is used to start a learn session for the cards to learn of a given category.
+     The cards of the session are fetched with the next cards endpoint, the next cards are prefetched by the server.
+     @param categoryId the id of the category to learn.
+     @return {@link ResponseEntity} with the started {@link LearnSessionDto} and status CREATED.
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/sessions")
+    public ResponseEntity<LearnSessionDto> startSession(@RequestParam long categoryId) {
+        return new ResponseEntity<>(learnSessionService.startSession(categoryId), HttpStatus.CREATED);
+    }
+
+    /**
+     This method is used to retrieve the next cards of a learn session, ordered by card id.
+     @param sessionId the id of the learn session.
+     @param count the number of cards, at most the window size of the sessions.
+     @return {@link ResponseEntity} with a list of {@link CardDto} objects, empty if all cards were served, and status OK.
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/sessions/{sessionId}/cards")
+    public ResponseEntity<List<CardDto>> nextCards(@PathVariable String sessionId, @RequestParam(defaultValue = "1") int count) {
+        return new ResponseEntity<>(learnSessionService.nextCards(sessionId, count), HttpStatus.OK);
+    }
+
+    /**
+     This method is used to submit the answers given in a learn session.
+     @param sessionId the id of the learn session.
+     @param learnDtos list of {@link LearnDto} objects in the order the cards were answered.
+     @return {@link ResponseEntity} with a list of {@link LearnResultDto} objects, one per answer, and status OK.
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/sessions/{sessionId}/answers")
+    public ResponseEntity<List<LearnResultDto>> sessionCardsLearned(@PathVariable String sessionId, @RequestBody List<LearnDto> learnDtos) {
+        return new ResponseEntity<>(learnSessionService.answer(sessionId, learnMapper.toLearns(learnDtos)), HttpStatus.OK);
+    }
+
+    /**
+     This method is used to end a learn session.
+     @param sessionId the id of the learn session.
+     @return {@link ResponseEntity} with status OK.
+     */
+    @SecurityRequirement(name = "bearerAuth")
+    @DeleteMapping(value = "/sessions/{sessionId}")
+    public ResponseEntity<?> endSession(@PathVariable String sessionId) {
+        learnSessionService.endSession(sessionId);
+        return new ResponseEntity<>(HttpStatus.OK);
     }
 
 }
@@ -115,7 +115,7 @@ public class UserRestController {
     @SecurityRequirement(name = "bearerAuth")
     @GetMapping(value = "/info")
     public ResponseEntity<List<InfoDto>> getInfosOfUser(@RequestParam long userId) {
-        List<InfoDto> infos = infoService.getInfos(userMapper.getUserById(userId));
+        List<InfoDto> infos = infoService.getInfos(userId);
         return new ResponseEntity<>(infos, HttpStatus.OK);
     }
 
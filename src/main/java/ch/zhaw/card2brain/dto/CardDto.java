@@ -36,5 +36,17 @@ public class CardDto extends BaseDto {
     @Setter
     private long categoryId;
 
+    /**
+     * Creates a CardDto with its id, used by the queries which select the DTO directly.
+     *
+     * @param id         the id of the card
+     * @param question   the question of the card
+     * @param answer     the answer of the card
+     * @param categoryId the id of the category of the card
+     */
+    public CardDto(Long id, String question, String answer, long categoryId) {
+        this(question, answer, categoryId);
+        this.id = id;
+    }
 
 }
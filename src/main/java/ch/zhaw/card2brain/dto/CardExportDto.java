@@ -0,0 +1,46 @@
+package ch.zhaw.card2brain.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+
+ CardExportDto is a Data Transfer Object class representing one exported card.
+ Besides the content of the card it contains the scheduling state, so an export is a complete copy of the card.
+ The queries of the export select this DTO directly, the category and its owner are not read.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class CardExportDto {
+
+    private long id;
+
+    private long categoryId;
+
+    private String question;
+
+    private String answer;
+
+    private int counterRight;
+
+    private int counterFalse;
+
+    private int correctAnswersInRow;
+
+    private LocalDate nextDateToRepeat;
+
+    private LocalDateTime answeredLastTime;
+}
@@ -0,0 +1,33 @@
+package ch.zhaw.card2brain.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+
+ CardImportResultDto is a Data Transfer Object class.
+ This class is used to send the summary of a card import back to the frontend:
+ the number of imported and rejected rows and the reasons of the first rejected rows.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class CardImportResultDto {
+
+    private int accepted;
+
+    private int rejected;
+
+    private List<String> errors;
+}
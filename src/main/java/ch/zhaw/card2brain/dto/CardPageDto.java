@@ -0,0 +1,31 @@
+package ch.zhaw.card2brain.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+
+ CardPageDto is a Data Transfer Object class.
+ This class is used to send one page of the cards of a category, ordered by card id, to the frontend.
+ The next page is requested with nextCursor as afterId, nextCursor is null on the last page.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class CardPageDto {
+
+    private List<CardDto> cards;
+
+    private Long nextCursor;
+}
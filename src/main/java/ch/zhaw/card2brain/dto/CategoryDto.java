@@ -1,7 +1,7 @@
 package ch.zhaw.card2brain.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import jakarta.persistence.ManyToOne;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 /**
@@ -18,7 +18,6 @@ import lombok.NonNull;
  @version 1.0
  @since 16.01.2023
  */
-@AllArgsConstructor
 @Getter
 public class CategoryDto extends BaseDto {
 
@@ -29,4 +28,40 @@ public class CategoryDto extends BaseDto {
     @ManyToOne
     @NonNull
     private long owner;
+
+    /** The number of cards of the category, only set in the category list. */
+    @Getter
+    private Integer numberOfCards;
+
+    /** The number of cards to repeat today, only set in the category list. */
+    @Getter
+    private Integer toLearn;
+
+    /**
+     * Creates a CategoryDto, used for the requests of the frontend.
+     *
+     * @param categoryName the name of the category
+     * @param owner        the id of the owner of the category
+     */
+    @JsonCreator
+    public CategoryDto(String categoryName, long owner) {
+        this.categoryName = categoryName;
+        this.owner = owner;
+    }
+
+    /**
+     * Creates a CategoryDto with its id and its card counts, used for the category list.
+     *
+     * @param id            the id of the category
+     * @param categoryName  the name of the category
+     * @param owner         the id of the owner of the category
+     * @param numberOfCards the number of cards of the category
+     * @param toLearn       the number of cards to repeat today
+     */
+    public CategoryDto(Long id, String categoryName, long owner, int numberOfCards, int toLearn) {
+        this(categoryName, owner);
+        this.id = id;
+        this.numberOfCards = numberOfCards;
+        this.toLearn = toLearn;
+    }
 }
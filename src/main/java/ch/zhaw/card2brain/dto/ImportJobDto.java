@@ -0,0 +1,50 @@
+package ch.zhaw.card2brain.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+
+ ImportJobDto is a Data Transfer Object class.
+ This class is used to send the progress of an import which runs in the background to the frontend.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class ImportJobDto {
+
+    private String jobId;
+
+    private long userId;
+
+    /**
+     * QUEUED, RUNNING, DONE or FAILED
+     */
+    private String status;
+
+    private int categories;
+
+    /**
+     * the ids of the categories created by the import, also if it failed
+     */
+    private List<Long> categoryIds;
+
+    private long total;
+
+    private long imported;
+
+    private long skipped;
+
+    private String error;
+}
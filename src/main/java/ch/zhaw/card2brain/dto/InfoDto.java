@@ -35,4 +35,7 @@ public class InfoDto {
     private int toLearn;
 
 
+    private final int numberOfReviews;
+
+
 }
@@ -0,0 +1,30 @@
+package ch.zhaw.card2brain.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+
+ LearnResultDto is a Data Transfer Object class.
+ This class is used to send the result of one answer of a batch submission back to the frontend
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class LearnResultDto {
+
+    private long cardId;
+
+    private boolean updated;
+
+    private String error;
+}
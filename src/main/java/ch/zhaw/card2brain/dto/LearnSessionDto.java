@@ -0,0 +1,30 @@
+package ch.zhaw.card2brain.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+
+ LearnSessionDto is a Data Transfer Object class.
+ This class is used to send a started learn session to the frontend, which fetches the cards and submits the answers with the session id.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class LearnSessionDto {
+
+    private String sessionId;
+
+    private long categoryId;
+
+    private int maxCards;
+}
@@ -1,6 +1,7 @@
 package ch.zhaw.card2brain.exception;
 
 import ch.zhaw.card2brain.util.HasLogger;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -127,6 +128,80 @@ public class ExceptionHandlerAdvice implements HasLogger {
                 .body("Error: " + e.getMessage());
     }
 
+    /**
+     * Handles LearnSessionNotFoundException and returns a response with HTTP status code NOT_FOUND.
+     *
+     * @param e the LearnSessionNotFoundException to be handled
+     * @return a ResponseEntity with the error message and HTTP status code NOT_FOUND
+     */
+    @ExceptionHandler(LearnSessionNotFoundException.class)
+    public ResponseEntity<String> handleException(LearnSessionNotFoundException e) {
+        getLogger().error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body("Error: " + e.getMessage());
+    }
+
+    /**
+     * Handles ImportJobNotFoundException and returns a response with HTTP status code NOT_FOUND.
+     *
+     * @param e the ImportJobNotFoundException to be handled
+     * @return a ResponseEntity with the error message and HTTP status code NOT_FOUND
+     */
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<String> handleException(ImportJobNotFoundException e) {
+        getLogger().error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body("Error: " + e.getMessage());
+    }
+
+    /**
+     * Handles the {@link ImportTooLargeException} and returns error message with status code 413.
+     *
+     * @param e the exception to be handled
+     * @return the response entity with error message and status code
+     */
+    @ExceptionHandler(ImportTooLargeException.class)
+    public ResponseEntity<String> handleException(ImportTooLargeException e) {
+        getLogger().error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body("Error: " + e.getMessage());
+    }
+
+    /**
+     * Handles ServerBusyException and returns a response with HTTP status code SERVICE_UNAVAILABLE
+     * and a Retry-After header with the seconds after which the request can be repeated.
+     *
+     * @param e the ServerBusyException to be handled
+     * @return a ResponseEntity with the error message and HTTP status code SERVICE_UNAVAILABLE
+     */
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<String> handleException(ServerBusyException e) {
+        getLogger().error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Error: " + e.getMessage());
+    }
+
+    /**
+     * Handles TooManyLoginAttemptsException and returns a response with HTTP status code TOO_MANY_REQUESTS
+     * and a Retry-After header with the seconds after which a login is allowed again.
+     *
+     * @param e the TooManyLoginAttemptsException to be handled
+     * @return a ResponseEntity with the error message and HTTP status code TOO_MANY_REQUESTS
+     */
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<String> handleException(TooManyLoginAttemptsException e) {
+        getLogger().error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Error: " + e.getMessage());
+    }
+
     /**
      * Handles UserAlreadyExistsException and returns a response with HTTP status code CONFLICT.
      *
@@ -0,0 +1,30 @@
+package ch.zhaw.card2brain.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+
+ A custom exception class for signaling that an import job does not exist or has been forgotten.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+ /**
+ Constructs a new exception with the specified detail message.
+ @param message The detail message.
+ */
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+
+}
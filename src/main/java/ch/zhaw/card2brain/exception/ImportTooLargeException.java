@@ -0,0 +1,30 @@
+package ch.zhaw.card2brain.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+
+ A custom exception class for signaling that an uploaded file is larger than an import accepts.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+ /**
+ Constructs a new exception with the specified detail message.
+ @param message The detail message.
+ */
+public class ImportTooLargeException extends RuntimeException {
+    public ImportTooLargeException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,39 @@
+package ch.zhaw.card2brain.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+
+ A custom exception class for signaling that a bounded worker pool is full and the request has to be repeated later.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+ /**
+ Constructs a new exception with the specified detail message and the seconds after which the request can be repeated.
+ @param message The detail message.
+ @param retryAfterSeconds The seconds for the Retry-After header.
+ */
+public class ServerBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServerBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
@@ -0,0 +1,39 @@
+package ch.zhaw.card2brain.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+
+ A custom exception class for signaling that the login attempts of a mail address or a client address exceeded their limit.
+ @author Niklaus Hänggi
+ @author Alexander Studer
+ @author Roman Joller
+ @version 1.0
+ @since 16.01.2023
+ */
+
+
+
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
+ /**
+ Constructs a new exception with the specified detail message and the seconds after which a login is allowed again.
+ @param message The detail message.
+ @param retryAfterSeconds The seconds for the Retry-After header.
+ */
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
@@ -1,6 +1,7 @@
 package ch.zhaw.card2brain.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import lombok.*;
 
@@ -52,9 +53,10 @@ public class Card extends BaseEntity {
     private int correctAnswersInRow = 0;
 
     @Getter
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @NonNull
     @Setter
+    @ToString.Exclude
     private Category category;
 
 }
@@ -1,9 +1,12 @@
 package ch.zhaw.card2brain.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import lombok.*;
 
+
 /**
  The class representing a database entity of a category
  @author Niklaus Hänggi
@@ -26,9 +29,25 @@ public class Category extends BaseEntity {
 
     @Getter
     @Setter
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @NonNull
+    @ToString.Exclude
     private User owner;
 
+    /** The number of cards, maintained by the card service with SQL and never written by hibernate. */
+    @Getter
+    @Column(insertable = false, updatable = false)
+    private int cardCount;
+
+    /** The number of answers to the cards. */
+    @Getter
+    @Column(insertable = false, updatable = false)
+    private int reviewCount;
+
+    /** The days until the next repetition per number of correct answers in a row, comma separated; null for the default sequence. Written with SQL by the category service. */
+    @Getter
+    @Column(insertable = false, updatable = false)
+    private String repetitionSequence;
+
 
 }
@@ -3,7 +3,22 @@ package ch.zhaw.card2brain.model;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
+import java.time.LocalDateTime;
+
+/**
+ * The class representing one answer of a user to a card in the learning mode.
+ * It only references the card by its id, so an answer can be handed to the service layer
+ * without loading the card first.
+ * The answer time is only set for answers which are written later, e.g. from the review journal.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
 @RequiredArgsConstructor
 public class Learn {
     @NonNull
@@ -11,6 +26,9 @@ public class Learn {
     boolean correct;
     @Getter
     @NonNull
-    private Card card;
+    private Long cardId;
+    @Getter
+    @Setter
+    private LocalDateTime answeredAt;
 
 }
@@ -9,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -71,6 +72,24 @@ public class User extends BaseEntity implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    /**
+
+     The time the deletion of the user was requested, null for active users.
+     Written with SQL by the user service, the data of the user is purged in the background.
+     */
+    @Getter
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
+
+    /**
+
+     The version of the tokens of the user, written into every token.
+     Incremented with SQL by the user service when the mail address or the password changes, which revokes the issued tokens.
+     */
+    @Getter
+    @Column(insertable = false, updatable = false)
+    private int tokenVersion;
+
     /**
      * Returns a collection of roles/authorities granted to the user.
      *
@@ -1,6 +1,7 @@
 package ch.zhaw.card2brain.objectmapper;
 
 import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardPageDto;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.services.CardService;
@@ -8,6 +9,8 @@ import ch.zhaw.card2brain.services.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * CardMapper class is responsible for mapping between Card and CardDto objects.
  * It uses two services, CategoryService and CardService, to perform necessary database operations.
@@ -22,6 +25,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class CardMapper {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     CategoryService categoryService;
 
@@ -75,4 +80,29 @@ public class CardMapper {
         return card;
     }
 
+    /**
+     * Maps a requested page size to the range from 1 to 1000 cards.
+     *
+     * @param limit The requested page size.
+     * @return The page size to be used.
+     */
+    public int toPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Maps the cards of a keyset query to one page. The query has to read one card more than the page size,
+     * this card is only used to decide whether there is a next page.
+     *
+     * @param cards    The cards read by the query, ordered by id.
+     * @param pageSize The number of cards of the page.
+     * @return The mapped page, with the id of its last card as next cursor if there are more cards.
+     */
+    public CardPageDto mapToCardPage(List<Card> cards, int pageSize) {
+        boolean hasNextPage = cards.size() > pageSize;
+        List<CardDto> cardDtos = cards.stream().limit(pageSize).map(this::mapToCardDto).toList();
+        Long nextCursor = hasNextPage ? cardDtos.get(cardDtos.size() - 1).getId() : null;
+        return new CardPageDto(cardDtos, nextCursor);
+    }
+
 }
@@ -3,11 +3,12 @@ package ch.zhaw.card2brain.objectmapper;
 import ch.zhaw.card2brain.dto.LearnDto;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.Learn;
-import ch.zhaw.card2brain.services.CardService;
 import ch.zhaw.card2brain.services.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * LearnMapper is a component class that maps a LearnDto to a Learn object and retrieves a Category object by its id.
  *
@@ -20,11 +21,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class LearnMapper {
 
-    /**
-     * The CardService instance used to retrieve a Card object by its id.
-     */
-    @Autowired
-    private CardService cardService;
     /**
      * The CategoryService instance used to retrieve a Category object by its id.
      */
@@ -33,12 +29,23 @@ public class LearnMapper {
 
     /**
      * Maps a LearnDto to a Learn object.
+     * The card is only referenced by its id, the existence of the card is checked by the {@link ch.zhaw.card2brain.services.LearnService}.
      *
      * @param learnDto the LearnDto to be mapped
      * @return the mapped Learn object
      */
     public Learn toLearn(LearnDto learnDto) {
-        return new Learn(learnDto.isCorrect(), cardService.getCard(learnDto.getCardId()));
+        return new Learn(learnDto.isCorrect(), learnDto.getCardId());
+    }
+
+    /**
+     * Maps a list of LearnDtos to a list of Learn objects, keeping the order of the answers.
+     *
+     * @param learnDtos the LearnDtos to be mapped
+     * @return the mapped Learn objects
+     */
+    public List<Learn> toLearns(List<LearnDto> learnDtos) {
+        return learnDtos.stream().map(this::toLearn).toList();
     }
 
     /**
@@ -1,15 +1,28 @@
 package ch.zhaw.card2brain.repository;
 
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardExportDto;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This interface extends JpaRepository and provides methods for finding and retrieving Card objects from the database.
+ * The category of a card is loaded lazily, the finders which return cards for further use fetch the category and its owner
+ * in the same query. The read endpoints select their DTOs directly and read neither of them.
  *
  * @author Niklaus Hänggi
  * @author Alexander Studer
@@ -17,10 +30,11 @@ import java.util.List;
  * @version 1.0
  * @see JpaRepository
  * @see Card
+ * @see CardRepositoryCustom
  * @since 16.01.2023
  */
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardRepositoryCustom {
 
     /**
 
@@ -28,6 +42,7 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      @param cardId the id of the card to be searched for
      @return the Card object that matches the provided cardId
      */
+    @EntityGraph(attributePaths = {"category", "category.owner"})
     Card findCardById(long cardId);
 
     /**
@@ -36,6 +51,7 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      @param category the category of the cards to be searched for
      @return a List of Card objects that match the provided category
      */
+    @EntityGraph(attributePaths = {"category", "category.owner"})
     List<Card> findCardByCategory(Category category);
 
     /**
@@ -44,6 +60,7 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      @param categoryId the id of the category of the cards to be searched for
      @return a List of Card objects that match the provided categoryId
      */
+    @EntityGraph(attributePaths = {"category", "category.owner"})
     List<Card> findCardByCategory_Id(long categoryId);
 
     /**
@@ -64,4 +81,124 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      */
     List<Card> findAllByCategoryIdAndNextDateToRepeatIsLessThanEqual(long categoryId, LocalDate nextDateToRepeat);
 
+    /**
+
+     This method returns the next cards of a category after the provided card id, ordered by id.
+     The cards are found by seeking the id in the index on (category_id, id), so every page costs the same regardless of its position.
+     The order by the category id is always the same, it lets the database read the page in the order of the index.
+     @param categoryId the id of the category of the cards to be searched for
+     @param afterId the id of the last card of the previous page, 0 for the first page
+     @param pageable the number of cards to return, the page number has to be 0
+     @return a List of at most pageable.pageSize Card objects with an id greater than afterId
+     */
+    List<Card> findByCategory_IdAndIdGreaterThanOrderByCategoryIdAscIdAsc(long categoryId, long afterId, Pageable pageable);
+
+    /**
+
+     This method returns the next cards of a category to repeat after the provided card id, ordered by id.
+     @param categoryId the id of the category of the cards to be searched for
+     @param nextDateToRepeat the date to compare against the nextDateToRepeat field of the cards
+     @param afterId the id of the last card of the previous page, 0 for the first page
+     @param pageable the number of cards to return, the page number has to be 0
+     @return a List of at most pageable.pageSize Card objects to repeat with an id greater than afterId
+     */
+    List<Card> findByCategory_IdAndNextDateToRepeatLessThanEqualAndIdGreaterThanOrderByCategoryIdAscIdAsc(long categoryId, LocalDate nextDateToRepeat, long afterId, Pageable pageable);
+
+    /**
+
+     This method streams all cards of a category, ordered by id. The rows are fetched from the database in chunks
+     of the JDBC fetch size while the stream is consumed, so the cards of the category are never all in memory.
+     The stream has to be consumed and closed within a transaction.
+     @param categoryId the id of the category of the cards to be streamed
+     @return a Stream of the Card objects of the category
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Card c where c.category.id = :categoryId order by c.id")
+    Stream<Card> streamByCategoryId(@Param("categoryId") long categoryId);
+
+    /**
+
+     This method returns the scheduling state of all cards of a user, ordered by card id.
+     Every row contains the card id, the category id, the next repetition date and the number of correct answers in a row.
+     @param ownerId the id of the owner of the cards
+     @return a List of rows with the scheduling state of the cards
+     */
+    @Query("select c.id, c.category.id, c.nextDateToRepeat, c.correctAnswersInRow from Card c where c.category.owner.id = :ownerId order by c.id")
+    List<Object[]> findSchedulesByOwnerId(@Param("ownerId") long ownerId);
+
+    /**
+
+     This method returns the category ids and the owner ids of a list of cards, read with the primary key indexes.
+     Every row contains the card id, the category id and the owner id; cards which do not exist are missing.
+     @param cardIds the ids of the cards
+     @return a List of rows with the card id, the category id and the owner id
+     */
+    @Query("select c.id, c.category.id, c.category.owner.id from Card c where c.id in :cardIds")
+    List<Object[]> findCategoryAndOwnerIdsByIds(@Param("cardIds") Collection<Long> cardIds);
+
+    /**
+
+     This method returns the ids of the cards of a list which exist, read with the primary key index.
+     @param cardIds the ids of the cards
+     @return the ids of the existing cards
+     */
+    @Query("select c.id from Card c where c.id in :cardIds")
+    List<Long> findExistingIds(@Param("cardIds") Collection<Long> cardIds);
+
+    /**
+
+     This method returns the ids of the cards of a list which belong to a category, read with the primary key index.
+     @param categoryId the id of the category
+     @param cardIds the ids of the cards
+     @return the ids of the cards of the category
+     */
+    @Query("select c.id from Card c where c.category.id = :categoryId and c.id in :cardIds")
+    List<Long> findIdsInCategory(@Param("categoryId") long categoryId, @Param("cardIds") Collection<Long> cardIds);
+
+    /**
+
+     This method returns the cardDtos of all cards of a category, ordered by id.
+     Only the columns of the CardDto are selected, the category and its owner are not read.
+     @param categoryId the id of the category of the cards to be searched for
+     @return a List of CardDto objects of the category
+     */
+    @Query("select new ch.zhaw.card2brain.dto.CardDto(c.id, c.question, c.answer, c.category.id) from Card c where c.category.id = :categoryId order by c.id")
+    List<CardDto> findCardDtosByCategoryId(@Param("categoryId") long categoryId);
+
+    /**
+
+     This method returns the cardDtos of the cards of a category which have a nextDateToRepeat less than or equal to the provided LocalDate, ordered by id.
+     Only the columns of the CardDto are selected, the category and its owner are not read.
+     @param categoryId the id of the category of the cards to be searched for
+     @param nextDateToRepeat the date to compare against the nextDateToRepeat field of the cards
+     @return a List of CardDto objects of the cards to repeat
+     */
+    @Query("select new ch.zhaw.card2brain.dto.CardDto(c.id, c.question, c.answer, c.category.id) from Card c where c.category.id = :categoryId and c.nextDateToRepeat <= :nextDateToRepeat order by c.id")
+    List<CardDto> findCardDtosToRepeatByCategoryId(@Param("categoryId") long categoryId, @Param("nextDateToRepeat") LocalDate nextDateToRepeat);
+
+    /**
+
+     This method returns the cardDtos of the next cards of a category to repeat after the provided card id, ordered by id.
+     Only the columns of the CardDto are selected, the category and its owner are not read.
+     @param categoryId the id of the category of the cards to be searched for
+     @param nextDateToRepeat the date to compare against the nextDateToRepeat field of the cards
+     @param afterId the id of the last card of the previous window, 0 for the first window
+     @param pageable the number of cards to return, the page number has to be 0
+     @return a List of at most pageable.pageSize CardDto objects to repeat with an id greater than afterId
+     */
+    @Query("select new ch.zhaw.card2brain.dto.CardDto(c.id, c.question, c.answer, c.category.id) from Card c where c.category.id = :categoryId and c.nextDateToRepeat <= :nextDateToRepeat and c.id > :afterId order by c.category.id, c.id")
+    List<CardDto> findCardDtosToRepeatAfter(@Param("categoryId") long categoryId, @Param("nextDateToRepeat") LocalDate nextDateToRepeat, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+
+     This method returns the next cards of a category after the provided card id for the export, ordered by id.
+     @param categoryId the id of the category of the cards
+     @param afterId the id of the last card of the previous chunk, 0 for the first chunk
+     @param pageable the number of cards to return, the page number has to be 0
+     @return a List of at most pageable.pageSize CardExportDto objects with an id greater than afterId
+     */
+    @Query("select new ch.zhaw.card2brain.dto.CardExportDto(c.id, c.category.id, c.question, c.answer, c.counterRight, c.counterFalse, c.correctAnswersInRow, c.nextDateToRepeat, c.answeredLastTime)"
+            + " from Card c where c.category.id = :categoryId and c.id > :afterId order by c.category.id, c.id")
+    List<CardExportDto> findCardExportDtosByCategoryIdAfter(@Param("categoryId") long categoryId, @Param("afterId") long afterId, Pageable pageable);
+
 }
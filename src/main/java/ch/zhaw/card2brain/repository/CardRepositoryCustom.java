@@ -0,0 +1,135 @@
+package ch.zhaw.card2brain.repository;
+
+import ch.zhaw.card2brain.model.Learn;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * This interface provides the write path for answered cards, which bypasses the entity life cycle.
+ * A review is written with one conditional UPDATE, so the card does not have to be loaded first
+ * and concurrent reviews of the same card can not overwrite each other's counters.
+ * <p>
+ * Copies of a category are written with one INSERT ... SELECT which takes the ids from the card sequence.
+ * <p>
+ * The rescheduling of all cards reads the schedules in id order with a keyset query and writes the new repetition dates
+ * as JDBC batches; a card which was answered in the meantime is not changed.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @see CardRepositoryCustomImpl
+ * @since 16.01.2023
+ */
+public interface CardRepositoryCustom {
+
+    /**
+     * The schedule of a card.
+     *
+     * @param cardId              the id of the card
+     * @param categoryId          the id of the category of the card
+     * @param correctAnswersInRow the number of correct answers in a row
+     * @param answeredLastTime    the time of the last answer
+     * @param nextDateToRepeat    the next repetition date
+     */
+    record Schedule(long cardId, long categoryId, int correctAnswersInRow, LocalDateTime answeredLastTime, LocalDate nextDateToRepeat) {
+    }
+
+    /**
+
+     This method writes one answer to a card: it increments the right or false counter, advances or resets
+     the number of correct answers in a row and sets the next repetition date and the last answer time.
+     @param cardId the id of the answered card
+     @param correct whether the answer was correct
+     @param nextDates the next repetition date per number of correct answers in a row, the last entry is used for all longer rows
+     @param answeredAt the time of the answer
+     @return the number of updated rows, 0 if the card does not exist
+     */
+    int reviewCard(long cardId, boolean correct, LocalDate[] nextDates, LocalDateTime answeredAt);
+
+    /**
+
+     This method writes a list of answers as one JDBC batch, see {@link #reviewCard(long, boolean, LocalDate[], LocalDateTime)}.
+     @param learns the answers, in the order they were given
+     @param nextDates per answer, the next repetition date per number of correct answers in a row; all arrays have the same length
+     @param answeredAt the time of the answers
+     @return the number of updated rows per answer, 0 if the card does not exist
+     */
+    int[] reviewCards(List<Learn> learns, List<LocalDate[]> nextDates, LocalDateTime answeredAt);
+
+    /**
+
+     This method writes a list of answers, each with its own answer time, as one JDBC batch.
+     An answer is only written if it is newer than the last answer stored on the card,
+     so writing the same answers a second time (e.g. when a journal is replayed) does not change the card.
+     @param learns the answers with their answer time, in the order they were given
+     @param nextDates per answer, the next repetition dates per number of correct answers in a row for the day of the answer; all arrays have the same length
+     @return the number of updated rows per answer, 0 if the card does not exist or already has a newer answer
+     */
+    int[] reviewCardsIfNewer(List<Learn> learns, List<LocalDate[]> nextDates);
+
+    /**
+
+     This method reads the schedules of the next cards after a card id, ordered by id.
+     Cards without a last answer time are skipped, their repetition date can not be computed.
+     @param afterId the id of the last card of the previous chunk, 0 for the first chunk
+     @param limit the maximal number of schedules
+     @return the schedules of at most limit cards with an id greater than afterId
+     */
+    List<Schedule> findSchedulesAfter(long afterId, int limit);
+
+    /**
+
+     This method writes new repetition dates as one JDBC batch. A card is only changed if its number of correct answers
+     in a row and its last answer time are still the ones of the schedule, so a card answered in the meantime keeps the date of its answer.
+     @param schedules the schedules with the new repetition dates
+     @return the number of changed cards
+     */
+    int rescheduleCards(List<Schedule> schedules);
+
+    /**
+
+     This method copies all cards of a category into another category with one INSERT ... SELECT.
+     The copies have the question and the answer of the cards and the scheduling state of new cards.
+     @param fromCategoryId the id of the category of the cards
+     @param toCategoryId the id of the category of the copies
+     @return the number of copied cards
+     */
+    int copyCards(long fromCategoryId, long toCategoryId);
+
+    /**
+
+     This method deletes all cards of a category with one DELETE statement.
+     @param categoryId the id of the category of the cards
+     @return the number of deleted cards
+     */
+    int deleteCardsOfCategory(long categoryId);
+
+    /**
+
+     This method deletes all cards of all categories of a user with one DELETE statement.
+     @param ownerId the id of the owner of the categories
+     @return the number of deleted cards
+     */
+    int deleteCardsOfOwner(long ownerId);
+
+    /**
+
+     This method deletes cards of the categories of a user, one category after the other in the order of their ids
+     and the cards of a category in the order of their ids, with one DELETE statement per category.
+     @param ownerId the id of the owner of the categories
+     @param limit the maximum number of cards to delete
+     @return the number of deleted cards, less than the limit if no cards of the user are left
+     */
+    int deleteCardsOfOwner(long ownerId, int limit);
+
+    /**
+
+     This method counts the cards of all categories of a user.
+     @param ownerId the id of the owner of the categories
+     @return the number of cards of the user
+     */
+    long countCardsOfOwner(long ownerId);
+}
@@ -0,0 +1,216 @@
+package ch.zhaw.card2brain.repository;
+
+import ch.zhaw.card2brain.model.Learn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementation of {@link CardRepositoryCustom} with plain JDBC.
+ * <p>
+ * The new number of correct answers in a row is computed by the database from the stored value,
+ * so the next repetition date is selected with a CASE over the stored value.
+ * MySQL evaluates the assignments of an UPDATE from left to right, therefore the next repetition date
+ * has to be set before the number of correct answers in a row is changed.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+
+    private static final String FIND_SCHEDULES_SQL = "SELECT id, category_id, correct_answers_in_row, answered_last_time, next_date_to_repeat FROM card"
+            + " WHERE id > ? AND answered_last_time IS NOT NULL ORDER BY id LIMIT ?";
+
+    private static final String RESCHEDULE_SQL = "UPDATE card SET next_date_to_repeat = ? WHERE id = ? AND correct_answers_in_row = ? AND answered_last_time = ?";
+
+    // the new cards get the scheduling state of a new Card entity
+    private static final String COPY_COLUMNS_SQL = "INSERT INTO card (id, question, answer, category_id, counter_right, counter_false, correct_answers_in_row,"
+            + " next_date_to_repeat, answered_last_time)";
+
+    private static final String COPY_VALUES_SQL = " question, answer, ?, 0, 0, 0, ?, ? FROM card WHERE category_id = ? ORDER BY id";
+
+    private static final String DELETE_CARDS_OF_OWNER_SQL = "DELETE FROM card WHERE category_id IN (SELECT id FROM category WHERE owner_id = ?)";
+
+    // the increment of the card sequence of the migrations, the number of ids hibernate takes per sequence call
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final LocalDate NEW_CARD_DATE = LocalDate.of(1970, 1, 1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean mysql;
+
+    @Override
+    public int reviewCard(long cardId, boolean correct, LocalDate[] nextDates, LocalDateTime answeredAt) {
+        return jdbcTemplate.update(reviewSql(nextDates.length, false), ps -> setReviewParameters(ps, cardId, correct, nextDates, answeredAt));
+    }
+
+    @Override
+    public int[] reviewCards(List<Learn> learns, List<LocalDate[]> nextDates, LocalDateTime answeredAt) {
+        if (learns.isEmpty()) {
+            return new int[0];
+        }
+        int repetitionSteps = nextDates.get(0).length;
+        return jdbcTemplate.batchUpdate(reviewSql(repetitionSteps, false), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Learn learn = learns.get(i);
+                setReviewParameters(ps, learn.getCardId(), learn.isCorrect(), nextDates.get(i), answeredAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return learns.size();
+            }
+        });
+    }
+
+    @Override
+    public int[] reviewCardsIfNewer(List<Learn> learns, List<LocalDate[]> nextDates) {
+        if (learns.isEmpty()) {
+            return new int[0];
+        }
+        int repetitionSteps = nextDates.get(0).length;
+        return jdbcTemplate.batchUpdate(reviewSql(repetitionSteps, true), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Learn learn = learns.get(i);
+                setReviewParameters(ps, learn.getCardId(), learn.isCorrect(), nextDates.get(i), learn.getAnsweredAt());
+                ps.setObject(repetitionSteps + 6, learn.getAnsweredAt());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return learns.size();
+            }
+        });
+    }
+
+    @Override
+    public List<Schedule> findSchedulesAfter(long afterId, int limit) {
+        return jdbcTemplate.query(FIND_SCHEDULES_SQL, (rs, rowNum) -> new Schedule(rs.getLong(1), rs.getLong(2), rs.getInt(3),
+                rs.getObject(4, LocalDateTime.class), rs.getObject(5, LocalDate.class)), afterId, limit);
+    }
+
+    @Override
+    public int rescheduleCards(List<Schedule> schedules) {
+        int[] updated = jdbcTemplate.batchUpdate(RESCHEDULE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Schedule schedule = schedules.get(i);
+                ps.setObject(1, schedule.nextDateToRepeat());
+                ps.setLong(2, schedule.cardId());
+                ps.setInt(3, schedule.correctAnswersInRow());
+                ps.setObject(4, schedule.answeredLastTime());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return schedules.size();
+            }
+        });
+        int changed = 0;
+        for (int rows : updated) {
+            changed += Math.max(rows, 0); // drivers which rewrite batches may not report the rows per statement
+        }
+        return changed;
+    }
+
+    @Override
+    public int copyCards(long fromCategoryId, long toCategoryId) {
+        if (!isMysql()) {
+            // every row takes a value of the sequence, which hibernate never hands out with pooled-lo
+            return jdbcTemplate.update(COPY_COLUMNS_SQL + " SELECT NEXT VALUE FOR card_seq," + COPY_VALUES_SQL,
+                    toCategoryId, NEW_CARD_DATE, NEW_CARD_DATE.atStartOfDay(), fromCategoryId);
+        }
+        // the sequence is a table on MySQL: the ids of all cards are reserved with one locked update of the table
+        Integer cards = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card WHERE category_id = ?", Integer.class, fromCategoryId);
+        if (cards == null || cards == 0) {
+            return 0;
+        }
+        Long firstId = jdbcTemplate.queryForObject("SELECT next_val FROM card_seq FOR UPDATE", Long.class);
+        jdbcTemplate.update("UPDATE card_seq SET next_val = next_val + ?", (cards + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE * ID_BLOCK_SIZE);
+        return jdbcTemplate.update(COPY_COLUMNS_SQL + " SELECT ? + ROW_NUMBER() OVER (ORDER BY id) - 1," + COPY_VALUES_SQL + " LIMIT ?",
+                firstId, toCategoryId, NEW_CARD_DATE, NEW_CARD_DATE.atStartOfDay(), fromCategoryId, cards);
+    }
+
+    @Override
+    public int deleteCardsOfCategory(long categoryId) {
+        return jdbcTemplate.update("DELETE FROM card WHERE category_id = ?", categoryId);
+    }
+
+    @Override
+    public int deleteCardsOfOwner(long ownerId) {
+        return jdbcTemplate.update(DELETE_CARDS_OF_OWNER_SQL, ownerId);
+    }
+
+    @Override
+    public int deleteCardsOfOwner(long ownerId, int limit) {
+        // one category after the other, so the chunk is found and deleted in the index on (category_id, id) without a join;
+        // the last id of the chunk bounds the DELETE, so it removes exactly the chunk without a LIMIT on the statement
+        int deleted = 0;
+        for (Long categoryId : jdbcTemplate.queryForList("SELECT id FROM category WHERE owner_id = ? ORDER BY id", Long.class, ownerId)) {
+            List<Long> lastIds = jdbcTemplate.queryForList("SELECT id FROM card WHERE category_id = ? ORDER BY id LIMIT 1 OFFSET ?",
+                    Long.class, categoryId, limit - deleted - 1);
+            if (!lastIds.isEmpty()) {
+                return deleted + jdbcTemplate.update("DELETE FROM card WHERE category_id = ? AND id <= ?", categoryId, lastIds.get(0));
+            }
+            deleted += deleteCardsOfCategory(categoryId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public long countCardsOfOwner(long ownerId) {
+        Long cards = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card k JOIN category c ON c.id = k.category_id WHERE c.owner_id = ?", Long.class, ownerId);
+        return cards == null ? 0 : cards;
+    }
+
+    private boolean isMysql() {
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL"));
+        }
+        return mysql;
+    }
+
+    private static String reviewSql(int repetitionSteps, boolean onlyIfNewer) {
+        StringBuilder sql = new StringBuilder("UPDATE card SET next_date_to_repeat = CASE correct_answers_in_row");
+        for (int inRow = 0; inRow < repetitionSteps - 1; inRow++) {
+            sql.append(" WHEN ").append(inRow).append(" THEN CAST(? AS DATE)");
+        }
+        sql.append(" ELSE CAST(? AS DATE) END,")
+                .append(" correct_answers_in_row = (correct_answers_in_row + 1) * ?,")
+                .append(" counter_right = counter_right + ?,")
+                .append(" counter_false = counter_false + ?,")
+                .append(" answered_last_time = ?")
+                .append(" WHERE id = ?");
+        if (onlyIfNewer) {
+            sql.append(" AND answered_last_time < ?");
+        }
+        return sql.toString();
+    }
+
+    private static void setReviewParameters(PreparedStatement ps, long cardId, boolean correct, LocalDate[] nextDates, LocalDateTime answeredAt) throws SQLException {
+        int index = 1;
+        // one date per stored number of correct answers in a row; a wrong answer always restarts the sequence
+        for (int inRow = 0; inRow < nextDates.length; inRow++) {
+            ps.setObject(index++, correct ? nextDates[Math.min(inRow + 1, nextDates.length - 1)] : nextDates[0]);
+        }
+        ps.setInt(index++, correct ? 1 : 0);
+        ps.setInt(index++, correct ? 1 : 0);
+        ps.setInt(index++, correct ? 0 : 1);
+        ps.setObject(index++, answeredAt);
+        ps.setLong(index, cardId);
+    }
+}
@@ -2,14 +2,19 @@ package ch.zhaw.card2brain.repository;
 
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
  * Interface for {@link CategoryRepository} which extends {@link JpaRepository} and provides additional methods for
- * retrieving {@link Category} objects
+ * retrieving {@link Category} objects. The owner of a category is loaded lazily, the finders which return categories
+ * fetch it in the same query.
  *
  * @author Niklaus Hänggi
  * @author Alexander Studer
@@ -18,7 +23,7 @@ import java.util.List;
  * @since 28-01-2023
  */
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryRepositoryCustom {
 
 
     /**
@@ -27,6 +32,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @param owner the user whose categories will be retrieved
      * @return a list of Category objects belonging to the user
      */
+    @EntityGraph(attributePaths = "owner")
     List<Category> findCategoriesByOwner(User owner);
 
     /**
@@ -43,6 +49,49 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @param id the ID of the category to be retrieved
      * @return the Category object with the specified ID
      */
+    @EntityGraph(attributePaths = "owner")
     Category getCategoryById(Long id);
+
+    /**
+     * This method returns the counters of all categories of a user, ordered by id.
+     * Every row contains the category id, the category name, the number of cards, the number of cards to repeat on the
+     * specified day and the number of answers. The cards to repeat are counted in the index on the category and the
+     * next repetition date, the cards themselves are not read.
+     *
+     * @param ownerId the id of the user whose categories will be retrieved
+     * @param today   the day for which the cards to repeat are counted
+     * @return a list of rows with the counters of the categories
+     */
+    @Query("select c.id, c.categoryName, c.cardCount, (select count(k) from Card k where k.category = c and k.nextDateToRepeat <= :today), c.reviewCount"
+            + " from Category c where c.owner.id = :ownerId order by c.id")
+    List<Object[]> findCountersByOwnerId(@Param("ownerId") long ownerId, @Param("today") LocalDate today);
+
+    /**
+     * This method returns the counters of all categories of a user which are stored with the category, ordered by id.
+     * Every row contains the category id, the category name, the number of cards and the number of answers.
+     *
+     * @param ownerId the id of the user whose categories will be retrieved
+     * @return a list of rows with the counters of the categories
+     */
+    @Query("select c.id, c.categoryName, c.cardCount, c.reviewCount from Category c where c.owner.id = :ownerId order by c.id")
+    List<Object[]> findStoredCountersByOwnerId(@Param("ownerId") long ownerId);
+
+    /**
+     * This method returns the ids of all categories of a user, ordered by id, without reading the categories.
+     *
+     * @param ownerId the id of the user whose categories will be retrieved
+     * @return the ids of the categories
+     */
+    @Query("select c.id from Category c where c.owner.id = :ownerId order by c.id")
+    List<Long> findIdsByOwnerId(@Param("ownerId") long ownerId);
+
+    /**
+     * This method returns the repetition sequences of all categories which do not use the default sequence.
+     * Every row contains the category id and the comma separated repetition sequence.
+     *
+     * @return a list of rows with the repetition sequences
+     */
+    @Query("select c.id, c.repetitionSequence from Category c where c.repetitionSequence is not null")
+    List<Object[]> findRepetitionSequences();
 }
 
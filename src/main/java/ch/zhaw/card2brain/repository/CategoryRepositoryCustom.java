@@ -0,0 +1,67 @@
+package ch.zhaw.card2brain.repository;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * This interface provides the write path for the counters of a category: the number of cards and the number of answers.
+ * The counters are changed with relative UPDATE statements in the transaction which changes the cards,
+ * so concurrent changes add up instead of overwriting each other. The number of cards to repeat depends on the day,
+ * it is not stored but counted when it is read, see {@link CategoryRepository#findCountersByOwnerId(long, LocalDate)}.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @see CategoryRepositoryCustomImpl
+ * @since 16.01.2023
+ */
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Adds to the counters of a category, negative values are subtracted.
+     *
+     * @param categoryId the id of the category
+     * @param cards      the change of the number of cards
+     * @param reviews    the change of the number of answers
+     */
+    void addToCounters(long categoryId, int cards, int reviews);
+
+    /**
+     * Sets the counters of a category to zero, after all its cards were deleted.
+     *
+     * @param categoryId the id of the category
+     */
+    void resetCounters(long categoryId);
+
+    /**
+     * Counts answers in the categories of the cards, as one JDBC batch. The category of a card is found by the primary key of the card.
+     *
+     * @param answers per card id, the number of answers to the card
+     */
+    void countReviews(Map<Long, Integer> answers);
+
+    /**
+     * Counts the cards and the answers of all categories again, in chunks of categories which are committed one by one.
+     *
+     * @return the number of counted categories
+     */
+    int reconcileCounters();
+
+    /**
+     * Sets the repetition sequence of a category.
+     *
+     * @param categoryId         the id of the category
+     * @param repetitionSequence the comma separated days per number of correct answers in a row, null for the default sequence
+     * @return the number of changed categories, 0 if the category does not exist
+     */
+    int setRepetitionSequence(long categoryId, String repetitionSequence);
+
+    /**
+     * Deletes all categories of a user with one statement, their cards have to be deleted before.
+     *
+     * @param ownerId the id of the owner of the categories
+     * @return the number of deleted categories
+     */
+    int deleteCategoriesOfOwner(long ownerId);
+}
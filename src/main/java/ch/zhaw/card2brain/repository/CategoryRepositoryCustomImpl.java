@@ -0,0 +1,90 @@
+package ch.zhaw.card2brain.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link CategoryRepositoryCustom} with plain JDBC.
+ * <p>
+ * The reconciliation counts the cards with correlated subqueries, which read the index on the category of the cards.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    private static final int RECONCILE_CHUNK_SIZE = 500;
+
+    private static final String COUNT_REVIEW_SQL = "UPDATE category SET review_count = review_count + ? WHERE id = (SELECT k.category_id FROM card k WHERE k.id = ?)";
+
+    private static final String RECONCILE_SQL = "UPDATE category SET"
+            + " card_count = (SELECT COUNT(*) FROM card k WHERE k.category_id = category.id),"
+            + " review_count = (SELECT COALESCE(SUM(k.counter_right + k.counter_false), 0) FROM card k WHERE k.category_id = category.id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addToCounters(long categoryId, int cards, int reviews) {
+        jdbcTemplate.update("UPDATE category SET card_count = card_count + ?, review_count = review_count + ? WHERE id = ?", cards, reviews, categoryId);
+    }
+
+    @Override
+    public void resetCounters(long categoryId) {
+        jdbcTemplate.update("UPDATE category SET card_count = 0, review_count = 0 WHERE id = ?", categoryId);
+    }
+
+    @Override
+    public void countReviews(Map<Long, Integer> answers) {
+        if (answers.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> cards = new ArrayList<>(answers.entrySet());
+        jdbcTemplate.batchUpdate(COUNT_REVIEW_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, cards.get(i).getValue());
+                ps.setLong(2, cards.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return cards.size();
+            }
+        });
+    }
+
+    @Override
+    public int reconcileCounters() {
+        int reconciled = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM category WHERE id > ? ORDER BY id LIMIT ?", Long.class, afterId, RECONCILE_CHUNK_SIZE);
+            if (ids.isEmpty()) {
+                return reconciled;
+            }
+            afterId = ids.get(ids.size() - 1);
+            reconciled += jdbcTemplate.update(RECONCILE_SQL + " WHERE id >= ? AND id <= ?", ids.get(0), afterId);
+        }
+    }
+
+    @Override
+    public int setRepetitionSequence(long categoryId, String repetitionSequence) {
+        return jdbcTemplate.update("UPDATE category SET repetition_sequence = ? WHERE id = ?", repetitionSequence, categoryId);
+    }
+
+    @Override
+    public int deleteCategoriesOfOwner(long ownerId) {
+        return jdbcTemplate.update("DELETE FROM category WHERE owner_id = ?", ownerId);
+    }
+}
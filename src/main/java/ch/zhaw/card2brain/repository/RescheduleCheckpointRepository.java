@@ -0,0 +1,98 @@
+package ch.zhaw.card2brain.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This repository stores the checkpoint of the bulk rescheduling of the cards in the single row of the table reschedule_checkpoint.
+ * The checkpoint is written after every committed segment of cards, so an interrupted job continues after the last card of the checkpoint.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Repository
+public class RescheduleCheckpointRepository {
+
+    private static final int CHECKPOINT_ID = 1;
+
+    /**
+     * The checkpoint of a rescheduling job.
+     *
+     * @param sequence   the repetition sequence the cards are rescheduled with
+     * @param lastCardId the id of the last rescheduled card
+     * @param processed  the number of cards read so far
+     * @param updated    the number of cards changed so far
+     * @param startedAt  the start of the job
+     * @param finishedAt the end of the job, null while it is not done
+     */
+    public record Checkpoint(String sequence, long lastCardId, long processed, long updated, LocalDateTime startedAt, LocalDateTime finishedAt) {
+
+        /**
+         * Tells whether the job of the checkpoint is done.
+         *
+         * @return true if the job is finished
+         */
+        public boolean isFinished() {
+            return finishedAt != null;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the checkpoint.
+     *
+     * @return the checkpoint, empty if no job was ever recorded
+     */
+    public Optional<Checkpoint> find() {
+        List<Checkpoint> checkpoints = jdbcTemplate.query("SELECT sequence, last_card_id, processed, updated, started_at, finished_at FROM reschedule_checkpoint WHERE id = ?",
+                (rs, rowNum) -> new Checkpoint(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4),
+                        rs.getObject(5, LocalDateTime.class), rs.getObject(6, LocalDateTime.class)), CHECKPOINT_ID);
+        return checkpoints.stream().findFirst();
+    }
+
+    /**
+     * Records a job for a repetition sequence, replacing the checkpoint of an earlier job.
+     *
+     * @param sequence   the repetition sequence
+     * @param startedAt  the start of the job
+     * @param finishedAt the end of the job, null for a job which still has to reschedule the cards
+     */
+    public void start(String sequence, LocalDateTime startedAt, LocalDateTime finishedAt) {
+        int updated = jdbcTemplate.update("UPDATE reschedule_checkpoint SET sequence = ?, last_card_id = 0, processed = 0, updated = 0, started_at = ?, finished_at = ? WHERE id = ?",
+                sequence, startedAt, finishedAt, CHECKPOINT_ID);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO reschedule_checkpoint (id, sequence, last_card_id, processed, updated, started_at, finished_at) VALUES (?, ?, 0, 0, 0, ?, ?)",
+                    CHECKPOINT_ID, sequence, startedAt, finishedAt);
+        }
+    }
+
+    /**
+     * Advances the checkpoint after a segment of cards was rescheduled.
+     *
+     * @param lastCardId the id of the last card of the segment
+     * @param processed  the number of cards read so far
+     * @param updated    the number of cards changed so far
+     */
+    public void advance(long lastCardId, long processed, long updated) {
+        jdbcTemplate.update("UPDATE reschedule_checkpoint SET last_card_id = ?, processed = ?, updated = ? WHERE id = ?", lastCardId, processed, updated, CHECKPOINT_ID);
+    }
+
+    /**
+     * Marks the job as done.
+     *
+     * @param finishedAt the end of the job
+     */
+    public void finish(LocalDateTime finishedAt) {
+        jdbcTemplate.update("UPDATE reschedule_checkpoint SET finished_at = ? WHERE id = ?", finishedAt, CHECKPOINT_ID);
+    }
+}
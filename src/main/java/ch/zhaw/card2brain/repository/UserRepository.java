@@ -2,8 +2,13 @@ package ch.zhaw.card2brain.repository;
 
 import ch.zhaw.card2brain.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,12 +34,85 @@ public interface UserRepository extends JpaRepository<User, Long> {
     User getUserByMailAddress(String mailAddress);
 
     /**
-     * Retrieves a {@link User} by their id
+     * Retrieves a {@link User} by their id, users whose deletion was requested are not found
      *
      * @param Id the id of the user
      * @return the {@link User} object with the specified id
      */
-    User getUserById(long Id);
+    @Query("select u from Card2Brain_User u where u.id = :id and u.deletedAt is null")
+    User getUserById(@Param("id") long Id);
+
+    /**
+     * Retrieves all {@link User} objects whose deletion was not requested
+     *
+     * @return a list of all active {@link User} objects
+     */
+    List<User> findAllByDeletedAtIsNull();
+
+    /**
+     * Marks a {@link User} as deleted and releases their mail address, so they can no longer log in
+     *
+     * @param id        the id of the user
+     * @param deletedAt the time the deletion was requested
+     * @return the number of marked users
+     */
+    @Transactional
+    @Modifying
+    @Query("update Card2Brain_User u set u.deletedAt = :deletedAt, u.mailAddress = null where u.id = :id and u.deletedAt is null")
+    int markDeleted(@Param("id") long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Retrieves the token version of a {@link User}, users whose deletion was requested are not found
+     *
+     * @param id the id of the user
+     * @return the token version, null if the user does not exist
+     */
+    @Query("select u.tokenVersion from Card2Brain_User u where u.id = :id and u.deletedAt is null")
+    Integer findTokenVersionById(@Param("id") long id);
+
+    /**
+     * Increments the token version of a {@link User}, so the tokens issued before are no longer accepted
+     *
+     * @param id the id of the user
+     * @return the number of changed users
+     */
+    @Transactional
+    @Modifying
+    @Query("update Card2Brain_User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int incrementTokenVersion(@Param("id") long id);
+
+    /**
+     * Replaces the password hash of a {@link User}, but only if it is still the hash that was read before,
+     * so a password changed in the meantime is not overwritten
+     *
+     * @param id      the id of the user
+     * @param oldHash the hash that was read before
+     * @param newHash the new hash
+     * @return the number of changed users
+     */
+    @Transactional
+    @Modifying
+    @Query("update Card2Brain_User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int updatePassword(@Param("id") long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    /**
+     * Retrieves the ids of the users marked as deleted, in the order of their deletion
+     *
+     * @return the ids of the users to purge
+     */
+    @Query("select u.id from Card2Brain_User u where u.deletedAt is not null order by u.deletedAt, u.id")
+    List<Long> findDeletedUserIds();
+
+    /**
+     * Deletes a {@link User} with one statement, their categories have to be deleted before
+     *
+     * @param id the id of the user
+     * @return the number of deleted users
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Card2Brain_User u where u.id = :id")
+    int deleteUserById(@Param("id") long id);
 
     /**
      * Retrieves all {@link User} objects
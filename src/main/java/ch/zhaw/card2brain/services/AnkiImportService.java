@@ -0,0 +1,39 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.dto.ImportJobDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * AnkiImportService defines the import of Anki packages (.apkg) as a background job.
+ * Every deck of a package becomes a category of the user and every note a card, with the scheduling state of the note.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public interface AnkiImportService {
+
+    /**
+     * Stores an uploaded package in a temporary file and starts its import in the background.
+     *
+     * @param userId the id of the user who gets the decks
+     * @param apkg   the package
+     * @return the job of the import
+     * @throws IOException if the package can not be stored
+     * @throws ch.zhaw.card2brain.exception.UserNotFoundException if the user does not exist
+     */
+    ImportJobDto startImport(long userId, InputStream apkg) throws IOException;
+
+    /**
+     * Gets the progress of an import.
+     *
+     * @param jobId the id of the job
+     * @return the job of the import
+     * @throws ch.zhaw.card2brain.exception.ImportJobNotFoundException if the job does not exist
+     */
+    ImportJobDto getJob(String jobId);
+}
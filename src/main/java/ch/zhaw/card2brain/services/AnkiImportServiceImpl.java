@@ -0,0 +1,295 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.dto.ImportJobDto;
+import ch.zhaw.card2brain.exception.ImportJobNotFoundException;
+import ch.zhaw.card2brain.exception.ImportTooLargeException;
+import ch.zhaw.card2brain.exception.ServerBusyException;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.User;
+import ch.zhaw.card2brain.util.HasLogger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * AnkiImportServiceImpl is the implementation of the {@link AnkiImportService} interface.
+ * <p>
+ * The uploaded package is stored in a temporary file, so the upload request returns as soon as the file is received.
+ * Packages larger than card2brain.anki-import.max-package-size are rejected with 413, and the collection extracted from
+ * a package may not be larger than card2brain.anki-import.max-collection-size.
+ * The imports run one after the other on a single background thread; at most card2brain.anki-import.max-queued imports
+ * wait for it, further uploads are rejected with 503 and a Retry-After of card2brain.anki-import.retry-after. The notes are read one by one with the {@link AnkiPackageReader}
+ * and written in chunks of card2brain.anki-import.chunk-size cards, every chunk in its own transaction as JDBC batches,
+ * so the progress of a job grows chunk by chunk and only one chunk is held in memory.
+ * <p>
+ * The categories of all decks with notes are validated and created before the first card is written; their ids are
+ * reported with the job, so the categories of a failed import can be found and deleted.
+ * The fields of the notes are reduced to plain text; notes whose front or back side is empty (e.g. only an image)
+ * or longer than a card can hold are skipped. The review history of a note is carried over: the lapses become
+ * wrong answers, the other answers right answers, the due day the next repetition date, and the interval is mapped
+ * to the longest step of the repetition sequence which is not longer than the interval.
+ * <p>
+ * The jobs are kept in memory, the oldest finished jobs are forgotten when more than card2brain.anki-import.max-jobs jobs are known.
+ * Queued and running jobs are never forgotten, their number is bounded by the queue.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Component
+public class AnkiImportServiceImpl implements AnkiImportService, HasLogger {
+
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private static final Pattern LINE_BREAK = Pattern.compile("(?i)<br\\s*/?>|</div>|</p>|</li>");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>|\\[sound:[^]]*]");
+    private static final Pattern WHITESPACE = Pattern.compile("[ \\t\\u00a0]+");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RepetitionService repetitionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${card2brain.anki-import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${card2brain.anki-import.max-jobs:100}")
+    private int maxJobs;
+
+    @Value("${card2brain.anki-import.max-queued:4}")
+    private int maxQueued;
+
+    @Value("${card2brain.anki-import.retry-after:60s}")
+    private Duration retryAfter;
+
+    @Value("${card2brain.anki-import.max-package-size:200MB}")
+    private DataSize maxPackageSize;
+
+    @Value("${card2brain.anki-import.max-collection-size:1GB}")
+    private DataSize maxCollectionSize;
+
+    private ThreadPoolExecutor jobExecutor;
+
+    private Map<String, Job> jobs;
+
+    /**
+     * The state of one import, written by the background thread and read by the progress requests.
+     */
+    private static final class Job {
+        private final String jobId = UUID.randomUUID().toString();
+        private final long userId;
+        private volatile String status = "QUEUED";
+        private final List<Long> categoryIds = new CopyOnWriteArrayList<>();
+        private volatile long total;
+        private volatile long imported;
+        private volatile long skipped;
+        private volatile String error;
+
+        private Job(long userId) {
+            this.userId = userId;
+        }
+
+        private boolean isFinished() {
+            return "DONE".equals(status) || "FAILED".equals(status);
+        }
+
+        private ImportJobDto toDto() {
+            return new ImportJobDto(jobId, userId, status, categoryIds.size(), List.copyOf(categoryIds), total, imported, skipped, error);
+        }
+    }
+
+    /**
+     * Starts the thread of the imports.
+     */
+    @PostConstruct
+    public void startExecutor() {
+        jobs = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+                // the oldest finished job is removed, which is not always the eldest entry
+                if (size() > maxJobs) {
+                    values().stream().filter(Job::isFinished).findFirst().ifPresent(job -> remove(job.jobId));
+                }
+                return false;
+            }
+        };
+        jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(maxQueued), runnable -> {
+            Thread thread = new Thread(runnable, "anki-import");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stops the thread of the imports, a running import keeps the chunks which were written.
+     */
+    @PreDestroy
+    public void stopExecutor() {
+        jobExecutor.shutdownNow();
+    }
+
+    @Override
+    public ImportJobDto startImport(long userId, InputStream apkg) throws IOException {
+        User owner = userService.getUserById(userId);
+        Path file = Files.createTempFile("anki-", ".apkg");
+        Job job = new Job(userId);
+        try {
+            if (!AnkiPackageReader.copyAtMost(apkg, file, maxPackageSize.toBytes())) {
+                throw new ImportTooLargeException("The Anki package is larger than " + maxPackageSize.toMegabytes() + " MB.");
+            }
+            jobExecutor.execute(() -> runImport(job, owner, file));
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(file);
+            throw new ServerBusyException("Too many Anki imports at the moment, please try again in " + retryAfter.toSeconds() + " seconds.", retryAfter.toSeconds());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        synchronized (jobs) {
+            jobs.put(job.jobId, job);
+        }
+        getLogger().info("User starts an Anki import: User :" + owner.getMailAddress() + " Job :" + job.jobId);
+        return job.toDto();
+    }
+
+    @Override
+    public ImportJobDto getJob(String jobId) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            throw new ImportJobNotFoundException("Import job " + jobId + " not found.");
+        }
+        return job.toDto();
+    }
+
+    private void runImport(Job job, User owner, Path file) {
+        job.status = "RUNNING";
+        try (AnkiPackageReader reader = new AnkiPackageReader(file, objectMapper, maxCollectionSize.toBytes())) {
+            LocalDate creationDate = reader.readCreationDate();
+            Map<Long, String> deckNames = reader.readDecks();
+            job.total = reader.countNotes();
+            Map<Long, Category> categories = createCategories(job, owner, reader.readNoteDeckIds(), deckNames);
+            List<Card> chunk = new ArrayList<>();
+            reader.readNotes(note -> {
+                Category category = categories.get(note.deckId());
+                if (chunk.size() == chunkSize || !chunk.isEmpty() && chunk.get(0).getCategory() != category) {
+                    writeChunk(job, chunk);
+                }
+                Card card = toCard(note, category, creationDate);
+                if (card == null) {
+                    job.skipped++;
+                } else {
+                    chunk.add(card);
+                }
+            });
+            writeChunk(job, chunk);
+            job.status = "DONE";
+            getLogger().info("Anki import " + job.jobId + " is done, " + job.imported + " cards imported, " + job.skipped + " notes skipped");
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.status = "FAILED";
+            getLogger().error("Anki import " + job.jobId + " failed after " + job.imported + " cards, categories " + job.categoryIds + " were created", e);
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                getLogger().warn("Uploaded package " + file + " can not be deleted");
+            }
+        }
+    }
+
+    /**
+     * Creates the categories of all decks with notes before any card is written, so an invalid deck name fails the import
+     * before anything is stored. The ids of the created categories are recorded on the job.
+     */
+    private Map<Long, Category> createCategories(Job job, User owner, List<Long> deckIds, Map<Long, String> deckNames) {
+        Map<Long, Category> categories = new LinkedHashMap<>();
+        for (Long deckId : deckIds) {
+            String deckName = deckNames.getOrDefault(deckId, "Anki " + deckId);
+            Category category = new Category(deckName.length() > MAX_FIELD_LENGTH ? deckName.substring(0, MAX_FIELD_LENGTH) : deckName, owner);
+            categoryService.isCategoryValid(category);
+            categories.put(deckId, category);
+        }
+        for (Category category : categories.values()) {
+            categoryService.createCategory(category);
+            job.categoryIds.add(category.getId());
+        }
+        return categories;
+    }
+
+    private void writeChunk(Job job, List<Card> chunk) {
+        cardService.addCards(chunk);
+        job.imported += chunk.size();
+        chunk.clear();
+    }
+
+    private Card toCard(AnkiPackageReader.Note note, Category category, LocalDate creationDate) {
+        String question = plainText(note.fields()[0]);
+        String answer = note.fields().length > 1 ? plainText(note.fields()[1]) : "";
+        if (question.isEmpty() || answer.isEmpty() || question.length() > MAX_FIELD_LENGTH || answer.length() > MAX_FIELD_LENGTH) {
+            return null;
+        }
+        Card card = new Card(question, answer, category);
+        card.setCounterFalse(note.lapses());
+        card.setCounterRight(Math.max(note.reps() - note.lapses(), 0));
+        LocalDate dueDate = note.dueDate(creationDate);
+        if (dueDate != null) {
+            int interval = Math.max(note.interval(), 0);
+            card.setNextDateToRepeat(dueDate);
+            card.setAnsweredLastTime(dueDate.minusDays(interval).atStartOfDay());
+            card.setCorrectAnswersInRow(stepOf(repetitionService.getRepetitionDays(category.getId()), interval));
+        }
+        return card;
+    }
+
+    private static int stepOf(int[] repetitionDays, int interval) {
+        int step = 0;
+        for (int i = 1; i < repetitionDays.length && repetitionDays[i] <= interval; i++) {
+            step = i;
+        }
+        return step;
+    }
+
+    private static String plainText(String field) {
+        String text = TAG.matcher(LINE_BREAK.matcher(field).replaceAll("\n")).replaceAll("");
+        text = text.replace("&nbsp;", " ").replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'").replace("&amp;", "&");
+        return WHITESPACE.matcher(text).replaceAll(" ").replaceAll(" ?\n ?", "\n").replaceAll("\n{2,}", "\n").trim();
+    }
+}
@@ -0,0 +1,259 @@
+package ch.zhaw.card2brain.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * AnkiPackageReader reads the decks and notes of an Anki package (.apkg), a zip file with an SQLite collection and media files.
+ * <p>
+ * The collection is extracted to a temporary file and read with JDBC; the notes are handed over one by one while they are read,
+ * so a deck of any size is read with constant memory. The extracted collection is limited to a maximum size, so a small
+ * package which expands to a huge file can not fill the disk. Every note is read with its first card, which carries its deck
+ * and its scheduling state. Media files are not read. Collections of Anki 2.1.50 and later which are only packaged
+ * compressed with zstd (collection.anki21b) can not be read; such decks have to be exported with "Support older Anki versions".
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public class AnkiPackageReader implements Closeable {
+
+    private static final String[] COLLECTION_ENTRIES = {"collection.anki21", "collection.anki2"};
+
+    // the first card of every note, ordered by deck
+    private static final String NOTES_SQL = "SELECT c.did, n.flds, c.type, c.due, c.ivl, c.reps, c.lapses"
+            + " FROM cards c JOIN notes n ON n.id = c.nid WHERE c.ord = 0 ORDER BY c.did, c.id";
+
+    /**
+     * One note of a collection with the scheduling state of its first card.
+     *
+     * @param deckId   the id of the deck of the card
+     * @param fields   the fields of the note, the first one is the front side
+     * @param type     the type of the card: 0 new, 1 learning, 2 review, 3 relearning
+     * @param due      the due day since the creation of the collection for review cards, the due time in epoch seconds for learning cards
+     * @param interval the interval of a review card in days
+     * @param reps     the number of answers
+     * @param lapses   the number of times the card was forgotten
+     */
+    public record Note(long deckId, String[] fields, int type, long due, int interval, int reps, int lapses) {
+
+        /**
+         * Computes the day when the card is due.
+         *
+         * @param creationDate the day the collection was created
+         * @return the due day, null for a new card
+         */
+        public LocalDate dueDate(LocalDate creationDate) {
+            return switch (type) {
+                case 2 -> creationDate.plusDays(due);
+                case 1, 3 -> LocalDate.ofInstant(Instant.ofEpochSecond(due), ZoneId.systemDefault());
+                default -> null;
+            };
+        }
+    }
+
+    private final Path collection;
+    private final Connection connection;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Extracts the collection of a package and opens it.
+     *
+     * @param apkg               the package
+     * @param objectMapper       the mapper for the JSON columns of old collections
+     * @param maxCollectionBytes the maximum size of the extracted collection
+     * @throws IOException if the package is not a readable Anki package or its collection is larger than the maximum size
+     */
+    public AnkiPackageReader(Path apkg, ObjectMapper objectMapper, long maxCollectionBytes) throws IOException {
+        this.objectMapper = objectMapper;
+        collection = Files.createTempFile("anki-collection-", ".sqlite");
+        try (ZipFile zip = new ZipFile(apkg.toFile())) {
+            ZipEntry entry = null;
+            for (String name : COLLECTION_ENTRIES) {
+                if (entry == null) {
+                    entry = zip.getEntry(name);
+                }
+            }
+            if (entry == null) {
+                throw new IOException(zip.getEntry("collection.anki21b") != null
+                        ? "The package only contains a zstd compressed collection, export it with \"Support older Anki versions\""
+                        : "The package contains no Anki collection");
+            }
+            // the size in the zip is only a hint, the copy stops at the maximum size anyway
+            if (entry.getSize() > maxCollectionBytes) {
+                throw collectionTooLarge(maxCollectionBytes);
+            }
+            try (InputStream inputStream = zip.getInputStream(entry)) {
+                if (!copyAtMost(inputStream, collection, maxCollectionBytes)) {
+                    throw collectionTooLarge(maxCollectionBytes);
+                }
+            }
+            connection = DriverManager.getConnection("jdbc:sqlite:" + collection);
+        } catch (IOException | SQLException e) {
+            Files.deleteIfExists(collection);
+            throw e instanceof IOException io ? io : new IOException("The collection can not be opened", e);
+        }
+    }
+
+    /**
+     * Copies a stream to a file, but not more than a maximum number of bytes.
+     *
+     * @param inputStream the stream to copy
+     * @param target      the file, it is replaced
+     * @param maxBytes    the maximum number of bytes to copy
+     * @return false if the stream is longer than the maximum, the file then holds the first maxBytes bytes
+     * @throws IOException if the stream can not be read or the file can not be written
+     */
+    static boolean copyAtMost(InputStream inputStream, Path target, long maxBytes) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[8192];
+            long copied = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (copied + read > maxBytes) {
+                    return false;
+                }
+                outputStream.write(buffer, 0, read);
+                copied += read;
+            }
+            return true;
+        }
+    }
+
+    private static IOException collectionTooLarge(long maxCollectionBytes) {
+        return new IOException("The collection of the package is larger than " + maxCollectionBytes + " bytes");
+    }
+
+    /**
+     * Reads the day the collection was created, which is the origin of the due days of review cards.
+     *
+     * @return the creation day
+     * @throws SQLException if the collection can not be read
+     */
+    public LocalDate readCreationDate() throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT crt FROM col")) {
+            resultSet.next();
+            return LocalDate.ofInstant(Instant.ofEpochSecond(resultSet.getLong(1)), ZoneId.systemDefault());
+        }
+    }
+
+    /**
+     * Reads the names of the decks. Sub decks are named with their parent decks, separated by "::".
+     *
+     * @return the names per deck id
+     * @throws SQLException if the collection can not be read
+     * @throws IOException  if the decks of an old collection can not be parsed
+     */
+    public Map<Long, String> readDecks() throws SQLException, IOException {
+        Map<Long, String> decks = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            boolean deckTable;
+            try (ResultSet tables = statement.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'decks'")) {
+                deckTable = tables.next() && tables.getInt(1) > 0;
+            }
+            if (deckTable) {
+                try (ResultSet resultSet = statement.executeQuery("SELECT id, name FROM decks")) {
+                    while (resultSet.next()) {
+                        decks.put(resultSet.getLong(1), resultSet.getString(2).replace("\u001f", "::"));
+                    }
+                }
+            } else {
+                try (ResultSet resultSet = statement.executeQuery("SELECT decks FROM col")) {
+                    resultSet.next();
+                    Iterator<Map.Entry<String, JsonNode>> entries = objectMapper.readTree(resultSet.getString(1)).fields();
+                    while (entries.hasNext()) {
+                        Map.Entry<String, JsonNode> deck = entries.next();
+                        decks.put(Long.parseLong(deck.getKey()), deck.getValue().path("name").asText(deck.getKey()));
+                    }
+                }
+            }
+        }
+        return decks;
+    }
+
+    /**
+     * Reads the ids of the decks which contain notes handed over by {@link #readNotes(Consumer)}.
+     *
+     * @return the deck ids in the order of the notes
+     * @throws SQLException if the collection can not be read
+     */
+    public List<Long> readNoteDeckIds() throws SQLException {
+        List<Long> deckIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT DISTINCT did FROM cards WHERE ord = 0 ORDER BY did")) {
+            while (resultSet.next()) {
+                deckIds.add(resultSet.getLong(1));
+            }
+        }
+        return deckIds;
+    }
+
+    /**
+     * Counts the notes which are handed over by {@link #readNotes(Consumer)}.
+     *
+     * @return the number of notes
+     * @throws SQLException if the collection can not be read
+     */
+    public long countNotes() throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM cards WHERE ord = 0")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Hands the notes one by one to a consumer, ordered by deck.
+     *
+     * @param consumer the consumer of the notes
+     * @throws SQLException if the collection can not be read
+     */
+    public void readNotes(Consumer<Note> consumer) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(NOTES_SQL); ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                consumer.accept(new Note(resultSet.getLong(1), resultSet.getString(2).split("\u001f", -1), resultSet.getInt(3),
+                        resultSet.getLong(4), resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7)));
+            }
+        }
+    }
+
+    /**
+     * Closes the collection and deletes the extracted file.
+     *
+     * @throws IOException if the file can not be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        } finally {
+            Files.deleteIfExists(collection);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.dto.CardExportDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CardExportWriter writes exported cards one by one as gzip compressed CSV or NDJSON, the counterpart of {@link CardImportReader}.
+ * <p>
+ * Only the buffer of the compression is held in memory, the cards are compressed and written while they are handed over.
+ * A CSV export starts with a header row; fields which contain a comma, a quote or a line break are quoted.
+ * An NDJSON export has one JSON object per line, which can be imported again.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public class CardExportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "id,categoryId,question,answer,counterRight,counterFalse,correctAnswersInRow,nextDateToRepeat,answeredLastTime";
+
+    private final GZIPOutputStream gzip;
+    private final CardFileFormat format;
+    private final Writer writer;
+    private final JsonGenerator generator;
+
+    /**
+     * Creates a writer of an export and writes the header of a CSV export.
+     *
+     * @param outputStream the stream of the compressed export, closed by {@link #close()}
+     * @param format       the format of the export
+     * @param objectMapper the mapper for the NDJSON lines
+     * @throws IOException if the export can not be written
+     */
+    public CardExportWriter(OutputStream outputStream, CardFileFormat format, ObjectMapper objectMapper) throws IOException {
+        this.gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        this.format = format;
+        if (format == CardFileFormat.CSV) {
+            writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+            generator = null;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        } else {
+            writer = null;
+            generator = objectMapper.getFactory().createGenerator(gzip);
+            generator.setRootValueSeparator(null);
+        }
+    }
+
+    /**
+     * Writes one card.
+     *
+     * @param card the card
+     * @throws UncheckedIOException if the export can not be written
+     */
+    public void write(CardExportDto card) {
+        try {
+            if (format == CardFileFormat.CSV) {
+                writer.write(card.getId() + "," + card.getCategoryId() + "," + csvField(card.getQuestion()) + "," + csvField(card.getAnswer())
+                        + "," + card.getCounterRight() + "," + card.getCounterFalse() + "," + card.getCorrectAnswersInRow()
+                        + "," + (card.getNextDateToRepeat() == null ? "" : card.getNextDateToRepeat())
+                        + "," + (card.getAnsweredLastTime() == null ? "" : card.getAnsweredLastTime()));
+                writer.write('\n');
+            } else {
+                generator.writeObject(card);
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the rest of the export and the end of the compression and closes the stream.
+     *
+     * @throws IOException if the export can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (format == CardFileFormat.CSV) {
+            writer.close();
+        } else {
+            generator.close();
+            gzip.close();
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
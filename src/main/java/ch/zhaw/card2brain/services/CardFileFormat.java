@@ -0,0 +1,15 @@
+package ch.zhaw.card2brain.services;
+
+/**
+ * The file formats of the card import and export.
+ * CSV has one card per row, NDJSON one JSON object per line.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public enum CardFileFormat {
+    CSV, NDJSON
+}
@@ -0,0 +1,237 @@
+package ch.zhaw.card2brain.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CardImportReader reads the rows of a card import one by one from a CSV or NDJSON upload, so an import
+ * never holds more than one row in memory.
+ * <p>
+ * A CSV row has the columns question and answer, separated by a comma; a field can be quoted with double quotes,
+ * a quoted field may contain commas, line breaks and doubled quotes. A first row "question,answer" is skipped as header.
+ * An NDJSON row is a JSON object with the fields question and answer on one line. Blank lines are skipped in both formats.
+ * A row which can not be read is returned with an error, so the import can reject it and continue. A CSV field longer than
+ * a card can hold and an NDJSON line longer than 4096 characters are not read to their end: the row is rejected and
+ * the reading continues after the row, so a single huge row can not exhaust the memory. A leading UTF-8 byte order mark
+ * is skipped.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public class CardImportReader implements Closeable {
+
+    // a card holds at most 255 characters per side, longer fields are not read to their end
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    // an NDJSON row with two fields of the maximum length, even if many characters are escaped
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    /**
+     * One row of an import.
+     *
+     * @param number   the number of the row, starting with 1
+     * @param question the question of the card, empty if it is missing
+     * @param answer   the answer of the card, empty if it is missing
+     * @param error    the reason why the row can not be read, null if it was read
+     */
+    public record Row(int number, String question, String answer, String error) {
+    }
+
+    /**
+     * The fields of one CSV row, or the reason why the row was not read to its end.
+     */
+    private record CsvFields(List<String> fields, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final CardFileFormat format;
+    private final ObjectMapper objectMapper;
+    private int number;
+    private boolean started;
+
+    /**
+     * Creates a reader of an import.
+     *
+     * @param reader       the characters of the upload
+     * @param format       the format of the upload
+     * @param objectMapper the mapper for the NDJSON rows
+     */
+    public CardImportReader(Reader reader, CardFileFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(reader);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return the next row, or null at the end of the upload
+     * @throws UncheckedIOException if the upload can not be read
+     */
+    public Row next() {
+        try {
+            if (!started) {
+                started = true;
+                skipByteOrderMark();
+            }
+            return format == CardFileFormat.CSV ? nextCsvRow() : nextJsonRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // some editors write a UTF-8 byte order mark, which would become part of the first question
+    private void skipByteOrderMark() throws IOException {
+        reader.mark(1);
+        if (reader.read() != BYTE_ORDER_MARK) {
+            reader.reset();
+        }
+    }
+
+    private Row nextJsonRow() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int length = readLine(line);
+        while (length != -1 && length <= MAX_LINE_LENGTH && line.toString().isBlank()) {
+            length = readLine(line);
+        }
+        if (length == -1) {
+            return null;
+        }
+        number++;
+        if (length > MAX_LINE_LENGTH) {
+            return new Row(number, "", "", "Row is longer than " + MAX_LINE_LENGTH + " characters");
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line.toString());
+            if (!node.isObject()) {
+                return new Row(number, "", "", "Row is not a JSON object");
+            }
+            return new Row(number, node.path("question").asText(""), node.path("answer").asText(""), null);
+        } catch (JsonProcessingException e) {
+            return new Row(number, "", "", "Row is not valid JSON");
+        }
+    }
+
+    /**
+     * Reads the next line into the buffer, but not more than MAX_LINE_LENGTH characters: the rest of a longer line is skipped.
+     *
+     * @return the length of the whole line, -1 at the end of the upload
+     */
+    private int readLine(StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = reader.read();
+        if (c == -1) {
+            return -1;
+        }
+        int length = 0;
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                if (length < MAX_LINE_LENGTH) {
+                    line.append((char) c);
+                }
+                length++;
+            }
+            c = reader.read();
+        }
+        return length;
+    }
+
+    private Row nextCsvRow() throws IOException {
+        CsvFields row = readCsvFields();
+        while (row != null && row.error() == null && row.fields().size() == 1 && row.fields().get(0).isBlank()) {
+            row = readCsvFields();
+        }
+        if (row == null) {
+            return null;
+        }
+        List<String> fields = row.fields();
+        if (number == 0 && row.error() == null && fields.size() == 2 && fields.get(0).trim().equalsIgnoreCase("question") && fields.get(1).trim().equalsIgnoreCase("answer")) {
+            return nextCsvRow(); // header
+        }
+        number++;
+        if (row.error() != null) {
+            return new Row(number, "", "", row.error());
+        }
+        return new Row(number, fields.get(0), fields.size() > 1 ? fields.get(1) : "", null);
+    }
+
+    /**
+     * Reads the fields of one CSV row, which can span several lines if a quoted field contains line breaks.
+     * A row with a field longer than MAX_FIELD_LENGTH or more than two columns is not read to its end:
+     * it is returned with an error and the reading continues at the line after the row.
+     */
+    private CsvFields readCsvFields() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (fields.size() == 1) {
+                    return skipLine("Row has more than two columns", false);
+                }
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            if (field.length() > MAX_FIELD_LENGTH) {
+                return skipLine("Field is longer than " + MAX_FIELD_LENGTH + " characters", quoted);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return new CsvFields(fields, null);
+    }
+
+    // skips the rest of the current row, so the next row is read from the next line; inside a quoted field the line breaks
+    // belong to the field, a doubled quote closes and opens the field again
+    private CsvFields skipLine(String error, boolean quoted) throws IOException {
+        int c = reader.read();
+        while (c != -1 && (quoted || c != '\n')) {
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            c = reader.read();
+        }
+        return new CsvFields(List.of(), error);
+    }
+}
@@ -1,10 +1,18 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardExportDto;
+import ch.zhaw.card2brain.dto.CardImportResultDto;
 import ch.zhaw.card2brain.exception.CardNotFoundException;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.Learn;
+import ch.zhaw.card2brain.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
 
@@ -49,6 +57,15 @@ public interface CardService {
      */
     void deleteCardsOfACategory(Category category);
 
+    /**
+     * Deletes Card objects of all categories of a user from the database, the cards with the lowest ids first.
+     *
+     * @param user  The user whose cards are to be deleted
+     * @param limit The maximum number of cards to delete, {@link Integer#MAX_VALUE} for all cards
+     * @return the number of deleted cards, less than the limit if no cards of the user are left
+     */
+    int deleteCardsOfAUser(User user, int limit);
+
     /**
      * Retrieves all Card objects of a specific Category from the database.
      *
@@ -57,6 +74,15 @@ public interface CardService {
      */
     List<Card> getAllCardsOfACategory(Category category);
 
+    /**
+     * Retrieves the CardDtos of all cards of a specific Category with one query, without loading the cards.
+     *
+     * @param categoryId The ID of the category whose cards are to be retrieved
+     * @return A List of CardDto objects belonging to the specified category, ordered by ID
+     * @throws ch.zhaw.card2brain.exception.CategoryNotFoundException if the category does not exist
+     */
+    List<CardDto> getCardDtosOfACategory(long categoryId);
+
     /**
      * Retrieves all Card objects of a specific Category from the database by category ID.
      *
@@ -65,6 +91,73 @@ public interface CardService {
      */
     List<Card> getAllCardsOfACategoryById(long categoryId);
 
+    /**
+     * Retrieves the next Card objects of a Category after a card ID, ordered by ID.
+     *
+     * @param category The category whose cards are to be retrieved
+     * @param afterId  The ID of the last card of the previous page, 0 for the first page
+     * @param limit    The maximal number of cards to be retrieved
+     * @return A List of Card objects with an ID greater than afterId
+     */
+    List<Card> getCardsOfACategoryAfter(Category category, long afterId, int limit);
+
+    /**
+     * Imports the rows of an upload as new cards of a category. The rows are validated like a single added card
+     * and inserted as JDBC batches; the persistence context is cleared after every batch, so the memory use does not grow with the upload.
+     *
+     * @param categoryId The id of the category of the new cards
+     * @param rows       The rows of the upload
+     * @return The number of imported and rejected rows with the reasons of the first rejected rows
+     * @throws ch.zhaw.card2brain.exception.CategoryNotFoundException if the category does not exist
+     */
+    CardImportResultDto importCards(long categoryId, CardImportReader rows);
+
+    /**
+     * Adds new cards of one category in one transaction, e.g. a chunk of an imported deck. The cards are inserted as JDBC batches
+     * and the counters of the category are changed once; the cards are not validated.
+     *
+     * @param cards The new cards, all of the same category
+     */
+    void addCards(List<Card> cards);
+
+    /**
+     * Copies all cards of a category into another category with one statement. The copies keep question and answer
+     * and start as new cards; the counters of the target category are changed once.
+     *
+     * @param from The category of the cards
+     * @param to   The category of the copies
+     * @return The number of copied cards
+     */
+    int copyCards(Category from, Category to);
+
+    /**
+     * Hands the cards of a category with their scheduling state, ordered by ID, one by one to a consumer.
+     * The cards are read in chunks with keyset queries, every chunk in its own short read, so no transaction is held
+     * open while the consumer writes and only one chunk is in memory.
+     *
+     * @param categoryId The id of the category whose cards are to be exported
+     * @param consumer   The consumer of the cards
+     */
+    void exportCardsOfACategory(long categoryId, Consumer<CardExportDto> consumer);
+
+    /**
+     * Hands the cards of all categories of a user with their scheduling state, ordered by category and ID, one by one to a consumer,
+     * every category read in chunks like {@link #exportCardsOfACategory(long, Consumer)}.
+     *
+     * @param userId   The id of the user whose cards are to be exported
+     * @param consumer The consumer of the cards
+     */
+    void exportCardsOfAUser(long userId, Consumer<CardExportDto> consumer);
+
+    /**
+     * Hands all Card objects of a specific Category, ordered by ID, one by one to a consumer while they are read from the database.
+     * A card is detached after the consumer returns, so the memory use does not grow with the size of the category.
+     *
+     * @param category The category whose cards are to be streamed
+     * @param consumer The consumer of the cards
+     */
+    void streamCardsOfACategory(Category category, Consumer<Card> consumer);
+
     /**
      * Retrieves a single Card object from the database by its ID.
      *
@@ -74,6 +167,22 @@ public interface CardService {
      */
     Card getCard(Long cardId) throws CardNotFoundException;
 
+    /**
+     * Retrieves all existing Card objects with the given IDs in one query. Missing IDs are ignored.
+     *
+     * @param cardIds The IDs of the cards to be retrieved
+     * @return The Card objects found for the given IDs
+     */
+    List<Card> getCards(Collection<Long> cardIds);
+
+    /**
+     * Retrieves the IDs of the existing cards of a list of IDs in one query, without loading the cards.
+     *
+     * @param cardIds The IDs of the cards to be checked
+     * @return The IDs of the cards which exist
+     */
+    Set<Long> getExistingCardIds(Collection<Long> cardIds);
+
     /**
      * Retrieves a List of Card objects for repetition based on a category ID.
      *
@@ -90,6 +199,32 @@ public interface CardService {
      */
     void repeated(Card card, boolean rightAnswer);
 
+    /**
+     * Marks a Card as repeated with one UPDATE statement, without loading the Card first.
+     *
+     * @param cardId      The ID of the Card to be marked as repeated
+     * @param rightAnswer A boolean value indicating whether the user answered correctly
+     * @throws CardNotFoundException if the card with the specified ID cannot be found
+     */
+    void repeated(long cardId, boolean rightAnswer) throws CardNotFoundException;
+
+    /**
+     * Marks the Cards of a list of answers as repeated, with one JDBC batch of UPDATE statements.
+     *
+     * @param learns The answers, in the order they were given
+     * @return per answer, whether the Card existed and was updated
+     */
+    boolean[] repeated(List<Learn> learns);
+
+    /**
+     * Marks the Cards of a list of answers with their own answer time as repeated, with one JDBC batch of UPDATE statements.
+     * Answers which are not newer than the last answer stored on the Card are skipped.
+     *
+     * @param learns The answers with their answer time, in the order they were given
+     * @return per answer, whether the Card was updated
+     */
+    boolean[] repeatedIfNewer(List<Learn> learns);
+
     /**
      * Retrieves a List of Card objects for repetition based on a Category object.
      *
@@ -98,5 +233,35 @@ public interface CardService {
      */
     List<Card> getCardsForRepetition(Category category);
 
+    /**
+     * Retrieves the CardDtos of the cards of a specific Category which are due for repetition with one query, without loading the cards.
+     *
+     * @param categoryId The ID of the category whose cards are to be retrieved for repetition
+     * @return A List of CardDto objects for repetition, ordered by ID
+     * @throws ch.zhaw.card2brain.exception.CategoryNotFoundException if the category does not exist
+     */
+    List<CardDto> getCardDtosForRepetition(long categoryId);
+
+    /**
+     * Retrieves the CardDtos of the next cards of a specific Category which are due for repetition after a card ID, with a keyset query.
+     *
+     * @param categoryId The ID of the category whose cards are to be retrieved for repetition
+     * @param afterId    The ID of the last card of the previous window, 0 for the first window
+     * @param limit      The maximal number of cards to be retrieved
+     * @return A List of CardDto objects for repetition with an ID greater than afterId, ordered by ID
+     * @throws ch.zhaw.card2brain.exception.CategoryNotFoundException if the first window is empty and the category does not exist
+     */
+    List<CardDto> getCardDtosForRepetitionAfter(long categoryId, long afterId, int limit);
+
+    /**
+     * Retrieves the next Card objects for repetition of a Category after a card ID, ordered by ID.
+     *
+     * @param category The Category whose cards are to be retrieved for repetition
+     * @param afterId  The ID of the last card of the previous page, 0 for the first page
+     * @param limit    The maximal number of cards to be retrieved
+     * @return A List of Card objects for repetition with an ID greater than afterId
+     */
+    List<Card> getCardsForRepetitionAfter(Category category, long afterId, int limit);
+
     boolean isCardValid(Card card);
 }
\ No newline at end of file
@@ -1,19 +1,46 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardExportDto;
+import ch.zhaw.card2brain.dto.CardImportResultDto;
 import ch.zhaw.card2brain.exception.CardAlreadyExistsException;
 import ch.zhaw.card2brain.exception.CardNotFoundException;
 import ch.zhaw.card2brain.exception.CardNotValidException;
+import ch.zhaw.card2brain.exception.CategoryNotFoundException;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.Learn;
+import ch.zhaw.card2brain.model.User;
 import ch.zhaw.card2brain.repository.CardRepository;
+import ch.zhaw.card2brain.repository.CategoryRepository;
 import ch.zhaw.card2brain.util.HasLogger;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 
 /**
@@ -33,6 +60,20 @@ public class CardServiceImpl implements CardService, HasLogger {
     private RepetitionService repetitionService;
     @Autowired
     private CardRepository cardRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private DueCardIndex dueCardIndex;
+    @Autowired
+    private DueDateSmoother dueDateSmoother;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Value("${card2brain.import.batch-size:1000}")
+    private int importBatchSize;
+    @Value("${card2brain.import.max-errors:100}")
+    private int importMaxErrors;
+    @Value("${card2brain.export.chunk-size:1000}")
+    private int exportChunkSize;
 
 
     /**
@@ -49,6 +90,8 @@ public class CardServiceImpl implements CardService, HasLogger {
         if (card.getId() == null) { // to add a new card;id has to be null
             isCardValid(card); //throws notvalidesception
             cardRepository.save(card);
+            dueCardIndex.saved(card);
+            categoryRepository.addToCounters(card.getCategory().getId(), 1, reviewsOf(card));
             getLogger().info("User adds a Card: User :" + card.getCategory().getOwner().getMailAddress() + " to Category :" + card.getCategory().getCategoryName() + " Card Id" + card.getId());
         } else {
             if (isCardValid(card)) {
@@ -70,12 +113,20 @@ public class CardServiceImpl implements CardService, HasLogger {
     @Override
     @Transactional
     public Card updateCard(Card card) {
-        if (!cardRepository.existsById(card.getId())) {
-            throw new CardNotFoundException("Card does not exist");
-        }
+        Card storedCard = cardRepository.findById(card.getId()).orElseThrow(() -> new CardNotFoundException("Card does not exist"));
         isCardValid(card);//throws exception
         getLogger().info("User updates  Card: User :" + card.getCategory().getOwner().getMailAddress() + " to Category :" + card.getCategory().getCategoryName() + " Card Id" + card.getId());
-        return cardRepository.save(card);
+        long storedCategoryId = storedCard.getCategory().getId();
+        int storedReviews = reviewsOf(storedCard);
+        Card savedCard = cardRepository.save(card);
+        dueCardIndex.saved(savedCard);
+        if (storedCategoryId == savedCard.getCategory().getId()) {
+            categoryRepository.addToCounters(storedCategoryId, 0, reviewsOf(savedCard) - storedReviews);
+        } else {
+            categoryRepository.addToCounters(storedCategoryId, -1, -storedReviews);
+            categoryRepository.addToCounters(savedCard.getCategory().getId(), 1, reviewsOf(savedCard));
+        }
+        return savedCard;
     }
 
     /**
@@ -86,23 +137,45 @@ public class CardServiceImpl implements CardService, HasLogger {
     @Override
     @Transactional
     public void deleteCard(Card card) {
-        getLogger().info("User deletes a Card: User :" + card.getCategory().getOwner().getMailAddress() + " to Category :" + card.getCategory().getCategoryName() + " Card Id" + card.getId());
+        getLogger().info("User deletes a Card: Category Id :" + card.getCategory().getId() + " Card Id" + card.getId());
         cardRepository.delete(card);
+        if (dueCardIndex.isEnabled()) {
+            // the category of a card from another session can not be initialized here, its owner is read in this one
+            dueCardIndex.deleted(entityManager.getReference(Category.class, card.getCategory().getId()).getOwner().getId(), card.getId());
+        }
+        categoryRepository.addToCounters(card.getCategory().getId(), -1, -reviewsOf(card));
 
     }
 
     /**
-     * Deletes all Cards belonging to a specific Category from the database.
+     * Deletes all Cards belonging to a specific Category from the database with one DELETE statement, the cards are not loaded.
      * @param category the Category object whose Cards are to be deleted.
      */
 
     @Override
     @Transactional
     public void deleteCardsOfACategory(Category category) {
-        cardRepository.deleteAllInBatch(getAllCardsOfACategory(category));
+        cardRepository.deleteCardsOfCategory(category.getId());
+        dueCardIndex.categoryDeleted(category.getOwner().getId(), category.getId());
+        categoryRepository.resetCounters(category.getId());
 
     }
 
+    /**
+     * Deletes Cards of all categories of a user with one DELETE statement, the cards are not loaded.
+     * The counters of the categories are not changed, the categories are deleted after their cards.
+     * @param user the user whose Cards are to be deleted.
+     * @param limit the maximum number of cards to delete, {@link Integer#MAX_VALUE} for all cards.
+     * @return the number of deleted cards.
+     */
+    @Override
+    @Transactional
+    public int deleteCardsOfAUser(User user, int limit) {
+        int deleted = limit == Integer.MAX_VALUE ? cardRepository.deleteCardsOfOwner(user.getId()) : cardRepository.deleteCardsOfOwner(user.getId(), limit);
+        dueCardIndex.userChanged(user.getId());
+        return deleted;
+    }
+
     /**
      * Retrieves all Cards belonging to a specific Category from the database.
      *
@@ -129,6 +202,193 @@ public class CardServiceImpl implements CardService, HasLogger {
         return cardRepository.findCardByCategory_Id(categoryId);
     }
 
+    /**
+     * Retrieves the CardDtos of all Cards of a specific Category with one query, without loading the Cards.
+     * Only when the Category has no Cards, a second query checks whether the Category exists.
+     *
+     * @param categoryId the ID of the Category whose Cards are to be retrieved.
+     * @return a List of CardDto objects belonging to the given Category, ordered by ID.
+     * @throws CategoryNotFoundException if the Category does not exist.
+     */
+    @Override
+    public List<CardDto> getCardDtosOfACategory(long categoryId) {
+        return requireCategory(cardRepository.findCardDtosByCategoryId(categoryId), categoryId);
+    }
+
+
+    /**
+     * Retrieves the next Cards of a Category after a card ID, with a keyset query instead of an offset.
+     *
+     * @param category the Category object whose Cards are to be retrieved.
+     * @param afterId the ID of the last Card of the previous page, 0 for the first page.
+     * @param limit the maximal number of Cards to be retrieved.
+     * @return a List of Card objects with an ID greater than afterId, ordered by ID.
+     */
+    @Override
+    public List<Card> getCardsOfACategoryAfter(Category category, long afterId, int limit) {
+        return cardRepository.findByCategory_IdAndIdGreaterThanOrderByCategoryIdAscIdAsc(category.getId(), afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Streams all Cards of a Category to a consumer in one read-only transaction.
+     * Every card is detached after it was consumed, so the persistence context stays small.
+     *
+     * @param category the Category object whose Cards are to be streamed.
+     * @param consumer the consumer of the Cards.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamCardsOfACategory(Category category, Consumer<Card> consumer) {
+        try (Stream<Card> cards = cardRepository.streamByCategoryId(category.getId())) {
+            cards.forEach(card -> {
+                consumer.accept(card);
+                entityManager.detach(card);
+            });
+        }
+    }
+
+    /**
+     * Imports the rows of an upload as new cards of a category in one transaction.
+     * The cards are persisted with the JDBC batch size of the import; after every batch the persistence context is flushed and cleared.
+     * The counters of the category are changed once at the end and
+     * the cards of the owner are reloaded into the due card index by its next call.
+     *
+     * @param categoryId the id of the category of the new cards
+     * @param rows       the rows of the upload
+     * @return the number of imported and rejected rows with the reasons of the first rejected rows
+     * @throws CategoryNotFoundException if the category does not exist
+     */
+    @Override
+    @Transactional
+    public CardImportResultDto importCards(long categoryId, CardImportReader rows) {
+        Category category = categoryRepository.findById(categoryId).orElseThrow(() -> new CategoryNotFoundException("Category with categoryId :" + categoryId + " not found."));
+        long ownerId = category.getOwner().getId();
+        Session session = entityManager.unwrap(Session.class);
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(importBatchSize);
+        int accepted = 0;
+        int rejected = 0;
+        List<String> errors = new ArrayList<>();
+        try {
+            int inBatch = 0;
+            for (CardImportReader.Row row = rows.next(); row != null; row = rows.next()) {
+                String error = row.error();
+                if (error == null) {
+                    Card card = new Card(row.question(), row.answer(), category);
+                    try {
+                        isCardValid(card);
+                        entityManager.persist(card);
+                        accepted++;
+                        if (++inBatch == importBatchSize) {
+                            entityManager.flush();
+                            entityManager.clear();
+                            category = entityManager.getReference(Category.class, categoryId);
+                            inBatch = 0;
+                        }
+                        continue;
+                    } catch (CardNotValidException e) {
+                        error = e.getMessage();
+                    }
+                }
+                rejected++;
+                if (errors.size() < importMaxErrors) {
+                    errors.add("Row " + row.number() + ": " + error);
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } finally {
+            session.setJdbcBatchSize(sessionBatchSize);
+        }
+        categoryRepository.addToCounters(categoryId, accepted, 0);
+        dueCardIndex.userChanged(ownerId);
+        getLogger().info("User imports Cards: Category Id :" + categoryId + " accepted :" + accepted + " rejected :" + rejected);
+        return new CardImportResultDto(accepted, rejected, errors);
+    }
+
+    /**
+     * Adds new cards of one category with the JDBC batch size of the import and clears the persistence context afterwards.
+     * The cards of the owner are reloaded into the due card index by its next call.
+     *
+     * @param cards the new cards, all of the same category
+     */
+    @Override
+    @Transactional
+    public void addCards(List<Card> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Category category = cards.get(0).getCategory();
+        Session session = entityManager.unwrap(Session.class);
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(importBatchSize);
+        try {
+            cards.forEach(entityManager::persist);
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(sessionBatchSize);
+        }
+        entityManager.clear();
+        categoryRepository.addToCounters(category.getId(), cards.size(), cards.stream().mapToInt(CardServiceImpl::reviewsOf).sum());
+        dueCardIndex.userChanged(category.getOwner().getId());
+    }
+
+    /**
+     * Copies all cards of a category with one INSERT ... SELECT, the copies are due at once.
+     * The cards of the owner of the target category are reloaded into the due card index by its next call.
+     *
+     * @param from the category of the cards
+     * @param to   the category of the copies
+     * @return the number of copied cards
+     */
+    @Override
+    @Transactional
+    public int copyCards(Category from, Category to) {
+        // the INSERT ... SELECT bypasses the persistence context, so the new category has to be written first
+        entityManager.flush();
+        int cards = cardRepository.copyCards(from.getId(), to.getId());
+        categoryRepository.addToCounters(to.getId(), cards, 0);
+        dueCardIndex.userChanged(to.getOwner().getId());
+        return cards;
+    }
+
+    /**
+     * Hands the cards of a category to a consumer, read in chunks of card2brain.export.chunk-size cards.
+     *
+     * @param categoryId the id of the category whose cards are to be exported
+     * @param consumer   the consumer of the cards
+     */
+    @Override
+    public void exportCardsOfACategory(long categoryId, Consumer<CardExportDto> consumer) {
+        exportInChunks((afterId, chunk) -> cardRepository.findCardExportDtosByCategoryIdAfter(categoryId, afterId, chunk), consumer);
+    }
+
+    /**
+     * Hands the cards of all categories of a user to a consumer, one category after the other in the order of their ids,
+     * every category read in chunks of card2brain.export.chunk-size cards like {@link #exportCardsOfACategory(long, Consumer)}.
+     *
+     * @param userId   the id of the user whose cards are to be exported
+     * @param consumer the consumer of the cards
+     */
+    @Override
+    public void exportCardsOfAUser(long userId, Consumer<CardExportDto> consumer) {
+        for (long categoryId : categoryRepository.findIdsByOwnerId(userId)) {
+            exportCardsOfACategory(categoryId, consumer);
+        }
+    }
+
+    private void exportInChunks(BiFunction<Long, Pageable, List<CardExportDto>> readChunk, Consumer<CardExportDto> consumer) {
+        Pageable chunk = PageRequest.of(0, exportChunkSize);
+        long afterId = 0;
+        List<CardExportDto> cards;
+        do {
+            cards = readChunk.apply(afterId, chunk);
+            cards.forEach(consumer);
+            if (!cards.isEmpty()) {
+                afterId = cards.get(cards.size() - 1).getId();
+            }
+        } while (cards.size() == exportChunkSize);
+    }
 
     /**
      * Retrieves a Card from the database, based on its ID.
@@ -145,6 +405,30 @@ public class CardServiceImpl implements CardService, HasLogger {
     }
 
 
+    /**
+     * Retrieves all Cards with the given IDs from the database in one query.
+     *
+     * @param cardIds the IDs of the Cards to be retrieved.
+     * @return the Card objects found, IDs without a Card are ignored.
+     */
+    @Override
+    public List<Card> getCards(Collection<Long> cardIds) {
+        return cardRepository.findAllById(cardIds);
+    }
+
+
+    /**
+     * Retrieves the IDs of the existing cards of a list of IDs in one query, without loading the cards.
+     *
+     * @param cardIds the IDs of the cards to be checked.
+     * @return the IDs of the cards which exist.
+     */
+    @Override
+    public Set<Long> getExistingCardIds(Collection<Long> cardIds) {
+        return cardIds.isEmpty() ? new HashSet<>() : new HashSet<>(cardRepository.findExistingIds(cardIds));
+    }
+
+
     /**
      * Retrieves a list of Cards from the database that need to be repeated.
      *
@@ -166,23 +450,186 @@ public class CardServiceImpl implements CardService, HasLogger {
      * @param rightAnswer whether the answer was correct or not
      */
     @Override
-    @Transactional
     public void repeated(Card card, boolean rightAnswer) {
-        if (rightAnswer) {
-            card.setCounterRight(card.getCounterRight() + 1);
-            card.setCorrectAnswersInRow(card.getCorrectAnswersInRow() + 1);
-        } else {
-            card.setCounterFalse(card.getCounterFalse() + 1);
-            card.setCorrectAnswersInRow(0);
+        repeated(card.getId(), rightAnswer);
+    }
+
+    /**
+     * Update the repetition count and answer status of a card with one conditional UPDATE.
+     * The counters are incremented by the database, so concurrent answers to the same card are not lost.
+     * The answer is then counted in the category of the card.
+     * The category of the card is only read if a category has its own repetition sequence or the due dates are smoothed.
+     *
+     * @param cardId the ID of the card to be updated
+     * @param rightAnswer whether the answer was correct or not
+     * @throws CardNotFoundException if a Card with the given ID does not exist in the database.
+     */
+    @Override
+    @Transactional
+    public void repeated(long cardId, boolean rightAnswer) {
+        LocalDate today = LocalDate.now();
+        Learn learn = new Learn(rightAnswer, cardId);
+        Map<Long, Object[]> cards = readCards(List.of(learn));
+        Long categoryId = cards.containsKey(cardId) && repetitionService.hasCategorySequences() ? (Long) cards.get(cardId)[1] : null;
+        LocalDate[] nextDates = nextDatesOf(List.of(learn), categoryId, answer -> today, cards).get(learn);
+        if (cardRepository.reviewCard(cardId, rightAnswer, nextDates, LocalDateTime.now()) == 0) {
+            throw new CardNotFoundException("Card does not exist");
+        }
+        categoryRepository.countReviews(Map.of(cardId, 1));
+        if (cards.containsKey(cardId)) {
+            dueCardIndex.reviewed((Long) cards.get(cardId)[2], cardId, rightAnswer, nextDates);
+        }
+    }
+
+    /**
+     * Update the repetition count and answer status of the cards of a list of answers, sent as one JDBC batch
+     * per category if categories have their own repetition sequence.
+     *
+     * @param learns the answers, in the order they were given
+     * @return per answer, whether the card existed and was updated
+     */
+    @Override
+    @Transactional
+    public boolean[] repeated(List<Learn> learns) {
+        LocalDate today = LocalDate.now();
+        LocalDateTime answeredAt = LocalDateTime.now();
+        return repeatedByCategory(learns, learn -> today, (answers, nextDates) -> cardRepository.reviewCards(answers, nextDates, answeredAt));
+    }
+
+    /**
+     * Update the repetition count and answer status of the cards of a list of answers with their own answer time.
+     * Answers which are not newer than the last answer of the card are skipped, so the same answers can be written twice.
+     *
+     * @param learns the answers with their answer time, in the order they were given
+     * @return per answer, whether the card was updated
+     */
+    @Override
+    @Transactional
+    public boolean[] repeatedIfNewer(List<Learn> learns) {
+        return repeatedByCategory(learns, learn -> learn.getAnsweredAt().toLocalDate(), cardRepository::reviewCardsIfNewer);
+    }
+
+    /**
+     * Writes the answers of each category with the repetition sequence of the category and applies them to the due card index.
+     */
+    private boolean[] repeatedByCategory(List<Learn> learns, Function<Learn, LocalDate> dayOf, ReviewWriter writer) {
+        Map<Long, Object[]> cards = readCards(learns);
+        boolean[] updated = new boolean[learns.size()];
+        groupByCategory(learns, cards).forEach((categoryId, indexes) -> {
+            List<Learn> group = indexes.stream().map(learns::get).toList();
+            Map<Learn, LocalDate[]> nextDates = nextDatesOf(group, categoryId, dayOf, cards);
+            boolean[] groupUpdated = toUpdated(writer.write(group, group.stream().map(nextDates::get).toList()));
+            countReviews(group, groupUpdated);
+            for (int i = 0; i < groupUpdated.length; i++) {
+                Learn learn = group.get(i);
+                updated[indexes.get(i)] = groupUpdated[i];
+                Object[] card = cards.get(learn.getCardId());
+                if (groupUpdated[i] && card != null) {
+                    dueCardIndex.reviewed((Long) card[2], learn.getCardId(), learn.isCorrect(), nextDates.get(learn));
+                }
+            }
+        });
+        return updated;
+    }
+
+    /**
+     * Writes a list of answers with their next repetition dates.
+     */
+    @FunctionalInterface
+    private interface ReviewWriter {
+        int[] write(List<Learn> learns, List<LocalDate[]> nextDates);
+    }
+
+    /**
+     * Reads the category id and the owner id of the cards of a list of answers with one query, if they are needed
+     * for the repetition sequences of the categories or for the smoothing of the due dates.
+     * Cards which do not exist are missing.
+     */
+    private Map<Long, Object[]> readCards(List<Learn> learns) {
+        if (!repetitionService.hasCategorySequences() && !dueDateSmoother.isEnabled()) {
+            return Map.of();
+        }
+        Map<Long, Object[]> cards = new HashMap<>();
+        for (Object[] row : cardRepository.findCategoryAndOwnerIdsByIds(learns.stream().map(Learn::getCardId).distinct().toList())) {
+            cards.put((Long) row[0], row);
+        }
+        return cards;
+    }
+
+    /**
+     * Groups answers by the category of their cards, in the order of the answers, so every group is written with the
+     * repetition sequence of its category. Without category sequences all answers are in one group with the key null;
+     * answers to cards which do not exist are in the group null as well.
+     */
+    private Map<Long, List<Integer>> groupByCategory(List<Learn> learns, Map<Long, Object[]> cards) {
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        if (!repetitionService.hasCategorySequences()) {
+            groups.put(null, IntStream.range(0, learns.size()).boxed().toList());
+            return groups;
+        }
+        for (int i = 0; i < learns.size(); i++) {
+            Object[] card = cards.get(learns.get(i).getCardId());
+            groups.computeIfAbsent(card == null ? null : (Long) card[1], categoryId -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    /**
+     * Computes the next repetition dates of the answers of one category. Without smoothing the answers of a day share one array;
+     * with smoothing every answer gets its own dates, chosen with the due histogram of the owner of its card.
+     */
+    private Map<Learn, LocalDate[]> nextDatesOf(List<Learn> group, Long categoryId, Function<Learn, LocalDate> dayOf, Map<Long, Object[]> cards) {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, LocalDate[]> nextDatesByDay = new HashMap<>();
+        Map<Long, DueDateSmoother.Projection> projections = new HashMap<>();
+        Map<Learn, LocalDate[]> nextDates = new IdentityHashMap<>();
+        for (Learn learn : group) {
+            LocalDate day = dayOf.apply(learn);
+            LocalDate[] dates = nextDatesByDay.computeIfAbsent(day, answerDay -> nextDates(categoryId, answerDay));
+            Object[] card = cards.get(learn.getCardId());
+            if (dueDateSmoother.isEnabled() && card != null) {
+                long ownerId = (Long) card[2];
+                LocalDate[] todaysDates = nextDatesByDay.computeIfAbsent(today, answerDay -> nextDates(categoryId, answerDay));
+                DueDateSmoother.Projection projection = projections.computeIfAbsent(ownerId, owner -> dueDateSmoother.project(owner, today, todaysDates[todaysDates.length - 1]));
+                dates = dueDateSmoother.smooth(projection, dates, day, dueCardIndex.getCorrectAnswersInRow(ownerId, learn.getCardId()), learn.isCorrect());
+            }
+            nextDates.put(learn, dates);
         }
-        card.setNextDateToRepeat(repetitionService.getNextRepetitionDate(card.getCorrectAnswersInRow()));
-        card.setAnsweredLastTime(LocalDateTime.now());
-        cardRepository.save(card);
+        return nextDates;
+    }
 
+    private LocalDate[] nextDates(Long categoryId, LocalDate day) {
+        return categoryId == null ? repetitionService.getNextRepetitionDates(day) : repetitionService.getNextRepetitionDates(categoryId, day);
+    }
+
+    /**
+     * Counts the written answers in the categories of the cards, with one statement per answered card.
+     */
+    private void countReviews(List<Learn> learns, boolean[] updated) {
+        Map<Long, Integer> answers = new LinkedHashMap<>();
+        for (int i = 0; i < learns.size(); i++) {
+            if (updated[i]) {
+                answers.merge(learns.get(i).getCardId(), 1, Integer::sum);
+            }
+        }
+        categoryRepository.countReviews(answers);
+    }
+
+    private static int reviewsOf(Card card) {
+        return card.getCounterRight() + card.getCounterFalse();
+    }
+
+    private static boolean[] toUpdated(int[] updateCounts) {
+        boolean[] updated = new boolean[updateCounts.length];
+        for (int i = 0; i < updateCounts.length; i++) {
+            updated[i] = updateCounts[i] != 0;
+        }
+        return updated;
     }
 
     /**
      * Retrieve all the cards that are due for repetition within a category.
+     * When the {@link DueCardIndex} is enabled, the due cards are selected in memory and only they are read by their ID.
      *
      * @param category the category to retrieve the cards from
      * @return a list of all the cards that are due for repetition
@@ -190,7 +637,62 @@ public class CardServiceImpl implements CardService, HasLogger {
 
     @Override
     public List<Card> getCardsForRepetition(Category category) {
-        return cardRepository.findAllByCategoryAndNextDateToRepeatIsLessThanEqual(category, LocalDate.now());
+        if (!dueCardIndex.isEnabled()) {
+            return cardRepository.findAllByCategoryAndNextDateToRepeatIsLessThanEqual(category, LocalDate.now());
+        }
+        long[] dueCardIds = dueCardIndex.getDueCardIds(category.getOwner().getId(), category.getId(), LocalDate.now());
+        if (dueCardIds.length == 0) {
+            return new ArrayList<>();
+        }
+        return cardRepository.findAllById(Arrays.stream(dueCardIds).boxed().toList());
+    }
+
+    /**
+     * Retrieve the CardDtos of the cards that are due for repetition within a category with one query, without loading the cards.
+     * The query reads the index on the category and the next repetition date.
+     *
+     * @param categoryId the ID of the category to retrieve the cards from
+     * @return a list of the CardDtos of the cards that are due for repetition, ordered by ID
+     * @throws CategoryNotFoundException if the category does not exist
+     */
+    @Override
+    public List<CardDto> getCardDtosForRepetition(long categoryId) {
+        return requireCategory(cardRepository.findCardDtosToRepeatByCategoryId(categoryId, LocalDate.now()), categoryId);
+    }
+
+    /**
+     * Retrieve the CardDtos of the next cards that are due for repetition within a category after a card ID, with a keyset query.
+     *
+     * @param categoryId the ID of the category to retrieve the cards from
+     * @param afterId the ID of the last card of the previous window, 0 for the first window
+     * @param limit the maximal number of cards to be retrieved
+     * @return a list of the CardDtos of the cards that are due for repetition with an ID greater than afterId, ordered by ID
+     * @throws CategoryNotFoundException if the first window is empty and the category does not exist
+     */
+    @Override
+    public List<CardDto> getCardDtosForRepetitionAfter(long categoryId, long afterId, int limit) {
+        List<CardDto> cardDtos = cardRepository.findCardDtosToRepeatAfter(categoryId, LocalDate.now(), afterId, PageRequest.of(0, limit));
+        return afterId == 0 ? requireCategory(cardDtos, categoryId) : cardDtos;
+    }
+
+    private List<CardDto> requireCategory(List<CardDto> cardDtos, long categoryId) {
+        if (cardDtos.isEmpty() && !categoryRepository.existsById(categoryId)) {
+            throw new CategoryNotFoundException("Category with categoryId :" + categoryId + " not found.");
+        }
+        return cardDtos;
+    }
+
+    /**
+     * Retrieve the next cards that are due for repetition within a category after a card ID, with a keyset query.
+     *
+     * @param category the category to retrieve the cards from
+     * @param afterId the ID of the last card of the previous page, 0 for the first page
+     * @param limit the maximal number of cards to be retrieved
+     * @return a list of the cards that are due for repetition with an ID greater than afterId, ordered by ID
+     */
+    @Override
+    public List<Card> getCardsForRepetitionAfter(Category category, long afterId, int limit) {
+        return cardRepository.findByCategory_IdAndNextDateToRepeatLessThanEqualAndIdGreaterThanOrderByCategoryIdAscIdAsc(category.getId(), LocalDate.now(), afterId, PageRequest.of(0, limit));
     }
 
 
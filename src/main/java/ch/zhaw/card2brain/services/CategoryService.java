@@ -1,5 +1,7 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.dto.CategoryDto;
+import ch.zhaw.card2brain.dto.InfoDto;
 import ch.zhaw.card2brain.exception.CategoryNotFoundException;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
@@ -35,6 +37,19 @@ public interface CategoryService {
      */
     Category createCategory(Category category);
 
+    /**
+     * Clones a category with all its cards, for its owner or for another user. The cards are copied by the database
+     * with one statement; the copies keep question and answer and start as new cards.
+     *
+     * @param categoryId   The id of the category to be cloned
+     * @param ownerId      The id of the owner of the clone, null for the owner of the category
+     * @param categoryName The name of the clone, null for the name of the category
+     * @return The clone
+     * @throws CategoryNotFoundException if the category cannot be found
+     * @throws ch.zhaw.card2brain.exception.UserNotFoundException if the owner cannot be found
+     */
+    Category cloneCategory(long categoryId, Long ownerId, String categoryName);
+
     /**
      * Retrieves all categories associated with a specific user.
      *
@@ -43,6 +58,28 @@ public interface CategoryService {
      */
     List<Category> getAllCategoriesOfUser(User user);
 
+    /**
+     * Retrieves the CategoryDtos of all categories of a specific user with one query, without loading the categories.
+     *
+     * @param userId The ID of the user to retrieve categories for
+     * @return A list of CategoryDto objects of the specified user, ordered by ID
+     * @throws ch.zhaw.card2brain.exception.UserNotFoundException if the user does not exist
+     */
+    List<CategoryDto> getCategoryDtosOfUser(long userId);
+
+    /**
+     * Retrieves the counters of all categories of a specific user: the number of cards, of cards to repeat today and of answers.
+     *
+     * @param ownerId The ID of the user to retrieve the counters for
+     * @return an InfoDto per category of the user, ordered by ID
+     */
+    List<InfoDto> getCategoryInfos(long ownerId);
+
+    /**
+     * Counts the cards and the answers of all categories again and repairs their counters, called every night.
+     */
+    void reconcileCounters();
+
     /**
      * Checks if a category exists for a specific user.
      *
@@ -67,6 +104,14 @@ public interface CategoryService {
      */
     void delete(Category category);
 
+    /**
+     * Deletes all categories of a user with one statement, their cards have to be deleted before.
+     *
+     * @param user The user whose categories are to be deleted
+     * @return the number of deleted categories
+     */
+    int deleteCategoriesOfAUser(User user);
+
     /**
      * Updates a category.
      *
@@ -75,6 +120,16 @@ public interface CategoryService {
      */
     Category updateCateory(Category category);
 
+    /**
+     * Sets the repetition sequence of a category, used for the answers given from now on.
+     *
+     * @param categoryId         The ID of the category
+     * @param repetitionSequence The days until the next repetition per number of correct answers in a row, empty for the default sequence
+     * @throws ch.zhaw.card2brain.exception.CategoryNotValidException if a day is negative or the sequence is too long
+     * @throws CategoryNotFoundException if the category does not exist
+     */
+    void setRepetitionSequence(long categoryId, List<Integer> repetitionSequence);
+
 
 
 
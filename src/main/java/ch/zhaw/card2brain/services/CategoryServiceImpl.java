@@ -1,5 +1,7 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.dto.CategoryDto;
+import ch.zhaw.card2brain.dto.InfoDto;
 import ch.zhaw.card2brain.exception.CategoryAlreadyExistsException;
 import ch.zhaw.card2brain.exception.CategoryNotFoundException;
 import ch.zhaw.card2brain.exception.CategoryNotValidException;
@@ -8,12 +10,17 @@ import ch.zhaw.card2brain.model.BaseEntity;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
 import ch.zhaw.card2brain.repository.CategoryRepository;
+import ch.zhaw.card2brain.repository.UserRepository;
 import ch.zhaw.card2brain.util.HasLogger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
@@ -30,12 +37,24 @@ import java.util.stream.Stream;
 @Component
 public class CategoryServiceImpl implements CategoryService, HasLogger {
 
+    private static final int MAX_REPETITION_STEPS = 30;
+    private static final int MAX_REPETITION_DAYS = 3650;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
     @Autowired
     private CardService cardService;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RepetitionService repetitionService;
+
+    @Autowired
+    private DueCardIndex dueCardIndex;
+
     /**
      * This method returns a list of all the categories of a given user.
      *
@@ -60,6 +79,57 @@ public class CategoryServiceImpl implements CategoryService, HasLogger {
     }
 
 
+    /**
+     * This method returns the counters of all categories of a given user with one query, without reading the cards.
+     * The number of cards and of answers are maintained by the card service. The number of cards to repeat today
+     * is counted in the {@link DueCardIndex} if it is enabled, otherwise in the database index on the category and
+     * the next repetition date.
+     *
+     * @param ownerId the id of the user whose counters are to be returned
+     * @return an InfoDto per category of the user, ordered by id
+     */
+    @Override
+    public List<InfoDto> getCategoryInfos(long ownerId) {
+        if (dueCardIndex.isEnabled()) {
+            Map<Long, Integer> dueByCategory = dueCardIndex.countDueByCategory(ownerId, LocalDate.now());
+            return categoryRepository.findStoredCountersByOwnerId(ownerId).stream()
+                    .map(row -> new InfoDto((String) row[1], (Long) row[0], (Integer) row[2], dueByCategory.getOrDefault((Long) row[0], 0), (Integer) row[3])).toList();
+        }
+        return categoryRepository.findCountersByOwnerId(ownerId, LocalDate.now()).stream()
+                .map(row -> new InfoDto((String) row[1], (Long) row[0], (Integer) row[2], ((Long) row[3]).intValue(), (Integer) row[4])).toList();
+    }
+
+    /**
+     * This method counts the cards and the answers of all categories again and repairs counters which drifted,
+     * e.g. because cards were changed directly in the database. It runs every night.
+     */
+    @Override
+    @Scheduled(cron = "${card2brain.category-counters.reconcile-cron:0 5 0 * * *}")
+    public void reconcileCounters() {
+        int reconciled = categoryRepository.reconcileCounters();
+        getLogger().info("Reconciled the counters of " + reconciled + " categories");
+    }
+
+    /**
+     * This method returns the categoryDtos of all categories of a given user together with their counters,
+     * read by {@link #getCategoryInfos(long)} like the infos of the user.
+     * Only when the user has no categories, a second query checks whether the user exists.
+     *
+     * @param userId the id of the user whose categories are to be returned
+     * @return a list of the categoryDtos of the user
+     * @throws UserNotFoundException if the user does not exist
+     */
+    @Override
+    public List<CategoryDto> getCategoryDtosOfUser(long userId) {
+        List<CategoryDto> categories = getCategoryInfos(userId).stream()
+                .map(info -> new CategoryDto(info.getCategoryId(), info.getCategoryName(), userId, info.getNumberOfCards(), info.getToLearn()))
+                .toList();
+        if (categories.isEmpty() && !userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User with ID " + userId + " does not exist.");
+        }
+        return categories;
+    }
+
     /**
      * This method checks whether a category already exists for a user.
      *
@@ -102,6 +172,36 @@ public class CategoryServiceImpl implements CategoryService, HasLogger {
         return category;
     }
 
+    /**
+     * This method clones a category: the clone is created with the repetition sequence of the category
+     * and the cards are copied by the card service with one INSERT ... SELECT.
+     *
+     * @param categoryId   the id of the category to be cloned
+     * @param ownerId      the id of the owner of the clone, null for the owner of the category
+     * @param categoryName the name of the clone, null or blank for the name of the category
+     * @return the clone
+     * @throws CategoryNotFoundException if the category does not exist
+     * @throws UserNotFoundException     if the owner does not exist
+     */
+    @Override
+    @Transactional
+    public Category cloneCategory(long categoryId, Long ownerId, String categoryName) {
+        Category category = getCategoryById(categoryId);
+        User owner = ownerId == null ? category.getOwner() : userRepository.getUserById(ownerId);
+        if (owner == null) {
+            throw new UserNotFoundException("User with Id " + ownerId + " does not exist.");
+        }
+        Category clone = createCategory(new Category(categoryName == null || categoryName.isBlank() ? category.getCategoryName() : categoryName, owner));
+        // copying the cards writes the clone, the repetition sequence is set with SQL afterwards
+        int cards = cardService.copyCards(category, clone);
+        if (category.getRepetitionSequence() != null) {
+            categoryRepository.setRepetitionSequence(clone.getId(), category.getRepetitionSequence());
+            repetitionService.repetitionSequenceChanged(clone.getId());
+        }
+        getLogger().info("User clones a Category: Category Id :" + categoryId + " to Category Id :" + clone.getId() + " Cards :" + cards);
+        return clone;
+    }
+
     /**
      * This method retrieves a category by its id.
      *
@@ -153,6 +253,29 @@ public class CategoryServiceImpl implements CategoryService, HasLogger {
         return category;
     }
 
+    /**
+     * This method sets the repetition sequence of a category with one UPDATE and drops the cached sequences.
+     *
+     * @param categoryId         the id of the category
+     * @param repetitionSequence the days until the next repetition per number of correct answers in a row, empty for the default sequence
+     */
+    @Override
+    @Transactional
+    public void setRepetitionSequence(long categoryId, List<Integer> repetitionSequence) {
+        String sequence = null;
+        if (repetitionSequence != null && !repetitionSequence.isEmpty()) {
+            if (repetitionSequence.size() > MAX_REPETITION_STEPS || repetitionSequence.stream().anyMatch(days -> days == null || days < 0 || days > MAX_REPETITION_DAYS)) {
+                throw new CategoryNotValidException("Repetition sequence is not valid. Please enter at most " + MAX_REPETITION_STEPS + " days between 0 and " + MAX_REPETITION_DAYS + ".");
+            }
+            sequence = repetitionSequence.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+        if (categoryRepository.setRepetitionSequence(categoryId, sequence) == 0) {
+            throw new CategoryNotFoundException("Category with categoryId :" + categoryId + " not found.");
+        }
+        repetitionService.repetitionSequenceChanged(categoryId);
+        getLogger().info("Repetition sequence of Category " + categoryId + " set to " + (sequence == null ? "the default sequence" : sequence));
+    }
+
     /**
      * This method retrieves a list of categories with a given name.
      *
@@ -164,8 +287,26 @@ public class CategoryServiceImpl implements CategoryService, HasLogger {
         cardService.deleteCardsOfACategory(category);
         getLogger().info("User deletes a Category: User :" + category.getOwner().getMailAddress() + " to Category :" + category.getCategoryName());
         categoryRepository.delete(category);
+        if (category.getRepetitionSequence() != null) {
+            repetitionService.repetitionSequenceChanged(category.getId());
+        }
 
     }
 
-
+    /**
+     * This method deletes all categories of a user with one DELETE statement.
+     * The cached repetition sequences of the categories with their own sequence are dropped.
+     *
+     * @param user the owner of the categories
+     * @return the number of deleted categories
+     */
+    @Override
+    @Transactional
+    public int deleteCategoriesOfAUser(User user) {
+        List<Category> categories = categoryRepository.findCategoriesByOwner(user);
+        int deleted = categoryRepository.deleteCategoriesOfOwner(user.getId());
+        categories.stream().filter(category -> category.getRepetitionSequence() != null).forEach(category -> repetitionService.repetitionSequenceChanged(category.getId()));
+        getLogger().info("Categories of User deleted: User Id :" + user.getId() + " Categories :" + deleted);
+        return deleted;
+    }
 }
@@ -0,0 +1,412 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.repository.CardRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * DueCardIndex keeps the scheduling state of the cards of the active users in memory, so the cards to repeat of a category,
+ * the number of cards to repeat per category and the due histogram of the {@link DueDateSmoother} are read without a query.
+ * <p>
+ * The cards of a user are stored in columns of primitive arrays sorted by card id: card id, category id,
+ * next repetition date as epoch day and the number of correct answers in a row. The cards of a user are loaded
+ * with one query the first time they are needed, the least recently used users are evicted.
+ * {@link CardServiceImpl} applies every review, add and delete to the cards of the owner after it has been committed,
+ * so the due cards and the streak of a card are read from memory without reading the cards.
+ * The index is kept up to date while card2brain.due-index.enabled or card2brain.repetition.load-smoothing.enabled is set;
+ * otherwise it keeps no users, the card and category services read the due cards from the database and only the
+ * smoother, when it is asked, loads the cards of the user for its call.
+ * <p>
+ * The map of the users is locked only to look up, add and remove a user; the cards of a user are changed and read
+ * holding the lock of the cards of that user. A change to a card of a user which is being loaded can not be applied
+ * to the index; in this case the loaded cards are used for the running call only and loaded again by the next call.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Component
+public class DueCardIndex {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    private final boolean enabled;
+
+    // guarded by this, in access order
+    private final Map<Long, UserCards> users;
+
+    // guarded by this, the users whose cards are being loaded
+    private final Map<Long, Load> loads = new HashMap<>();
+
+    /**
+     * Creates the index.
+     *
+     * @param maxUsers  the number of users kept in memory
+     * @param enabled   whether the due cards are read from the index
+     * @param smoothing whether the due dates are smoothed, which also keeps the index up to date
+     */
+    public DueCardIndex(@Value("${card2brain.due-index.max-users:1000}") int maxUsers,
+                        @Value("${card2brain.due-index.enabled:false}") boolean enabled,
+                        @Value("${card2brain.repetition.load-smoothing.enabled:false}") boolean smoothing) {
+        this.enabled = enabled || smoothing;
+        users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserCards> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Tells whether the index is kept up to date, so the due cards can be read from it.
+     *
+     * @return true if the changes to the cards are applied to the index
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the ids of the cards of a category which are due on a day, also the cards which are overdue.
+     *
+     * @param ownerId    the id of the owner of the category
+     * @param categoryId the id of the category
+     * @param today      the day
+     * @return the ids of the due cards in ascending order
+     */
+    public long[] getDueCardIds(long ownerId, long categoryId, LocalDate today) {
+        UserCards cards = getUserCards(ownerId);
+        int todayEpochDay = (int) today.toEpochDay();
+        synchronized (cards) {
+            long[] dueCardIds = new long[cards.size];
+            int due = 0;
+            for (int i = 0; i < cards.size; i++) {
+                if (cards.categoryIds[i] == categoryId && isDue(cards.nextDays[i], todayEpochDay)) {
+                    dueCardIds[due++] = cards.cardIds[i];
+                }
+            }
+            return Arrays.copyOf(dueCardIds, due);
+        }
+    }
+
+    /**
+     * Counts the cards of all categories of a user which are due on a day, also the cards which are overdue.
+     *
+     * @param ownerId the id of the user
+     * @param today   the day
+     * @return the number of due cards per category id, categories without due cards are missing
+     */
+    public Map<Long, Integer> countDueByCategory(long ownerId, LocalDate today) {
+        UserCards cards = getUserCards(ownerId);
+        int todayEpochDay = (int) today.toEpochDay();
+        Map<Long, Integer> dueByCategory = new HashMap<>();
+        synchronized (cards) {
+            for (int i = 0; i < cards.size; i++) {
+                if (isDue(cards.nextDays[i], todayEpochDay)) {
+                    dueByCategory.merge(cards.categoryIds[i], 1, Integer::sum);
+                }
+            }
+        }
+        return dueByCategory;
+    }
+
+    /**
+     * Counts the cards of a user which are due on each day of a range, the due histogram used to smooth the next repetition dates.
+     * Cards which are already overdue on the first day are not counted.
+     *
+     * @param ownerId the id of the user
+     * @param from    the first day of the range
+     * @param days    the number of days of the range
+     * @return the number of cards per day, index 0 is the first day
+     */
+    public int[] countDueByDay(long ownerId, LocalDate from, int days) {
+        UserCards cards = getUserCards(ownerId);
+        int fromEpochDay = (int) from.toEpochDay();
+        int[] dueByDay = new int[days];
+        synchronized (cards) {
+            for (int i = 0; i < cards.size; i++) {
+                int day = cards.nextDays[i] - fromEpochDay;
+                if (day >= 0 && day < days) {
+                    dueByDay[day]++;
+                }
+            }
+        }
+        return dueByDay;
+    }
+
+    /**
+     * Gets the number of correct answers in a row of a card.
+     *
+     * @param ownerId the id of the owner of the card
+     * @param cardId  the id of the card
+     * @return the number of correct answers in a row, -1 if the card is not in the index
+     */
+    public int getCorrectAnswersInRow(long ownerId, long cardId) {
+        UserCards cards = getUserCards(ownerId);
+        synchronized (cards) {
+            int i = cards.indexOf(cardId);
+            return i >= 0 ? cards.streaks[i] : -1;
+        }
+    }
+
+    /**
+     * Applies a review to the index after the running transaction is committed.
+     *
+     * @param ownerId   the id of the owner of the reviewed card
+     * @param cardId    the id of the reviewed card
+     * @param correct   whether the answer was correct
+     * @param nextDates the next repetition dates per number of correct answers in a row, used for the review
+     */
+    public void reviewed(long ownerId, long cardId, boolean correct, LocalDate[] nextDates) {
+        change(ownerId, cards -> {
+            int i = cards.indexOf(cardId);
+            if (i >= 0) {
+                cards.streaks[i] = correct ? cards.streaks[i] + 1 : 0;
+                cards.nextDays[i] = (int) nextDates[Math.min(cards.streaks[i], nextDates.length - 1)].toEpochDay();
+            }
+        });
+    }
+
+    /**
+     * Adds a new or changed card to the index after the running transaction is committed.
+     *
+     * @param card the card, with its category and owner
+     */
+    public void saved(Card card) {
+        long cardId = card.getId();
+        long categoryId = card.getCategory().getId();
+        int nextDay = (int) card.getNextDateToRepeat().toEpochDay();
+        int streak = card.getCorrectAnswersInRow();
+        change(card.getCategory().getOwner().getId(), cards -> {
+            int i = cards.indexOf(cardId);
+            if (i >= 0) {
+                cards.remove(i);
+            }
+            cards.add(cardId, categoryId, nextDay, streak);
+        });
+    }
+
+    /**
+     * Removes a card from the index after the running transaction is committed.
+     *
+     * @param ownerId the id of the owner of the deleted card
+     * @param cardId  the id of the deleted card
+     */
+    public void deleted(long ownerId, long cardId) {
+        change(ownerId, cards -> {
+            int i = cards.indexOf(cardId);
+            if (i >= 0) {
+                cards.remove(i);
+            }
+        });
+    }
+
+    /**
+     * Removes all cards of a category from the index after the running transaction is committed.
+     *
+     * @param ownerId    the id of the owner of the category
+     * @param categoryId the id of the deleted category
+     */
+    public void categoryDeleted(long ownerId, long categoryId) {
+        change(ownerId, cards -> cards.removeCategory(categoryId));
+    }
+
+    /**
+     * Removes the cards of a user from the index after the running transaction is committed, so they are loaded again
+     * by the next call. Used for bulk changes which are not applied card by card.
+     *
+     * @param ownerId the id of the user
+     */
+    public void userChanged(long ownerId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                users.remove(ownerId);
+                loadChanged(ownerId);
+            }
+        });
+    }
+
+    /**
+     * Removes all users from the index.
+     */
+    public synchronized void clear() {
+        users.clear();
+        loads.values().forEach(load -> load.changed = true);
+    }
+
+    private void change(long ownerId, Consumer<UserCards> change) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            UserCards cards;
+            synchronized (this) {
+                cards = users.get(ownerId);
+                if (cards == null) {
+                    loadChanged(ownerId);
+                    return;
+                }
+            }
+            synchronized (cards) {
+                change.accept(cards);
+            }
+        });
+    }
+
+    // called holding the lock of this
+    private void loadChanged(long ownerId) {
+        Load load = loads.get(ownerId);
+        if (load != null) {
+            load.changed = true;
+        }
+    }
+
+    private UserCards getUserCards(long ownerId) {
+        if (!enabled) {
+            return new UserCards(cardRepository.findSchedulesByOwnerId(ownerId));
+        }
+        Load load;
+        synchronized (this) {
+            UserCards cards = users.get(ownerId);
+            if (cards != null) {
+                return cards;
+            }
+            load = loads.computeIfAbsent(ownerId, owner -> new Load());
+            load.loaders++;
+        }
+        UserCards loaded = null;
+        try {
+            loaded = new UserCards(cardRepository.findSchedulesByOwnerId(ownerId));
+        } finally {
+            synchronized (this) {
+                if (--load.loaders == 0) {
+                    loads.remove(ownerId);
+                }
+                if (loaded != null && !load.changed) {
+                    users.putIfAbsent(ownerId, loaded);
+                    loaded = users.get(ownerId);
+                }
+            }
+        }
+        return loaded; // if a card changed during the load, the loaded cards may be outdated and are not kept
+    }
+
+    // cards without a next repetition date are never due, like in the query of the repository
+    private static boolean isDue(int nextDay, int todayEpochDay) {
+        return nextDay != Integer.MIN_VALUE && nextDay <= todayEpochDay;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * The loads of the cards of one user which are running, and whether a card of the user changed since they started.
+     */
+    private static final class Load {
+
+        private int loaders;
+        private boolean changed;
+    }
+
+    /**
+     * The cards of one user as columns, sorted by card id.
+     */
+    private static final class UserCards {
+
+        private long[] cardIds;
+        private long[] categoryIds;
+        private int[] nextDays;
+        private int[] streaks;
+        private int size;
+
+        private UserCards(List<Object[]> schedules) {
+            size = schedules.size();
+            int capacity = Math.max(size, 8);
+            cardIds = new long[capacity];
+            categoryIds = new long[capacity];
+            nextDays = new int[capacity];
+            streaks = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                Object[] schedule = schedules.get(i);
+                cardIds[i] = (Long) schedule[0];
+                categoryIds[i] = (Long) schedule[1];
+                nextDays[i] = schedule[2] == null ? Integer.MIN_VALUE : (int) ((LocalDate) schedule[2]).toEpochDay();
+                streaks[i] = (Integer) schedule[3];
+            }
+        }
+
+        private int indexOf(long cardId) {
+            return Arrays.binarySearch(cardIds, 0, size, cardId);
+        }
+
+        private void add(long cardId, long categoryId, int nextDay, int streak) {
+            if (size == cardIds.length) {
+                int capacity = size + (size >> 1);
+                cardIds = Arrays.copyOf(cardIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                nextDays = Arrays.copyOf(nextDays, capacity);
+                streaks = Arrays.copyOf(streaks, capacity);
+            }
+            int i = -indexOf(cardId) - 1;
+            System.arraycopy(cardIds, i, cardIds, i + 1, size - i);
+            System.arraycopy(categoryIds, i, categoryIds, i + 1, size - i);
+            System.arraycopy(nextDays, i, nextDays, i + 1, size - i);
+            System.arraycopy(streaks, i, streaks, i + 1, size - i);
+            cardIds[i] = cardId;
+            categoryIds[i] = categoryId;
+            nextDays[i] = nextDay;
+            streaks[i] = streak;
+            size++;
+        }
+
+        private void remove(int i) {
+            System.arraycopy(cardIds, i + 1, cardIds, i, size - i - 1);
+            System.arraycopy(categoryIds, i + 1, categoryIds, i, size - i - 1);
+            System.arraycopy(nextDays, i + 1, nextDays, i, size - i - 1);
+            System.arraycopy(streaks, i + 1, streaks, i, size - i - 1);
+            size--;
+        }
+
+        private void removeCategory(long categoryId) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (categoryIds[i] != categoryId) {
+                    cardIds[kept] = cardIds[i];
+                    categoryIds[kept] = categoryIds[i];
+                    nextDays[kept] = nextDays[i];
+                    streaks[kept] = streaks[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ch.zhaw.card2brain.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * DueDateSmoother spreads the next repetition dates of a user over a window around the date of the repetition sequence,
+ * so cards which were learned together do not all come due on the same day.
+ * <p>
+ * An interval of at least card2brain.repetition.load-smoothing.min-interval-days days is spread over a window of
+ * card2brain.repetition.load-smoothing.fuzz of the interval on each side, at most card2brain.repetition.load-smoothing.max-window-days days.
+ * The day in the window with the fewest cards due for the user is chosen; of equally loaded days the one nearest
+ * to the date of the sequence, then the earlier one. The due histogram of the user is read from the {@link DueCardIndex}
+ * once per batch of answers and counts every chosen date, so the answers of one batch are spread as well.
+ * The rescheduling with a new repetition sequence smooths the dates of the cards the same way, with one projection per user for the whole run.
+ * <p>
+ * The mode is enabled with the property card2brain.repetition.load-smoothing.enabled.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Component
+public class DueDateSmoother {
+
+    @Autowired
+    private DueCardIndex dueCardIndex;
+
+    @Value("${card2brain.repetition.load-smoothing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${card2brain.repetition.load-smoothing.fuzz:0.1}")
+    private double fuzz;
+
+    @Value("${card2brain.repetition.load-smoothing.min-interval-days:3}")
+    private int minIntervalDays;
+
+    @Value("${card2brain.repetition.load-smoothing.max-window-days:7}")
+    private int maxWindowDays;
+
+    /**
+     * The projected number of due cards per day of a user, from the day of the projection on.
+     */
+    public static final class Projection {
+
+        private final long fromEpochDay;
+        private int[] dueByDay;
+
+        private Projection(long fromEpochDay, int[] dueByDay) {
+            this.fromEpochDay = fromEpochDay;
+            this.dueByDay = dueByDay;
+        }
+
+        private int dueOn(long epochDay) {
+            long day = epochDay - fromEpochDay;
+            return day >= 0 && day < dueByDay.length ? dueByDay[(int) day] : 0;
+        }
+
+        private void add(long epochDay) {
+            long day = epochDay - fromEpochDay;
+            if (day < 0) {
+                return;
+            }
+            if (day >= dueByDay.length) {
+                dueByDay = Arrays.copyOf(dueByDay, (int) day + 1);
+            }
+            dueByDay[(int) day]++;
+        }
+
+        private void remove(long epochDay) {
+            long day = epochDay - fromEpochDay;
+            if (day >= 0 && day < dueByDay.length && dueByDay[(int) day] > 0) {
+                dueByDay[(int) day]--;
+            }
+        }
+    }
+
+    /**
+     * Tells whether the next repetition dates are smoothed.
+     *
+     * @return true if the mode is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the due histogram of a user.
+     *
+     * @param ownerId  the id of the user
+     * @param today    the first day of the projection
+     * @param lastDate the last next repetition date which can be smoothed
+     * @return the projection of the due cards of the user
+     */
+    public Projection project(long ownerId, LocalDate today, LocalDate lastDate) {
+        int days = (int) (lastDate.toEpochDay() - today.toEpochDay()) + maxWindowDays + 1;
+        return new Projection(today.toEpochDay(), dueCardIndex.countDueByDay(ownerId, today, Math.max(days, 1)));
+    }
+
+    /**
+     * Smooths the next repetition dates of one answer and counts the date the card will get in the projection.
+     *
+     * @param projection          the projection of the owner of the card
+     * @param nextDates           the next repetition dates of the sequence per number of correct answers in a row
+     * @param answerDay           the day of the answer
+     * @param correctAnswersInRow the number of correct answers in a row before the answer, -1 if it is not known
+     * @param correct             whether the answer was correct
+     * @return the smoothed next repetition dates per number of correct answers in a row
+     */
+    public LocalDate[] smooth(Projection projection, LocalDate[] nextDates, LocalDate answerDay, int correctAnswersInRow, boolean correct) {
+        LocalDate[] smoothed = new LocalDate[nextDates.length];
+        for (int inRow = 0; inRow < nextDates.length; inRow++) {
+            smoothed[inRow] = chooseDay(projection, answerDay, nextDates[inRow]);
+        }
+        if (correctAnswersInRow >= 0) {
+            int nextInRow = correct ? Math.min(correctAnswersInRow + 1, nextDates.length - 1) : 0;
+            projection.add(smoothed[nextInRow].toEpochDay());
+        }
+        return smoothed;
+    }
+
+    /**
+     * Smooths the next repetition date of a card which is rescheduled and moves the card in the projection
+     * from its current date to the chosen one. The projection may be shared by several threads.
+     *
+     * @param projection  the projection of the owner of the card
+     * @param nextDate    the next repetition date of the sequence
+     * @param answerDay   the day of the last answer of the card
+     * @param currentDate the current next repetition date of the card
+     * @return the smoothed next repetition date
+     */
+    public LocalDate smooth(Projection projection, LocalDate nextDate, LocalDate answerDay, LocalDate currentDate) {
+        synchronized (projection) {
+            projection.remove(currentDate.toEpochDay());
+            LocalDate smoothed = chooseDay(projection, answerDay, nextDate);
+            projection.add(smoothed.toEpochDay());
+            return smoothed;
+        }
+    }
+
+    private LocalDate chooseDay(Projection projection, LocalDate answerDay, LocalDate nextDate) {
+        long interval = nextDate.toEpochDay() - answerDay.toEpochDay();
+        if (interval < minIntervalDays) {
+            return nextDate;
+        }
+        int window = (int) Math.min(maxWindowDays, Math.round(interval * fuzz));
+        long base = nextDate.toEpochDay();
+        long bestDay = base;
+        int bestDue = projection.dueOn(base);
+        for (int distance = 1; distance <= window; distance++) {
+            int earlierDue = projection.dueOn(base - distance);
+            if (earlierDue < bestDue) {
+                bestDay = base - distance;
+                bestDue = earlierDue;
+            }
+            int laterDue = projection.dueOn(base + distance);
+            if (laterDue < bestDue) {
+                bestDay = base + distance;
+                bestDue = laterDue;
+            }
+        }
+        return LocalDate.ofEpochDay(bestDay);
+    }
+}
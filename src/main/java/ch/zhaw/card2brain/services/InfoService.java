@@ -22,4 +22,13 @@ public interface InfoService {
      * @return a list of information represented as InfoDto objects
      */
     List<InfoDto> getInfos(User user);
+
+    /**
+     * Retrieves a list of information for a given user id, without loading the user.
+     *
+     * @param userId the id of the user for which to retrieve information
+     * @return a list of information represented as InfoDto objects
+     * @throws ch.zhaw.card2brain.exception.UserNotFoundException if the user does not exist
+     */
+    List<InfoDto> getInfos(long userId);
 }
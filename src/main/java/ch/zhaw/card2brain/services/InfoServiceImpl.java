@@ -1,12 +1,13 @@
 package ch.zhaw.card2brain.services;
 
 import ch.zhaw.card2brain.dto.InfoDto;
+import ch.zhaw.card2brain.exception.UserNotFoundException;
 import ch.zhaw.card2brain.model.User;
+import ch.zhaw.card2brain.repository.UserRepository;
 import ch.zhaw.card2brain.util.HasLogger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,7 +27,7 @@ public class InfoServiceImpl implements InfoService, HasLogger {
     @Autowired
     private CategoryService categoryService;
     @Autowired
-    private CardService cardService;
+    private UserRepository userRepository;
 
 
     /**
@@ -39,12 +40,26 @@ public class InfoServiceImpl implements InfoService, HasLogger {
 
     @Override
     public List<InfoDto> getInfos(User user) {
-        List<InfoDto> infoDtos = new ArrayList<>();
-        categoryService.getAllCategoriesOfUser(user).forEach(category -> {
-            infoDtos.add(new InfoDto(category.getCategoryName(), category.getId(), cardService.getAllCardsOfACategory(category).size(), cardService.getCardsForRepetition(category.getId()).size()));
-        });
-        for (InfoDto infoDto : infoDtos)
-            getLogger().info("User requests Infos User :" + user.getMailAddress() + " Category :" + infoDto.getCategoryName() + " number of cards :" + infoDto.getNumberOfCards() + " cards to learn :" + infoDto.getToLearn());
+        List<InfoDto> infoDtos = categoryService.getCategoryInfos(user.getId());
+        getLogger().info("User requests Infos User :" + user.getMailAddress() + " number of categories :" + infoDtos.size());
+        return infoDtos;
+    }
+
+    /**
+     * This method returns the same list of {@link InfoDto} as {@link #getInfos(User)} with one query.
+     * Only when the user has no categories, a second query checks whether the user exists.
+     *
+     * @param userId The id of the user for which the information is requested.
+     * @return A list of {@link InfoDto} containing information about the user's categories.
+     * @throws UserNotFoundException if the user does not exist
+     */
+    @Override
+    public List<InfoDto> getInfos(long userId) {
+        List<InfoDto> infoDtos = categoryService.getCategoryInfos(userId);
+        if (infoDtos.isEmpty() && !userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User with ID " + userId + " does not exist.");
+        }
+        getLogger().info("User requests Infos User Id :" + userId + " number of categories :" + infoDtos.size());
         return infoDtos;
     }
 
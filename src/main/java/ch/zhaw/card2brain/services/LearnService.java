@@ -1,5 +1,7 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.LearnResultDto;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.Learn;
@@ -24,6 +26,15 @@ public interface LearnService {
      */
     void cardWasShown(Learn learn);
 
+    /**
+     * This method is used to submit all answers of a learning session at once.
+     * The answers are applied in one transaction, a missing card does not fail the other answers.
+     *
+     * @param learns - the Learn objects in the order they were answered
+     * @return a result for every submitted answer, in the same order
+     */
+    List<LearnResultDto> cardsWereShown(List<Learn> learns);
+
     /**
      * This method retrieves a list of cards to be learned for a specific category.
      *
@@ -31,4 +42,22 @@ public interface LearnService {
      * @return a list of Card objects to be learned for the given category
      */
     List<Card> cardsToLearn(Category category);
+
+    /**
+     * This method retrieves the cardDtos of the cards to be learned for a specific category with one query.
+     *
+     * @param categoryId - the id of the category for which to retrieve the cards
+     * @return a list of CardDto objects to be learned for the given category, ordered by id
+     */
+    List<CardDto> cardsToLearn(long categoryId);
+
+    /**
+     * This method retrieves the next cards to be learned for a specific category after a card id, ordered by id.
+     *
+     * @param category - the category for which to retrieve the cards
+     * @param afterId  - the id of the last card of the previous page, 0 for the first page
+     * @param limit    - the maximal number of cards to retrieve
+     * @return a list of Card objects to be learned with an id greater than afterId
+     */
+    List<Card> cardsToLearn(Category category, long afterId, int limit);
 }
@@ -1,14 +1,18 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.LearnResultDto;
 import ch.zhaw.card2brain.exception.CategoryNotFoundException;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.Learn;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class is the implementation of the {@link LearnService} interface.
@@ -26,29 +30,65 @@ import java.util.List;
 @Component
 public class LearnServiceImpl implements LearnService {
 
+    private static final String CARD_NOT_FOUND = "Card does not exist";
+
     @Autowired
     private CardService cardService;
 
-    @Autowired
-    private RepetitionService repetitionService;
+    @Autowired(required = false)
+    private ReviewWriteBehindService reviewWriteBehindService;
 
     /**
      * cardWasShown method is used to update the card's counter, next repetition date and last time card was answered.
+     * The card is updated with one statement and is not loaded.
+     * In the write-behind mode the answer is only appended to the review journal and written later,
+     * answers to cards which do not exist are then skipped when the journal is written.
      *
-     * @param learn LearnDto object containing card id and boolean for whether the answer was correct
+     * @param learn Learn object containing card id and boolean for whether the answer was correct
+     * @throws ch.zhaw.card2brain.exception.CardNotFoundException if the card does not exist
      */
     @Override
     public void cardWasShown(Learn learn) {
-        if (learn.isCorrect()) {
-            learn.getCard().setCounterRight(learn.getCard().getCounterRight() + 1);
-            learn.getCard().setCorrectAnswersInRow(learn.getCard().getCorrectAnswersInRow() + 1);
+        if (reviewWriteBehindService != null) {
+            reviewWriteBehindService.cardWasShown(learn.getCardId(), learn.isCorrect());
+        } else {
+            cardService.repeated(learn.getCardId(), learn.isCorrect());
+        }
+    }
+
+    /**
+     * cardsWereShown applies all answers of a learning session in one transaction.
+     * The answers are written as one JDBC batch of UPDATE statements, the cards are not loaded.
+     * In the write-behind mode the answers to existing cards are appended to the review journal with one fsync instead,
+     * so they are written in the order of the journal together with the single answers.
+     *
+     * @param learns Learn objects containing card id and boolean for whether the answer was correct
+     * @return a result per answer, answers to missing cards are reported and skipped
+     */
+    @Override
+    @Transactional
+    public List<LearnResultDto> cardsWereShown(List<Learn> learns) {
+        boolean[] updated;
+        if (reviewWriteBehindService != null) {
+            Set<Long> existingCardIds = cardService.getExistingCardIds(learns.stream().map(Learn::getCardId).distinct().toList());
+            List<Learn> journaled = new ArrayList<>();
+            updated = new boolean[learns.size()];
+            for (int i = 0; i < learns.size(); i++) {
+                updated[i] = existingCardIds.contains(learns.get(i).getCardId());
+                if (updated[i]) {
+                    journaled.add(learns.get(i));
+                }
+            }
+            reviewWriteBehindService.cardsWereShown(journaled);
         } else {
-            learn.getCard().setCounterFalse(learn.getCard().getCounterFalse() + 1);
+            updated = cardService.repeated(learns);
         }
 
-        learn.getCard().setNextDateToRepeat(repetitionService.getNextRepetitionDate(learn.getCard().getCorrectAnswersInRow()));
-        learn.getCard().setAnsweredLastTime(LocalDateTime.now());
-        cardService.updateCard(learn.getCard());
+        List<LearnResultDto> results = new ArrayList<>();
+        for (int i = 0; i < learns.size(); i++) {
+            results.add(new LearnResultDto(learns.get(i).getCardId(), updated[i], updated[i] ? null : CARD_NOT_FOUND));
+        }
+        return results;
     }
 
     /**
@@ -62,4 +102,30 @@ public class LearnServiceImpl implements LearnService {
         return cardService.getCardsForRepetition(category);
 
     }
+
+    /**
+     * cardsToLearn method is used to get the cardDtos of all cards to learn for a particular category,
+     * selected with one query without loading the cards.
+     *
+     * @param categoryId the id of the category
+     * @return list of cardDtos ordered by id
+     * @throws CategoryNotFoundException if category is not found
+     */
+    @Override
+    public List<CardDto> cardsToLearn(long categoryId) {
+        return cardService.getCardDtosForRepetition(categoryId);
+    }
+
+    /**
+     * cardsToLearn method is used to get the next cards to learn for a particular category after a card id.
+     *
+     * @param category the category of the cards
+     * @param afterId the id of the last card of the previous page, 0 for the first page
+     * @param limit the maximal number of cards
+     * @return list of cards ordered by id
+     */
+    @Override
+    public List<Card> cardsToLearn(Category category, long afterId, int limit) {
+        return cardService.getCardsForRepetitionAfter(category, afterId, limit);
+    }
 }
@@ -0,0 +1,72 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.LearnResultDto;
+import ch.zhaw.card2brain.dto.LearnSessionDto;
+import ch.zhaw.card2brain.model.Learn;
+
+import java.util.List;
+
+/**
+ * LearnSessionService defines the server-side learn sessions.
+ * A session serves the due cards of one category window by window and prefetches the next window,
+ * so the client only asks for the next cards instead of loading the whole category.
+ * Sessions are kept in memory and expire when they are not used.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public interface LearnSessionService {
+
+    /**
+     * Starts a learn session for the cards of a category which are due for repetition.
+     *
+     * @param categoryId the id of the category to learn
+     * @return the started session
+     * @throws ch.zhaw.card2brain.exception.CategoryNotFoundException if the category does not exist
+     */
+    LearnSessionDto startSession(long categoryId);
+
+    /**
+     * Gets the next cards of a session, ordered by card id. Every card is served once per session.
+     *
+     * @param sessionId the id of the session
+     * @param count     the number of cards, at most the window size of the sessions
+     * @return the next cards, an empty list if all cards of the session were served
+     * @throws ch.zhaw.card2brain.exception.LearnSessionNotFoundException if the session does not exist or has expired
+     */
+    List<CardDto> nextCards(String sessionId, int count);
+
+    /**
+     * Applies the answers given in a session in one transaction. Only cards of the category of the session can be answered.
+     *
+     * @param sessionId the id of the session
+     * @param learns    the answers in the order they were given
+     * @return a result per answer, answers to missing cards and to cards of other categories are reported and skipped
+     * @throws ch.zhaw.card2brain.exception.LearnSessionNotFoundException if the session does not exist or has expired
+     */
+    List<LearnResultDto> answer(String sessionId, List<Learn> learns);
+
+    /**
+     * Ends a session and drops its prefetched cards.
+     *
+     * @param sessionId the id of the session
+     * @throws ch.zhaw.card2brain.exception.LearnSessionNotFoundException if the session does not exist or has expired
+     */
+    void endSession(String sessionId);
+
+    /**
+     * Removes the sessions which were not used within the time to live.
+     */
+    void evictExpiredSessions();
+
+    /**
+     * Gets the number of open sessions.
+     *
+     * @return the number of sessions in memory
+     */
+    int getSessionCount();
+}
@@ -0,0 +1,339 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.LearnResultDto;
+import ch.zhaw.card2brain.dto.LearnSessionDto;
+import ch.zhaw.card2brain.exception.LearnSessionNotFoundException;
+import ch.zhaw.card2brain.model.Learn;
+import ch.zhaw.card2brain.repository.CardRepository;
+import ch.zhaw.card2brain.util.HasLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * LearnSessionServiceImpl is the implementation of the {@link LearnSessionService} interface.
+ * <p>
+ * The sessions are kept in a map in access order, bounded by card2brain.learn.session.max-sessions: when the map is full,
+ * the least recently used session is dropped. A session expires when it was not used within card2brain.learn.session.ttl;
+ * expired sessions are removed when a session is started and by a scheduled eviction.
+ * <p>
+ * A session reads the due cards of its category in windows of card2brain.learn.session.window-size cards with a keyset query.
+ * When the buffered cards are less than a window, the next window is read in the background on a small pool without
+ * a queue, so the next request usually finds its cards in memory. If no prefetch thread is idle, or the prefetch has
+ * not finished when the cards are needed, the window is read by the request itself.
+ * A session serves at most card2brain.learn.session.max-cards cards.
+ * <p>
+ * The number of open sessions is published as the gauge card2brain.learn.sessions.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Service
+public class LearnSessionServiceImpl implements LearnSessionService, HasLogger {
+
+    private static final String CARD_NOT_IN_SESSION = "Card is not in the category of the session";
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private LearnService learnService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card2brain.learn.session.max-sessions:10000}")
+    private int maxSessions;
+
+    @Value("${card2brain.learn.session.ttl:30m}")
+    private Duration ttl;
+
+    @Value("${card2brain.learn.session.window-size:20}")
+    private int windowSize;
+
+    @Value("${card2brain.learn.session.max-cards:1000}")
+    private int maxCards;
+
+    @Value("${card2brain.learn.session.prefetch-threads:2}")
+    private int prefetchThreads;
+
+    // guarded by this, in access order
+    private final Map<String, LearnSession> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LearnSession> eldest) {
+            if (size() <= maxSessions) {
+                return false;
+            }
+            cancelPrefetch(eldest.getValue());
+            return true;
+        }
+    };
+
+    private ThreadPoolExecutor prefetchExecutor;
+
+    /**
+     * Starts the prefetch pool and registers the session gauge.
+     */
+    @PostConstruct
+    public void startPrefetching() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        prefetchExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "learn-session-prefetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("card2brain.learn.sessions", this, LearnSessionService::getSessionCount).description("Open learn sessions").register(meterRegistry);
+    }
+
+    /**
+     * Stops the prefetch pool, prefetches which are still running are abandoned.
+     */
+    @PreDestroy
+    public void stopPrefetching() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts a session and reads its first window of cards, the second window is prefetched.
+     *
+     * @param categoryId the id of the category to learn
+     * @return the started session
+     */
+    @Override
+    public LearnSessionDto startSession(long categoryId) {
+        LearnSession session = new LearnSession(UUID.randomUUID().toString(), categoryId, clock.instant());
+        synchronized (session) {
+            fetch(session);
+            prefetchIfLow(session);
+        }
+        synchronized (this) {
+            removeExpired(clock.instant());
+            sessions.put(session.id, session);
+        }
+        getLogger().debug("Learn session " + session.id + " started for category " + categoryId);
+        return new LearnSessionDto(session.id, categoryId, maxCards);
+    }
+
+    @Override
+    public List<CardDto> nextCards(String sessionId, int count) {
+        LearnSession session = getSession(sessionId);
+        synchronized (session) {
+            int wanted = Math.min(Math.max(count, 1), Math.min(windowSize, maxCards - session.served));
+            while (session.buffer.size() < wanted && !session.exhausted) {
+                if (!takePrefetched(session)) {
+                    fetch(session);
+                }
+            }
+            List<CardDto> cards = new ArrayList<>(Math.max(wanted, 0));
+            while (cards.size() < wanted && !session.buffer.isEmpty()) {
+                cards.add(session.buffer.poll());
+            }
+            session.served += cards.size();
+            prefetchIfLow(session);
+            return cards;
+        }
+    }
+
+    @Override
+    public List<LearnResultDto> answer(String sessionId, List<Learn> learns) {
+        LearnSession session = getSession(sessionId);
+        if (learns.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> sessionCardIds = new HashSet<>(cardRepository.findIdsInCategory(session.categoryId, learns.stream().map(Learn::getCardId).collect(Collectors.toSet())));
+        List<Learn> sessionLearns = learns.stream().filter(learn -> sessionCardIds.contains(learn.getCardId())).toList();
+        Iterator<LearnResultDto> applied = (sessionLearns.isEmpty() ? List.<LearnResultDto>of() : learnService.cardsWereShown(sessionLearns)).iterator();
+        List<LearnResultDto> results = new ArrayList<>(learns.size());
+        for (Learn learn : learns) {
+            results.add(sessionCardIds.contains(learn.getCardId()) ? applied.next() : new LearnResultDto(learn.getCardId(), false, CARD_NOT_IN_SESSION));
+        }
+        return results;
+    }
+
+    @Override
+    public void endSession(String sessionId) {
+        LearnSession session;
+        synchronized (this) {
+            session = sessions.remove(sessionId);
+        }
+        if (session == null) {
+            throw sessionNotFound(sessionId);
+        }
+        cancelPrefetch(session);
+    }
+
+    /**
+     * Removes the sessions which were not used within the time to live.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${card2brain.learn.session.eviction-interval-ms:60000}")
+    public void evictExpiredSessions() {
+        int evicted;
+        synchronized (this) {
+            evicted = removeExpired(clock.instant());
+        }
+        if (evicted > 0) {
+            getLogger().debug(evicted + " expired learn sessions evicted");
+        }
+    }
+
+    @Override
+    public synchronized int getSessionCount() {
+        return sessions.size();
+    }
+
+    private LearnSession getSession(String sessionId) {
+        Instant now = clock.instant();
+        synchronized (this) {
+            LearnSession session = sessions.get(sessionId);
+            if (session == null || isExpired(session, now)) {
+                if (session != null) {
+                    sessions.remove(sessionId);
+                    cancelPrefetch(session);
+                }
+                throw sessionNotFound(sessionId);
+            }
+            session.lastAccess = now;
+            return session;
+        }
+    }
+
+    // the map is in access order, so the expired sessions are at its head; called holding the lock of this
+    private int removeExpired(Instant now) {
+        int removed = 0;
+        Iterator<LearnSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            LearnSession session = iterator.next();
+            if (!isExpired(session, now)) {
+                break;
+            }
+            iterator.remove();
+            cancelPrefetch(session);
+            removed++;
+        }
+        return removed;
+    }
+
+    private boolean isExpired(LearnSession session, Instant now) {
+        return session.lastAccess.plus(ttl).isBefore(now);
+    }
+
+    // called holding the lock of the session
+    private void fetch(LearnSession session) {
+        add(session, cardService.getCardDtosForRepetitionAfter(session.categoryId, session.afterId, windowSize));
+    }
+
+    // called holding the lock of the session, returns false if there is no finished prefetch: a running one is cancelled
+    private boolean takePrefetched(LearnSession session) {
+        CompletableFuture<List<CardDto>> prefetch = session.prefetch;
+        if (prefetch == null) {
+            return false;
+        }
+        session.prefetch = null;
+        if (!prefetch.isDone()) {
+            prefetch.cancel(false);
+            return false;
+        }
+        try {
+            add(session, prefetch.join());
+            return true;
+        } catch (CompletionException e) {
+            getLogger().warn("Prefetch of learn session " + session.id + " failed, the cards are read again", e.getCause());
+            return false;
+        }
+    }
+
+    // called holding the lock of the session
+    private void prefetchIfLow(LearnSession session) {
+        if (session.exhausted || session.prefetch != null || session.buffer.size() >= windowSize) {
+            return;
+        }
+        long categoryId = session.categoryId;
+        long afterId = session.afterId;
+        try {
+            session.prefetch = CompletableFuture.supplyAsync(() -> cardService.getCardDtosForRepetitionAfter(categoryId, afterId, windowSize), prefetchExecutor);
+        } catch (RejectedExecutionException e) {
+            // no prefetch thread is idle, the window is read when it is needed
+        }
+    }
+
+    // called holding the lock of the session
+    private void add(LearnSession session, List<CardDto> window) {
+        session.buffer.addAll(window);
+        if (!window.isEmpty()) {
+            session.afterId = window.get(window.size() - 1).getId();
+        }
+        if (window.size() < windowSize || session.served + session.buffer.size() >= maxCards) {
+            session.exhausted = true;
+        }
+    }
+
+    private static void cancelPrefetch(LearnSession session) {
+        CompletableFuture<List<CardDto>> prefetch = session.prefetch;
+        if (prefetch != null) {
+            prefetch.cancel(false);
+        }
+    }
+
+    private static LearnSessionNotFoundException sessionNotFound(String sessionId) {
+        return new LearnSessionNotFoundException("Learn session " + sessionId + " does not exist or has expired.");
+    }
+
+    /**
+     * The state of one session. The cards are guarded by the lock of the session, lastAccess by the lock of the service.
+     */
+    private static final class LearnSession {
+
+        private final String id;
+        private final long categoryId;
+        private final Deque<CardDto> buffer = new ArrayDeque<>();
+        private long afterId;
+        private int served;
+        private boolean exhausted;
+        private volatile CompletableFuture<List<CardDto>> prefetch;
+        private Instant lastAccess;
+
+        private LearnSession(String id, long categoryId, Instant now) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.lastAccess = now;
+        }
+    }
+}
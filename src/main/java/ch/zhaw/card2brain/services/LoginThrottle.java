@@ -0,0 +1,194 @@
+package ch.zhaw.card2brain.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoginThrottle limits the login attempts per mail address and per client address with token buckets, so an attempt
+ * which exceeds a limit is rejected before its password is hashed.
+ * <p>
+ * A bucket holds card2brain.login-throttle.account.burst (per mail address) or card2brain.login-throttle.ip.burst
+ * (per client address) tokens and gets one token back per refill period. Every attempt takes a token of both buckets,
+ * a successful login returns them, so only failed attempts use up a bucket. A bucket is one {@link AtomicLong} with the
+ * time at which it is full again, changed with compare-and-set: for a refill period p and a burst b, an attempt at time t
+ * is allowed if that time is at most t + (b - 1) * p, and moves it to max(time, t) + p.
+ * <p>
+ * The buckets are kept in card2brain.login-throttle.stripes maps, the stripe of a key is chosen by its hash, each stripe
+ * holds at most its share of card2brain.login-throttle.max-keys buckets. A stripe which is full drops its buckets which
+ * are full again, which carry no state; if it is still full, it drops the buckets which are full again first, down to
+ * seven eighths of its share, so the buckets of an ongoing attack on an account are kept longest.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+
+    private final Limit accountLimit;
+
+    private final Limit addressLimit;
+
+    private final Map<String, AtomicLong>[] stripes;
+
+    private final int maxKeysPerStripe;
+
+    /**
+     * The limit of one kind of bucket.
+     *
+     * @param burst        the number of attempts which are allowed at once
+     * @param refillPeriod the time after which one more attempt is allowed, in nanoseconds
+     */
+    private record Limit(int burst, long refillPeriod) {
+
+        private long tolerance() {
+            return (burst - 1) * refillPeriod;
+        }
+    }
+
+    /**
+     * Creates the throttle.
+     *
+     * @param enabled             whether the attempts are limited
+     * @param accountBurst        the number of attempts per mail address which are allowed at once
+     * @param accountRefillPeriod the time after which one more attempt per mail address is allowed
+     * @param addressBurst        the number of attempts per client address which are allowed at once
+     * @param addressRefillPeriod the time after which one more attempt per client address is allowed
+     * @param maxKeys             the number of buckets kept in memory
+     * @param stripes             the number of maps the buckets are spread over
+     */
+    @SuppressWarnings("unchecked")
+    public LoginThrottle(@Value("${card2brain.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${card2brain.login-throttle.account.burst:5}") int accountBurst,
+                         @Value("${card2brain.login-throttle.account.refill-period:20s}") Duration accountRefillPeriod,
+                         @Value("${card2brain.login-throttle.ip.burst:50}") int addressBurst,
+                         @Value("${card2brain.login-throttle.ip.refill-period:1s}") Duration addressRefillPeriod,
+                         @Value("${card2brain.login-throttle.max-keys:100000}") int maxKeys,
+                         @Value("${card2brain.login-throttle.stripes:16}") int stripes) {
+        this.enabled = enabled;
+        this.accountLimit = new Limit(accountBurst, accountRefillPeriod.toNanos());
+        this.addressLimit = new Limit(addressBurst, addressRefillPeriod.toNanos());
+        this.stripes = new Map[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.maxKeysPerStripe = Math.max(1, maxKeys / stripes);
+    }
+
+    /**
+     * Takes a token of the bucket of the mail address and of the bucket of the client address.
+     *
+     * @param mailAddress   the mail address of the login
+     * @param clientAddress the address of the client, null if it is not known
+     * @return 0 if the attempt is allowed, otherwise the seconds until the next attempt is allowed
+     */
+    public long tryAcquire(String mailAddress, String clientAddress) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long waitNanos = 0;
+        if (clientAddress != null) {
+            waitNanos = tryAcquire(addressKey(clientAddress), addressLimit, now);
+        }
+        if (waitNanos == 0 && mailAddress != null) {
+            waitNanos = tryAcquire(accountKey(mailAddress), accountLimit, now);
+            if (waitNanos > 0 && clientAddress != null) {
+                release(addressKey(clientAddress), addressLimit);
+            }
+        }
+        return waitNanos == 0 ? 0 : Math.max(1, Duration.ofNanos(waitNanos).toSeconds() + 1);
+    }
+
+    /**
+     * Returns the tokens of a successful login, so the attempts of a user who knows the password are not limited.
+     *
+     * @param mailAddress   the mail address of the login
+     * @param clientAddress the address of the client, null if it is not known
+     */
+    public void release(String mailAddress, String clientAddress) {
+        if (!enabled) {
+            return;
+        }
+        if (clientAddress != null) {
+            release(addressKey(clientAddress), addressLimit);
+        }
+        if (mailAddress != null) {
+            release(accountKey(mailAddress), accountLimit);
+        }
+    }
+
+    private long tryAcquire(String key, Limit limit, long now) {
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            if (start - now > limit.tolerance()) {
+                return start - now - limit.tolerance();
+            }
+            if (bucket.compareAndSet(fullAt, start + limit.refillPeriod())) {
+                return 0;
+            }
+        }
+    }
+
+    private void release(String key, Limit limit) {
+        AtomicLong bucket = stripe(key).get(key);
+        if (bucket != null) {
+            long now = System.nanoTime();
+            bucket.getAndUpdate(fullAt -> Math.max(now, fullAt - limit.refillPeriod()));
+        }
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        Map<String, AtomicLong> stripe = stripe(key);
+        AtomicLong bucket = stripe.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.size() >= maxKeysPerStripe) {
+            evict(stripe, now);
+        }
+        return stripe.computeIfAbsent(key, newKey -> new AtomicLong(now));
+    }
+
+    private void evict(Map<String, AtomicLong> stripe, long now) {
+        synchronized (stripe) {
+            stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+            // the buckets which are full again first lose the least state; an eighth of the stripe is freed at once,
+            // so the buckets are not sorted again for every new key
+            int excess = stripe.size() - maxKeysPerStripe * 7 / 8;
+            if (excess > 0) {
+                stripe.entrySet().stream()
+                        .sorted(Comparator.comparingLong(entry -> entry.getValue().get() - now))
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(stripe::remove);
+            }
+        }
+    }
+
+    private Map<String, AtomicLong> stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private static String accountKey(String mailAddress) {
+        return "mail:" + mailAddress.toLowerCase(Locale.ROOT);
+    }
+
+    private static String addressKey(String clientAddress) {
+        return "ip:" + clientAddress;
+    }
+}
@@ -0,0 +1,71 @@
+package ch.zhaw.card2brain.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * PasswordHashingService hashes and checks passwords on a bounded pool of worker threads, so a burst of logins
+ * does not occupy the request threads and all processors.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public interface PasswordHashingService {
+
+    /**
+     * Hashes a password.
+     *
+     * @param rawPassword the password
+     * @return the hash of the password
+     * @throws ch.zhaw.card2brain.exception.ServerBusyException if the queue of the pool is full
+     */
+    String encode(CharSequence rawPassword);
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @param rawPassword     the password
+     * @param encodedPassword the stored hash
+     * @return true if the password matches the hash
+     * @throws ch.zhaw.card2brain.exception.ServerBusyException if the queue of the pool is full
+     */
+    boolean matches(CharSequence rawPassword, String encodedPassword);
+
+    /**
+     * Hashes a password in the background, for a hash which is not needed by the running request.
+     * A hash which finds the queue of the pool half full is not computed, so the requests which wait for their hash keep their room.
+     *
+     * @param rawPassword the password
+     * @return the hash of the password, completed exceptionally with a {@link ch.zhaw.card2brain.exception.ServerBusyException} if the queue is half full
+     */
+    CompletableFuture<String> encodeLater(CharSequence rawPassword);
+
+    /**
+     * Checks whether a stored hash has another cost than the configured cost and should be replaced.
+     *
+     * @param encodedPassword the stored hash
+     * @return true if the hash is a BCrypt hash of another cost
+     */
+    boolean needsRehash(String encodedPassword);
+
+    /**
+     * Measures the time of a hash per cost, from cost 4 up to the first cost which takes longer than the target.
+     *
+     * @param targetLatency the time a hash may take
+     * @return the measured times and the highest cost within the target
+     */
+    Calibration calibrate(Duration targetLatency);
+
+    /**
+     * The result of a calibration.
+     *
+     * @param suggestedStrength the highest cost whose hash takes at most the target latency, 4 if even cost 4 takes longer
+     * @param millisPerStrength the measured time of a hash in milliseconds per cost, in ascending order of the cost
+     */
+    record Calibration(int suggestedStrength, Map<Integer, Double> millisPerStrength) {
+    }
+}
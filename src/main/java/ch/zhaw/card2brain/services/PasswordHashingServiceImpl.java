@@ -0,0 +1,233 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.exception.ServerBusyException;
+import ch.zhaw.card2brain.util.HasLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PasswordHashingServiceImpl is the implementation of the {@link PasswordHashingService} interface.
+ * <p>
+ * The passwords are hashed by the {@link PasswordEncoder} on card2brain.password-hashing.threads threads, by default half of
+ * the processors, so the other processors stay free for the learn endpoints. The request thread waits for its hash without
+ * using a processor. At most card2brain.password-hashing.queue-capacity hashes wait for a thread; a further request is
+ * rejected with a {@link ServerBusyException}, which is answered with 503 and a Retry-After of card2brain.password-hashing.retry-after.
+ * The time a hash waits in the queue and the time of the hash itself are published as the timers card2brain.password.queue-wait
+ * and card2brain.password.hash, the rejected requests as the counter card2brain.password.rejected.
+ * <p>
+ * The cost of the hashes is card2brain.password-hashing.strength; {@link #needsRehash(String)} tells the login which stored
+ * hashes have another cost. A hash in the background is only queued while the queue is less than half full. When the application is ready, the time of a hash is measured per cost in the background and
+ * the highest cost within card2brain.password-hashing.target-latency is logged as the suggested strength.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService, HasLogger {
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private static final int MIN_STRENGTH = 4;
+
+    private static final int MAX_STRENGTH = 31;
+
+    private static final int CALIBRATION_SAMPLES = 3;
+
+    private static final String CALIBRATION_PASSWORD = "Calibration Password";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card2brain.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${card2brain.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${card2brain.password-hashing.retry-after:2s}")
+    private Duration retryAfter;
+
+    @Value("${card2brain.password-hashing.strength:10}")
+    private int strength;
+
+    @Value("${card2brain.password-hashing.calibrate-on-startup:true}")
+    private boolean calibrateOnStartup;
+
+    @Value("${card2brain.password-hashing.target-latency:250ms}")
+    private Duration targetLatency;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer hashTimer;
+
+    private Timer queueWaitTimer;
+
+    private Counter rejectedCounter;
+
+    /**
+     * Starts the pool and registers the metrics.
+     */
+    @PostConstruct
+    public void startPool() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        hashTimer = Timer.builder("card2brain.password.hash").description("Time to hash or check a password").register(meterRegistry);
+        queueWaitTimer = Timer.builder("card2brain.password.queue-wait").description("Time a password waits for a hashing thread").register(meterRegistry);
+        rejectedCounter = Counter.builder("card2brain.password.rejected").description("Passwords rejected because the hashing queue was full").register(meterRegistry);
+        Gauge.builder("card2brain.password.queue-depth", executor, pool -> pool.getQueue().size()).description("Passwords waiting for a hashing thread").register(meterRegistry);
+    }
+
+    /**
+     * Stops the pool.
+     */
+    @PreDestroy
+    public void stopPool() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public CompletableFuture<String> encodeLater(CharSequence rawPassword) {
+        // a background hash only takes the first half of the queue, the rest is kept for the logins which wait for their hash
+        if (executor.getQueue().size() * 2 >= queueCapacity) {
+            return CompletableFuture.failedFuture(new ServerBusyException("The hashing queue is busy, the password is not hashed in the background.", retryAfter.toSeconds()));
+        }
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_HASH.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Measures the cost of the hashes on this machine in the background when the application is ready, and logs the
+     * highest cost whose hash takes at most card2brain.password-hashing.target-latency.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrateOnStartup() {
+        if (!calibrateOnStartup) {
+            return;
+        }
+        Thread calibration = new Thread(() -> {
+            Calibration result = calibrate(targetLatency);
+            result.millisPerStrength().forEach((cost, millis) -> getLogger().info("BCrypt cost " + cost + " takes " + String.format(Locale.ROOT, "%.1f", millis) + " ms"));
+            String suggestion = "BCrypt cost " + result.suggestedStrength() + " is the highest cost within the target latency of " + targetLatency.toMillis()
+                    + " ms, card2brain.password-hashing.strength is " + strength;
+            if (result.suggestedStrength() == strength) {
+                getLogger().info(suggestion);
+            } else {
+                getLogger().warn(suggestion);
+            }
+        }, "password-hashing-calibration");
+        calibration.setDaemon(true);
+        calibration.start();
+    }
+
+    @Override
+    public Calibration calibrate(Duration targetLatency) {
+        Map<Integer, Double> millisPerStrength = new LinkedHashMap<>();
+        int suggestedStrength = MIN_STRENGTH;
+        for (int cost = MIN_STRENGTH; cost <= MAX_STRENGTH; cost++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+            encoder.encode(CALIBRATION_PASSWORD); // warm up
+            long fastest = Long.MAX_VALUE;
+            for (int sample = 0; sample < CALIBRATION_SAMPLES; sample++) {
+                long start = System.nanoTime();
+                encoder.encode(CALIBRATION_PASSWORD);
+                fastest = Math.min(fastest, System.nanoTime() - start);
+            }
+            millisPerStrength.put(cost, fastest / 1_000_000.0);
+            if (fastest > targetLatency.toNanos()) {
+                break;
+            }
+            suggestedStrength = cost;
+        }
+        return new Calibration(suggestedStrength, millisPerStrength);
+    }
+
+    private <T> T hash(Supplier<T> hashing) {
+        CompletableFuture<T> result = submit(hashing);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Hashing a password failed", e.getCause());
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(hashTimer.record(hashing));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            result.completeExceptionally(new ServerBusyException("Too many logins at the moment, please try again in " + retryAfter.toSeconds() + " seconds.", retryAfter.toSeconds()));
+        }
+        return result;
+    }
+}
@@ -1,9 +1,11 @@
 package ch.zhaw.card2brain.services;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * RepetitionService interface provides a method to calculate the next repetition date based on the number of correct answers in a row.
+ * The methods with a category id use the repetition sequence of the category, the others the default sequence.
  *
  * @author Niklaus Hänggi
  * @author Alexander Studer
@@ -21,4 +23,72 @@ public interface RepetitionService {
      * @return the next repetition date
      */
     LocalDate getNextRepetitionDate(int correctAnswersInRow);
+
+    /**
+     * Gets the next repetition dates for all numbers of correct answers in a row, calculated for the same day.
+     * The entry at index n is the next repetition date after n correct answers in a row,
+     * the last entry applies to all longer rows.
+     *
+     * @return the next repetition dates, indexed by the number of correct answers in a row
+     */
+    LocalDate[] getNextRepetitionDates();
+
+    /**
+     * Gets the next repetition dates for all numbers of correct answers in a row, for an answer given on the specified day.
+     *
+     * @param day the day of the answer
+     * @return the next repetition dates, indexed by the number of correct answers in a row
+     */
+    LocalDate[] getNextRepetitionDates(LocalDate day);
+
+    /**
+     * Gets the repetition sequence: the days until the next repetition, indexed by the number of correct answers in a row.
+     * The last entry applies to all longer rows.
+     *
+     * @return the repetition sequence
+     */
+    List<Integer> getRepetitionSequence();
+
+    /**
+     * Gets the next repetition date with the repetition sequence of a category.
+     *
+     * @param categoryId          the id of the category of the card
+     * @param correctAnswersInRow the number of correct answers in a row
+     * @return the next repetition date
+     */
+    LocalDate getNextRepetitionDate(long categoryId, int correctAnswersInRow);
+
+    /**
+     * Gets the next repetition dates for all numbers of correct answers in a row with the repetition sequence of a category,
+     * for an answer given on the specified day.
+     *
+     * @param categoryId the id of the category of the cards
+     * @param day        the day of the answer
+     * @return the next repetition dates, indexed by the number of correct answers in a row
+     */
+    LocalDate[] getNextRepetitionDates(long categoryId, LocalDate day);
+
+    /**
+     * Gets the repetition sequence of a category, without reading the database once the sequences are cached.
+     * The array must not be changed.
+     *
+     * @param categoryId the id of the category
+     * @return the days until the next repetition, indexed by the number of correct answers in a row
+     */
+    int[] getRepetitionDays(long categoryId);
+
+    /**
+     * Tells whether any category has its own repetition sequence.
+     *
+     * @return true if a category does not use the default sequence
+     */
+    boolean hasCategorySequences();
+
+    /**
+     * Drops the cached sequences of the categories after the sequence of a category was changed.
+     * If a transaction is running, the sequences are dropped again after its commit.
+     *
+     * @param categoryId the id of the changed category
+     */
+    void repetitionSequenceChanged(long categoryId);
 }
@@ -1,11 +1,16 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Clock;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -24,6 +29,13 @@ import java.util.List;
  * 8 - Repeat after 45 days
  * 9 - Repeat after 60 days
  * >9 - Repeat after 90 days
+ * The sequence can be replaced with the property card2brain.repetition.sequence. Cards which were scheduled with
+ * another sequence are rescheduled by the {@link RescheduleService}.
+ * <p>
+ * A category can have its own sequence, stored in the column repetition_sequence. The sequences of all categories are
+ * compiled into int arrays and kept in an open addressing table keyed by the category id, which is loaded with one query
+ * and dropped when a sequence is changed. The current day is cached as an epoch day together with the milliseconds
+ * at which it starts and ends, so a lookup of the next repetition date reads the clock and allocates only the resulting date.
  *
  * @author Niklaus Hänggi
  * @author Alexander Studer
@@ -34,11 +46,24 @@ import java.util.List;
 @Service
 public class RepetitionServiceImpl implements RepetitionService {
 
-    private final List<Integer> repetitionSequence = new ArrayList<>();
+    private static final long[] NO_CATEGORIES = new long[0];
+
+    private int[] repetitionDays;
 
     @Autowired
     private Clock clock;
 
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    // null if not loaded
+    private volatile CategorySequences categorySequences;
+
+    // incremented by every change of a sequence, guarded by this
+    private long sequenceChanges;
+
+    private volatile Today today;
+
 
     public RepetitionServiceImpl() {
         fillRepetitionSequence();
@@ -60,28 +85,178 @@ public class RepetitionServiceImpl implements RepetitionService {
         >9  |      wird nach  90 Tagen wieder repetiert
         ------------------------------------------------------------- */
 
-        this.repetitionSequence.add(0);
-        this.repetitionSequence.add(2);
-        this.repetitionSequence.add(3);
-        this.repetitionSequence.add(5);
-        this.repetitionSequence.add(7);
-        this.repetitionSequence.add(9);
-        this.repetitionSequence.add(14);
-        this.repetitionSequence.add(30);
-        this.repetitionSequence.add(45);
-        this.repetitionSequence.add(60);
-        this.repetitionSequence.add(90);
+        this.repetitionDays = new int[]{0, 2, 3, 5, 7, 9, 14, 30, 45, 60, 90};
+    }
+
+    /**
+     * Replaces the repetition sequence with the configured one.
+     *
+     * @param repetitionSequence the days until the next repetition, indexed by the number of correct answers in a row
+     */
+    @Autowired
+    public void setRepetitionSequence(@Value("${card2brain.repetition.sequence:0,2,3,5,7,9,14,30,45,60,90}") List<Integer> repetitionSequence) {
+        if (repetitionSequence.isEmpty()) {
+            throw new IllegalArgumentException("The repetition sequence must not be empty");
+        }
+        this.repetitionDays = repetitionSequence.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public List<Integer> getRepetitionSequence() {
+        return Arrays.stream(repetitionDays).boxed().toList();
     }
 
     public LocalDate getNextRepetitionDate(int correctAnswersInRow) {
+        return nextDate(repetitionDays, todayEpochDay(), correctAnswersInRow);
+    }
+
+    public LocalDate getNextRepetitionDate(long categoryId, int correctAnswersInRow) {
+        return nextDate(getRepetitionDays(categoryId), todayEpochDay(), correctAnswersInRow);
+    }
+
+    public LocalDate[] getNextRepetitionDates() {
+        return getNextRepetitionDates(LocalDate.ofEpochDay(todayEpochDay()));
+    }
+
+    public LocalDate[] getNextRepetitionDates(LocalDate day) {
+        return nextDates(repetitionDays, day);
+    }
+
+    public LocalDate[] getNextRepetitionDates(long categoryId, LocalDate day) {
+        return nextDates(getRepetitionDays(categoryId), day);
+    }
+
+    public int[] getRepetitionDays(long categoryId) {
+        int[] days = loadCategorySequences().get(categoryId);
+        return days != null ? days : repetitionDays;
+    }
+
+    public boolean hasCategorySequences() {
+        return loadCategorySequences().size() > 0;
+    }
+
+    public void repetitionSequenceChanged(long categoryId) {
+        dropCategorySequences();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dropCategorySequences(); // a load during the transaction still read the old sequence
+                }
+            });
+        }
+    }
+
+    /**
+     * Parses a stored repetition sequence.
+     *
+     * @param repetitionSequence the comma separated days per number of correct answers in a row
+     * @return the days, indexed by the number of correct answers in a row
+     */
+    static int[] compile(String repetitionSequence) {
+        return Arrays.stream(repetitionSequence.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static LocalDate nextDate(int[] days, long epochDay, int correctAnswersInRow) {
+        return LocalDate.ofEpochDay(epochDay + days[Math.min(correctAnswersInRow, days.length - 1)]);
+    }
+
+    private static LocalDate[] nextDates(int[] days, LocalDate day) {
+        LocalDate[] nextRepetitionDates = new LocalDate[days.length];
+        for (int i = 0; i < nextRepetitionDates.length; i++) {
+            nextRepetitionDates[i] = day.plusDays(days[i]);
+        }
+        return nextRepetitionDates;
+    }
 
-        LocalDate nextRepetitionDate;
-        if (correctAnswersInRow >= repetitionSequence.size()) {
-            nextRepetitionDate = LocalDate.now(clock).plusDays(repetitionSequence.get(repetitionSequence.size() - 1));
-        } else {
-            nextRepetitionDate = LocalDate.now(clock).plusDays(repetitionSequence.get(correctAnswersInRow));
+    private long todayEpochDay() {
+        long millis = clock.millis();
+        Today cached = today;
+        if (cached == null || millis < cached.startMillis() || millis >= cached.endMillis()) {
+            LocalDate day = LocalDate.now(clock);
+            ZoneId zone = clock.getZone();
+            cached = new Today(day.toEpochDay(), day.atStartOfDay(zone).toInstant().toEpochMilli(), day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            today = cached;
         }
-        return nextRepetitionDate;
+        return cached.epochDay();
     }
 
+    private CategorySequences loadCategorySequences() {
+        CategorySequences sequences = categorySequences;
+        if (sequences != null) {
+            return sequences;
+        }
+        long changesBeforeLoad;
+        synchronized (this) {
+            changesBeforeLoad = sequenceChanges;
+        }
+        sequences = new CategorySequences(categoryRepository.findRepetitionSequences());
+        synchronized (this) {
+            if (sequenceChanges == changesBeforeLoad) {
+                categorySequences = sequences;
+            }
+        }
+        return sequences; // a sequence changed during the load, the loaded sequences are used for the running call only
+    }
+
+    private synchronized void dropCategorySequences() {
+        sequenceChanges++;
+        categorySequences = null;
+    }
+
+    /**
+     * The current day, valid from startMillis inclusive to endMillis exclusive.
+     */
+    private record Today(long epochDay, long startMillis, long endMillis) {
+    }
+
+    /**
+     * The compiled sequences of the categories in an open addressing table with linear probing, so a lookup boxes no key.
+     */
+    private static final class CategorySequences {
+
+        private final long[] categoryIds;
+        private final int[][] days;
+        private final int size;
+
+        private CategorySequences(List<Object[]> sequences) {
+            size = sequences.size();
+            if (size == 0) {
+                categoryIds = NO_CATEGORIES;
+                days = new int[0][];
+                return;
+            }
+            int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+            categoryIds = new long[capacity];
+            days = new int[capacity][];
+            for (Object[] sequence : sequences) {
+                long categoryId = (Long) sequence[0];
+                int slot = slot(categoryId);
+                while (days[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                categoryIds[slot] = categoryId;
+                days[slot] = compile((String) sequence[1]);
+            }
+        }
+
+        private int[] get(long categoryId) {
+            if (size == 0) {
+                return null;
+            }
+            for (int slot = slot(categoryId); days[slot] != null; slot = (slot + 1) & (categoryIds.length - 1)) {
+                if (categoryIds[slot] == categoryId) {
+                    return days[slot];
+                }
+            }
+            return null;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int slot(long categoryId) {
+            return (int) (categoryId * 0x9E3779B97F4A7C15L >>> 33) & (categoryIds.length - 1);
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package ch.zhaw.card2brain.services;
+
+/**
+ * RescheduleService defines the bulk rescheduling of the cards after the repetition sequence was changed.
+ * The next repetition date of every card is computed again from its number of correct answers in a row
+ * and the day of its last answer, with the configured repetition sequence.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public interface RescheduleService {
+
+    /**
+     * The progress of the rescheduling.
+     *
+     * @param sequence   the repetition sequence the cards are rescheduled with
+     * @param lastCardId the id of the last rescheduled card
+     * @param processed  the number of cards read so far
+     * @param updated    the number of cards changed so far
+     * @param running    whether the job is running
+     */
+    record Progress(String sequence, long lastCardId, long processed, long updated, boolean running) {
+    }
+
+    /**
+     * Starts the rescheduling in the background if the cards were scheduled with another repetition sequence
+     * or if an earlier job was interrupted.
+     */
+    void rescheduleIfSequenceChanged();
+
+    /**
+     * Reschedules all cards with the configured repetition sequence. An interrupted job for the same
+     * sequence is continued after its checkpoint.
+     *
+     * @return the progress of the finished job
+     */
+    Progress reschedule();
+
+    /**
+     * Gets the progress of the running or of the last job.
+     *
+     * @return the progress
+     */
+    Progress getProgress();
+}
@@ -0,0 +1,248 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.repository.CardRepository;
+import ch.zhaw.card2brain.repository.CardRepositoryCustom.Schedule;
+import ch.zhaw.card2brain.repository.RescheduleCheckpointRepository;
+import ch.zhaw.card2brain.repository.RescheduleCheckpointRepository.Checkpoint;
+import ch.zhaw.card2brain.util.HasLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+/**
+ * RescheduleServiceImpl is the implementation of the {@link RescheduleService} interface.
+ * <p>
+ * The cards are read in id order with a keyset query, in chunks of card2brain.reschedule.chunk-size cards, so the job
+ * holds no lock on the card table and only one segment of chunks is in memory. The chunks of a segment are rescheduled in
+ * parallel on a fork-join pool of card2brain.reschedule.parallelism threads, each chunk writes its changed cards with one JDBC batch.
+ * After a segment the checkpoint is advanced to its last card; a job which is interrupted continues there, rescheduling
+ * a card twice gives the same date. Cards which are answered while the job runs already get the date of the new sequence
+ * and are not changed by the job. Cards of categories with their own repetition sequence are computed with that sequence.
+ * With load smoothing enabled the dates are smoothed by the {@link DueDateSmoother} like the dates of answers, so a
+ * card rescheduled twice may get another day of its window.
+ * <p>
+ * At startup the job is started in the background if the sequence of the checkpoint is not the configured one.
+ * A database without a checkpoint is recorded as scheduled with the configured sequence.
+ * When the job is done, the counters of the categories are counted again and the due card index is cleared.
+ * The progress is logged per segment and published as the gauges card2brain.reschedule.processed and card2brain.reschedule.updated.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Service
+public class RescheduleServiceImpl implements RescheduleService, HasLogger {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private RescheduleCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private RepetitionService repetitionService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private DueCardIndex dueCardIndex;
+
+    @Autowired
+    private DueDateSmoother dueDateSmoother;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card2brain.reschedule.enabled:true}")
+    private boolean enabled;
+
+    @Value("${card2brain.reschedule.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${card2brain.reschedule.parallelism:4}")
+    private int parallelism;
+
+    private ForkJoinPool reschedulePool;
+
+    private ExecutorService jobExecutor;
+
+    private volatile Progress progress = new Progress("", 0, 0, 0, false);
+
+    private final Object jobLock = new Object();
+
+    /**
+     * Starts the pools of the job and registers the progress gauges.
+     */
+    @PostConstruct
+    public void startPools() {
+        reschedulePool = new ForkJoinPool(parallelism);
+        jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-reschedule");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("card2brain.reschedule.processed", this, service -> service.getProgress().processed()).description("Cards read by the rescheduling").register(meterRegistry);
+        Gauge.builder("card2brain.reschedule.updated", this, service -> service.getProgress().updated()).description("Cards changed by the rescheduling").register(meterRegistry);
+    }
+
+    /**
+     * Stops the pools, a running job is interrupted and continues from its checkpoint with the next start.
+     */
+    @PreDestroy
+    public void stopPools() {
+        jobExecutor.shutdownNow();
+        reschedulePool.shutdownNow();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescheduleIfSequenceChanged() {
+        if (!enabled) {
+            return;
+        }
+        String sequence = configuredSequence();
+        Optional<Checkpoint> checkpoint = checkpointRepository.find();
+        if (checkpoint.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            checkpointRepository.start(sequence, now, now);
+            return;
+        }
+        if (checkpoint.get().sequence().equals(sequence) && checkpoint.get().isFinished()) {
+            return;
+        }
+        getLogger().info("Cards are scheduled with the repetition sequence " + checkpoint.get().sequence() + ", rescheduling them with " + sequence);
+        jobExecutor.submit(() -> {
+            try {
+                reschedule();
+            } catch (RuntimeException e) {
+                getLogger().error("Rescheduling the cards failed, it continues from the checkpoint with the next start", e);
+            }
+        });
+    }
+
+    @Override
+    public Progress reschedule() {
+        synchronized (jobLock) {
+            String sequence = configuredSequence();
+            Optional<Checkpoint> checkpoint = checkpointRepository.find().filter(c -> c.sequence().equals(sequence) && !c.isFinished());
+            long afterId = 0;
+            long processed = 0;
+            long updated = 0;
+            if (checkpoint.isPresent()) {
+                afterId = checkpoint.get().lastCardId();
+                processed = checkpoint.get().processed();
+                updated = checkpoint.get().updated();
+                getLogger().info("Rescheduling continues after card " + afterId + ", " + processed + " cards were read");
+            } else {
+                checkpointRepository.start(sequence, LocalDateTime.now(clock), null);
+            }
+            Map<Long, DueDateSmoother.Projection> projections = new ConcurrentHashMap<>();
+            try {
+                progress = new Progress(sequence, afterId, processed, updated, true);
+                boolean lastSegment = false;
+                while (!lastSegment) {
+                    List<List<Schedule>> segment = new ArrayList<>();
+                    long segmentAfterId = afterId;
+                    while (segment.size() < parallelism && !lastSegment) {
+                        List<Schedule> chunk = cardRepository.findSchedulesAfter(segmentAfterId, chunkSize);
+                        if (!chunk.isEmpty()) {
+                            segment.add(chunk);
+                            segmentAfterId = chunk.get(chunk.size() - 1).cardId();
+                        }
+                        lastSegment = chunk.size() < chunkSize;
+                    }
+                    if (segment.isEmpty()) {
+                        break;
+                    }
+                    updated += rescheduleSegment(segment, projections);
+                    processed += segment.stream().mapToInt(List::size).sum();
+                    afterId = segmentAfterId;
+                    checkpointRepository.advance(afterId, processed, updated);
+                    progress = new Progress(sequence, afterId, processed, updated, true);
+                    getLogger().info("Rescheduled " + processed + " cards up to card " + afterId + ", " + updated + " were changed");
+                }
+                checkpointRepository.finish(LocalDateTime.now(clock));
+            } finally {
+                progress = new Progress(sequence, afterId, processed, updated, false);
+            }
+            categoryService.reconcileCounters();
+            dueCardIndex.clear();
+            getLogger().info("Rescheduling with the repetition sequence " + sequence + " is done, " + updated + " of " + processed + " cards were changed");
+            return progress;
+        }
+    }
+
+    @Override
+    public Progress getProgress() {
+        return progress;
+    }
+
+    private int rescheduleSegment(List<List<Schedule>> segment, Map<Long, DueDateSmoother.Projection> projections) {
+        List<ForkJoinTask<Integer>> tasks = segment.stream().map(chunk -> reschedulePool.submit(() -> rescheduleChunk(chunk, projections))).toList();
+        int updated = 0;
+        for (ForkJoinTask<Integer> task : tasks) {
+            updated += task.join();
+        }
+        return updated;
+    }
+
+    /**
+     * Computes the dates of one chunk and writes the changed ones. With load smoothing the date of the sequence is smoothed
+     * with the projection of the owner of the card, which is read once per run and shared by the chunks.
+     */
+    private int rescheduleChunk(List<Schedule> chunk, Map<Long, DueDateSmoother.Projection> projections) {
+        Map<Long, Long> owners = new HashMap<>();
+        if (dueDateSmoother.isEnabled()) {
+            for (Object[] row : cardRepository.findCategoryAndOwnerIdsByIds(chunk.stream().map(Schedule::cardId).toList())) {
+                owners.put((Long) row[0], (Long) row[2]);
+            }
+        }
+        LocalDate today = LocalDate.now(clock);
+        List<Schedule> changed = new ArrayList<>();
+        for (Schedule schedule : chunk) {
+            int[] days = repetitionService.getRepetitionDays(schedule.categoryId());
+            LocalDate answerDay = schedule.answeredLastTime().toLocalDate();
+            LocalDate nextDate = answerDay.plusDays(days[Math.min(schedule.correctAnswersInRow(), days.length - 1)]);
+            Long ownerId = owners.get(schedule.cardId());
+            if (ownerId != null) {
+                DueDateSmoother.Projection projection = projections.computeIfAbsent(ownerId, owner -> dueDateSmoother.project(owner, today, today.plusDays(days[days.length - 1])));
+                nextDate = dueDateSmoother.smooth(projection, nextDate, answerDay, schedule.nextDateToRepeat());
+            }
+            if (!nextDate.equals(schedule.nextDateToRepeat())) {
+                changed.add(new Schedule(schedule.cardId(), schedule.categoryId(), schedule.correctAnswersInRow(), schedule.answeredLastTime(), nextDate));
+            }
+        }
+        return changed.isEmpty() ? 0 : cardRepository.rescheduleCards(changed);
+    }
+
+    private String configuredSequence() {
+        return repetitionService.getRepetitionSequence().stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,296 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.model.Learn;
+import ch.zhaw.card2brain.util.HasLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * ReviewJournal is a local append-only file of answered cards, used by the write-behind mode of the learn path.
+ * <p>
+ * The journal is split into segments. Answers are appended to the active segment and are durable when
+ * {@link #append(long, boolean)} returns. Threads which append at the same time share one fsync: the first thread
+ * forces the file for all records written so far, the others find their record already forced.
+ * {@link #seal()} closes the active segment and hands its answers to the caller, which deletes the segment
+ * once the answers are in the database. Segments which are still on disk at startup are returned by {@link #recover()}.
+ * <p>
+ * Every record carries a checksum, so a record which was only partly written before a crash ends the replay of its segment.
+ * Answer times are unique and increasing, which allows the database to skip answers it already has.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public class ReviewJournal implements Closeable, HasLogger {
+
+    private static final String SEGMENT_PREFIX = "reviews-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    // cardId, answeredAt seconds, answeredAt nanos, correct, checksum
+    private static final int RECORD_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES + 1 + Integer.BYTES;
+    private static final int CHECKED_SIZE = RECORD_SIZE - Integer.BYTES;
+
+    private final Path directory;
+    private final Clock clock;
+    private final List<Path> recoveredSegments;
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    // guarded by appendLock
+    private FileChannel activeChannel;
+    private Path activeSegment;
+    private long activeSequence;
+    private List<Learn> activeLearns = new ArrayList<>();
+    private long appended;
+    private LocalDateTime lastAnsweredAt = LocalDateTime.MIN;
+
+    // guarded by syncLock
+    private long synced;
+
+    /**
+     * A closed segment of the journal together with the answers it contains.
+     *
+     * @param path   the file of the segment
+     * @param learns the answers in the order they were given
+     */
+    public record Segment(Path path, List<Learn> learns) {
+
+        /**
+         * Deletes the segment, after its answers have been written to the database.
+         */
+        public void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Opens the journal in the specified directory and starts a new active segment.
+     * Segments of an earlier run are kept for {@link #recover()}.
+     *
+     * @param directory the directory of the journal, created if it does not exist
+     * @param clock     the clock for the answer times
+     * @throws IOException if the directory or the active segment can not be created
+     */
+    public ReviewJournal(Path directory, Clock clock) throws IOException {
+        this.directory = directory;
+        this.clock = clock;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            recoveredSegments = files.filter(ReviewJournal::isSegment).sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b))).toList();
+        }
+        long nextSequence = recoveredSegments.isEmpty() ? 1 : sequenceOf(recoveredSegments.get(recoveredSegments.size() - 1)) + 1;
+        openSegment(nextSequence);
+    }
+
+    /**
+     * Reads the segments which were left on disk by an earlier run, oldest first.
+     *
+     * @return the recovered segments
+     * @throws IOException if a segment can not be read
+     */
+    public List<Segment> recover() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        for (Path segment : recoveredSegments) {
+            segments.add(new Segment(segment, read(segment)));
+        }
+        return segments;
+    }
+
+    /**
+     * Appends an answer to the active segment and waits until it is on disk.
+     *
+     * @param cardId  the id of the answered card
+     * @param correct whether the answer was correct
+     * @return the answer with its answer time
+     */
+    public Learn append(long cardId, boolean correct) {
+        return append(List.of(new Learn(correct, cardId))).get(0);
+    }
+
+    /**
+     * Appends a list of answers to the active segment and waits until they are on disk, with one fsync for all of them.
+     *
+     * @param answers the answers in the order they were given
+     * @return the answers with their answer times
+     */
+    public List<Learn> append(List<Learn> answers) {
+        List<Learn> learns = new ArrayList<>(answers.size());
+        if (answers.isEmpty()) {
+            return learns;
+        }
+        long sequence;
+        synchronized (appendLock) {
+            LocalDateTime now = LocalDateTime.now(clock).truncatedTo(ChronoUnit.MICROS);
+            for (Learn answer : answers) {
+                Learn learn = new Learn(answer.isCorrect(), answer.getCardId());
+                learn.setAnsweredAt(now.isAfter(lastAnsweredAt) ? now : lastAnsweredAt.plus(1, ChronoUnit.MICROS));
+                lastAnsweredAt = learn.getAnsweredAt();
+                write(learn);
+                activeLearns.add(learn);
+                learns.add(learn);
+            }
+            appended += learns.size();
+            sequence = appended;
+        }
+        sync(sequence);
+        return learns;
+    }
+
+    /**
+     * Closes the active segment and starts a new one.
+     *
+     * @return the closed segment, or null if no answer was appended since the last call
+     */
+    public Segment seal() {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if (activeLearns.isEmpty()) {
+                    return null;
+                }
+                try {
+                    activeChannel.force(false);
+                    activeChannel.close();
+                    synced = appended;
+                    Segment sealed = new Segment(activeSegment, activeLearns);
+                    openSegment(activeSequence + 1);
+                    return sealed;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of answers in the active segment.
+     *
+     * @return the number of answers which were not sealed yet
+     */
+    public int size() {
+        synchronized (appendLock) {
+            return activeLearns.size();
+        }
+    }
+
+    /**
+     * Forces and closes the active segment, which is deleted if it is empty.
+     *
+     * @throws IOException if the segment can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                activeChannel.force(false);
+                activeChannel.close();
+                if (activeLearns.isEmpty()) {
+                    Files.deleteIfExists(activeSegment);
+                }
+            }
+        }
+    }
+
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return; // forced by another thread
+            }
+            long target;
+            FileChannel channel;
+            synchronized (appendLock) {
+                target = appended;
+                channel = activeChannel;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synced = target;
+        }
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        activeSequence = sequence;
+        activeSegment = directory.resolve(SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+        activeChannel = FileChannel.open(activeSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeLearns = new ArrayList<>();
+    }
+
+    private void write(Learn learn) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(learn.getCardId());
+        record.putLong(learn.getAnsweredAt().toEpochSecond(ZoneOffset.UTC));
+        record.putInt(learn.getAnsweredAt().getNano());
+        record.put((byte) (learn.isCorrect() ? 1 : 0));
+        record.putInt(checksum(record.array()));
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                activeChannel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Learn> read(Path segment) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<Learn> learns = new ArrayList<>();
+        while (records.remaining() >= RECORD_SIZE) {
+            byte[] checked = new byte[CHECKED_SIZE];
+            records.get(checked);
+            if (records.getInt() != checksum(checked)) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.wrap(checked);
+            long cardId = record.getLong();
+            LocalDateTime answeredAt = LocalDateTime.ofEpochSecond(record.getLong(), record.getInt(), ZoneOffset.UTC);
+            Learn learn = new Learn(record.get() == 1, cardId);
+            learn.setAnsweredAt(answeredAt);
+            learns.add(learn);
+        }
+        if (records.hasRemaining()) {
+            getLogger().warn("Review journal " + segment + " ends with an incomplete record, replayed " + learns.size() + " answers");
+        }
+        return learns;
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, CHECKED_SIZE);
+        return (int) crc.getValue();
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
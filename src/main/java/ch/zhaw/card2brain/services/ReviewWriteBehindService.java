@@ -0,0 +1,48 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.model.Learn;
+
+import java.util.List;
+
+/**
+ * ReviewWriteBehindService defines the write-behind mode of the learn path.
+ * Answers are acknowledged as soon as they are in the local review journal and are written to the database later in batches.
+ * The mode is enabled with the property card2brain.learn.write-behind.enabled. While it is enabled, every answer has to
+ * go through the journal: an answer written to the card directly would be newer than the journaled answers to the same card,
+ * which would then be skipped as replays when the journal is written.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+public interface ReviewWriteBehindService {
+
+    /**
+     * Appends an answer to the review journal. The answer is on disk when the method returns.
+     *
+     * @param cardId  the id of the answered card
+     * @param correct whether the answer was correct
+     */
+    void cardWasShown(long cardId, boolean correct);
+
+    /**
+     * Appends a list of answers to the review journal with one fsync. The answers are on disk when the method returns.
+     *
+     * @param learns the answers in the order they were given
+     */
+    void cardsWereShown(List<Learn> learns);
+
+    /**
+     * Writes all journaled answers to the database and deletes their journal segments.
+     */
+    void flush();
+
+    /**
+     * Gets the number of answers which are journaled but not yet written to the database.
+     *
+     * @return the number of pending answers
+     */
+    int getDepth();
+}
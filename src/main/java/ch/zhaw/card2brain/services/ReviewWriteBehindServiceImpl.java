@@ -0,0 +1,172 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.model.Learn;
+import ch.zhaw.card2brain.util.HasLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReviewWriteBehindServiceImpl is the implementation of the {@link ReviewWriteBehindService} interface.
+ * <p>
+ * Answers are appended to a {@link ReviewJournal}. A scheduled flusher seals the active journal segment and writes
+ * its answers with {@link CardService#repeatedIfNewer(List)} in batches; the segment is deleted after the batches are committed.
+ * If the database is not available, the segment is kept and written with the next flush.
+ * Segments left by a crash are replayed at startup, answers which already reached the database are skipped.
+ * On a graceful shutdown all answers are flushed.
+ * <p>
+ * The number of pending answers is published as the gauge card2brain.learn.write_behind.depth,
+ * the duration of a segment flush as the timer card2brain.learn.write_behind.flush.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Service
+@ConditionalOnProperty(name = "card2brain.learn.write-behind.enabled", havingValue = "true")
+public class ReviewWriteBehindServiceImpl implements ReviewWriteBehindService, HasLogger {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card2brain.learn.write-behind.journal-directory:journal}")
+    private String journalDirectory;
+
+    @Value("${card2brain.learn.write-behind.batch-size:1000}")
+    private int batchSize;
+
+    private ReviewJournal journal;
+
+    private Timer flushTimer;
+
+    private boolean closed;
+
+    // guarded by flushLock
+    private final Deque<ReviewJournal.Segment> sealedSegments = new ArrayDeque<>();
+
+    private final AtomicInteger sealedDepth = new AtomicInteger();
+
+    private final Object flushLock = new Object();
+
+    /**
+     * Opens the review journal and writes the answers left by an earlier run to the database.
+     *
+     * @throws IOException if the journal can not be opened or read
+     */
+    @PostConstruct
+    public void replayJournal() throws IOException {
+        journal = new ReviewJournal(Path.of(journalDirectory), clock);
+        flushTimer = Timer.builder("card2brain.learn.write_behind.flush").description("Duration of writing one journal segment to the database").register(meterRegistry);
+        Gauge.builder("card2brain.learn.write_behind.depth", this, ReviewWriteBehindService::getDepth).description("Answers which are journaled but not yet written to the database").register(meterRegistry);
+
+        for (ReviewJournal.Segment segment : journal.recover()) {
+            addSealed(segment);
+        }
+        if (sealedDepth.get() > 0) {
+            getLogger().info("Replaying " + sealedDepth.get() + " answers from the review journal");
+            flush();
+        }
+    }
+
+    @Override
+    public void cardWasShown(long cardId, boolean correct) {
+        journal.append(cardId, correct);
+    }
+
+    @Override
+    public void cardsWereShown(List<Learn> learns) {
+        journal.append(learns);
+    }
+
+    /**
+     * Writes the answers of all sealed segments and of the active segment to the database.
+     * A failed segment is kept and retried with the next flush.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${card2brain.learn.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (closed) {
+                return;
+            }
+            ReviewJournal.Segment active = journal.seal();
+            if (active != null) {
+                addSealed(active);
+            }
+            try {
+                while (!sealedSegments.isEmpty()) {
+                    ReviewJournal.Segment segment = sealedSegments.peek();
+                    flushTimer.record(() -> write(segment.learns()));
+                    segment.delete();
+                    sealedSegments.remove();
+                    sealedDepth.addAndGet(-segment.learns().size());
+                }
+            } catch (RuntimeException e) {
+                getLogger().error("Writing the review journal failed, " + sealedDepth.get() + " answers are retried with the next flush", e);
+            }
+        }
+    }
+
+    @Override
+    public int getDepth() {
+        return journal.size() + sealedDepth.get();
+    }
+
+    /**
+     * Flushes all answers and closes the review journal on a graceful shutdown.
+     * Answers which can not be written stay in the journal and are replayed at the next start.
+     *
+     * @throws IOException if the journal can not be closed
+     */
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        synchronized (flushLock) {
+            closed = true;
+            journal.close();
+        }
+    }
+
+    private void addSealed(ReviewJournal.Segment segment) {
+        sealedSegments.add(segment);
+        sealedDepth.addAndGet(segment.learns().size());
+    }
+
+    private void write(List<Learn> learns) {
+        int skipped = 0;
+        for (int from = 0; from < learns.size(); from += batchSize) {
+            boolean[] updated = cardService.repeatedIfNewer(learns.subList(from, Math.min(from + batchSize, learns.size())));
+            for (boolean cardUpdated : updated) {
+                if (!cardUpdated) {
+                    skipped++;
+                }
+            }
+        }
+        if (skipped > 0) {
+            getLogger().info("Skipped " + skipped + " journaled answers, the card does not exist or has a newer answer");
+        }
+    }
+}
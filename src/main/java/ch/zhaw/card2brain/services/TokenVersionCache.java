@@ -0,0 +1,124 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TokenVersionCache keeps the token versions of the active users in memory, so a request is authenticated from the
+ * claims of its token without reading the user.
+ * <p>
+ * The version of a user is read with one query the first time it is needed and kept for card2brain.jwt.token-version-ttl,
+ * so a change made by another instance is seen within that time; the least recently used users are evicted.
+ * A deleted user has no version, their tokens are rejected. {@link UserServiceImpl} removes a user after the change of
+ * their mail address, their password or their deletion has been committed.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@Component
+public class TokenVersionCache {
+
+    // version of a user which does not exist, no token has it
+    private static final int NO_USER = -1;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final long ttlNanos;
+
+    private final Map<Long, CachedVersion> versions;
+
+    // incremented by every change of a user, a version loaded during a change is not kept
+    private long changes;
+
+    /**
+     * The token version of a user and the time it was read.
+     *
+     * @param version  the token version, {@link #NO_USER} for a user which does not exist
+     * @param loadedAt the time it was read, from {@link System#nanoTime()}
+     */
+    private record CachedVersion(int version, long loadedAt) {
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxUsers the number of users kept in memory
+     * @param ttl      the time a version is kept
+     */
+    public TokenVersionCache(@Value("${card2brain.jwt.token-version-cache-size:10000}") int maxUsers,
+                             @Value("${card2brain.jwt.token-version-ttl:60s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        versions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedVersion> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Checks whether a token with the specified version of a user is still accepted.
+     *
+     * @param userId       the id of the user of the token
+     * @param tokenVersion the token version in the token
+     * @return true if the user exists and the version is the current version of the user
+     */
+    public boolean isCurrent(long userId, int tokenVersion) {
+        return tokenVersion != NO_USER && getVersion(userId) == tokenVersion;
+    }
+
+    /**
+     * Removes a user after the running transaction is committed, so their version is read again by the next request.
+     *
+     * @param userId the id of the user
+     */
+    public void userChanged(long userId) {
+        Runnable change = () -> {
+            synchronized (this) {
+                versions.remove(userId);
+                changes++;
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private int getVersion(long userId) {
+        long changesBeforeLoad;
+        synchronized (this) {
+            CachedVersion cached = versions.get(userId);
+            if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+                return cached.version();
+            }
+            changesBeforeLoad = changes;
+        }
+        Integer loaded = userRepository.findTokenVersionById(userId);
+        int version = loaded == null ? NO_USER : loaded;
+        synchronized (this) {
+            if (changes == changesBeforeLoad) {
+                versions.put(userId, new CachedVersion(version, System.nanoTime()));
+            }
+        }
+        return version;
+    }
+}
@@ -52,13 +52,21 @@ public interface UserService {
     User getUser(User user) throws UserNotFoundException;
 
     /**
-     * Method to delete a User.
+     * Method to delete a User with their categories and cards.
+     * A User with many cards is only marked as deleted, their data is removed by {@link #purgeDeletedUsers()}.
      *
      * @param user The User object to be deleted.
      * @return The deleted User object.
      */
     User delete(User user);
 
+    /**
+     * Method to remove the data of the Users marked as deleted, in chunks of cards which are committed one by one.
+     *
+     * @return The number of removed Users.
+     */
+    int purgeDeletedUsers();
+
     /**
      * Method to add a new User.
      *
@@ -2,12 +2,17 @@ package ch.zhaw.card2brain.services;
 
 import ch.zhaw.card2brain.exception.*;
 import ch.zhaw.card2brain.model.User;
+import ch.zhaw.card2brain.repository.CardRepository;
 import ch.zhaw.card2brain.repository.UserRepository;
 import ch.zhaw.card2brain.util.HasLogger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -29,9 +34,29 @@ public class UserServiceImpl implements UserService, HasLogger {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CardRepository cardRepository;
+
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${card2brain.user-delete.max-cards:10000}")
+    private long maxCardsToDeleteAtOnce;
+
+    @Value("${card2brain.user-delete.purge-chunk-size:1000}")
+    private int purgeChunkSize;
+
+    private final Object purgeLock = new Object();
+
 
     /**
      * Adds a new user to the database.
@@ -66,12 +91,13 @@ public class UserServiceImpl implements UserService, HasLogger {
 
     @Override
     public List<User> findAll() {
-        return userRepository.findAll();
+        return userRepository.findAllByDeletedAtIsNull();
     }
 
 
     /**
      * updates an existing user in the database.
+     * A change of the mail address or the password increments the token version of the user, which revokes their tokens.
      *
      * @param user A DTO representing the user to be updated.
      * @return The updated user as a DTO.
@@ -85,18 +111,26 @@ public class UserServiceImpl implements UserService, HasLogger {
     @Transactional
     public User updateUser(User user) throws RuntimeException {
         User userInDB = this.getUser(user);//throws exception
+        boolean credentialsChanged = false;
         if (!user.getMailAddress().contentEquals(userInDB.getMailAddress())) {
             isMailValid(user.getMailAddress());//throws exception
             isMailAddressAlreadyTaken(user.getMailAddress());//throws exception
             userInDB.setMailAddress(user.getMailAddress());
+            credentialsChanged = true;
         }
         if (user.getPassword() != null) {
             isPasswordValid(user.getPassword());//throws exception
             userInDB.setPassword(user.getPassword());
+            credentialsChanged = true;
         }
         userInDB.setUserName(user.getUserName());
         userInDB.setFirstName(user.getFirstName());
         userRepository.save(userInDB);
+        if (credentialsChanged) {
+            // the tokens issued with the former mail address or password are no longer accepted
+            userRepository.incrementTokenVersion(userInDB.getId());
+            tokenVersionCache.userChanged(userInDB.getId());
+        }
         getLogger().info("User updated from: Mail :" + user.getMailAddress() + " Username :" + user.getUserName() + " Firstname :" + user.getFirstName());
         getLogger().info("User updated  to : Mail :" + userInDB.getMailAddress() + " Username :" + userInDB.getUserName() + " Firstname :" + userInDB.getFirstName());
         return userInDB;
@@ -124,7 +158,10 @@ public class UserServiceImpl implements UserService, HasLogger {
 
     /**
      * Deletes a given user from the database.
-     * Also deletes all categories associated with the user before deleting the user itself.
+     * A user with at most card2brain.user-delete.max-cards cards is deleted at once with one DELETE statement each
+     * for their cards, their categories and the user itself.
+     * A user with more cards is only marked as deleted, which releases their mail address and ends their login,
+     * the data is removed in the background by {@link #purgeDeletedUsers()}.
      * Logs the deleted user's details (email, username, and first name).
      * Returns the deleted user's details.
      *
@@ -135,13 +172,57 @@ public class UserServiceImpl implements UserService, HasLogger {
     @Transactional
     public User delete(User user) {
         User userOnDb = this.getUser(user);//throws exception
-        categoryService.getAllCategoriesOfUser(user).forEach(category -> categoryService.delete(category));
-        getLogger().info("User deleted : Mail :" + user.getMailAddress() + " Username :" + user.getUserName() + " Firstname :" + user.getFirstName());
-        userRepository.delete(user);
+        long cards = cardRepository.countCardsOfOwner(userOnDb.getId());
+        tokenVersionCache.userChanged(userOnDb.getId());
+        if (cards <= maxCardsToDeleteAtOnce) {
+            cardService.deleteCardsOfAUser(userOnDb, Integer.MAX_VALUE);
+            categoryService.deleteCategoriesOfAUser(userOnDb);
+            userRepository.deleteUserById(userOnDb.getId());
+            getLogger().info("User deleted : Mail :" + user.getMailAddress() + " Username :" + user.getUserName() + " Firstname :" + user.getFirstName());
+        } else {
+            userRepository.markDeleted(userOnDb.getId(), LocalDateTime.now(clock));
+            getLogger().info("User marked as deleted : Mail :" + user.getMailAddress() + " Username :" + user.getUserName() + " Firstname :" + user.getFirstName() + " Cards :" + cards);
+        }
 
         return userOnDb;
     }
 
+    /**
+     * Removes the data of the users marked as deleted, oldest deletion first.
+     * The cards are deleted in chunks of card2brain.user-delete.purge-chunk-size cards, each chunk in its own transaction,
+     * then the categories and the user. A purge which is interrupted continues with the next run.
+     *
+     * @return the number of removed users
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${card2brain.user-delete.purge-interval-ms:10000}")
+    public int purgeDeletedUsers() {
+        synchronized (purgeLock) {
+            int purged = 0;
+            for (long userId : userRepository.findDeletedUserIds()) {
+                User user = userRepository.findById(userId).orElse(null);
+                if (user == null) {
+                    continue;
+                }
+                try {
+                    long cards = 0;
+                    int deleted;
+                    do {
+                        deleted = cardService.deleteCardsOfAUser(user, purgeChunkSize);
+                        cards += deleted;
+                    } while (deleted == purgeChunkSize);
+                    categoryService.deleteCategoriesOfAUser(user);
+                    userRepository.deleteUserById(userId);
+                    purged++;
+                    getLogger().info("User purged : User Id :" + userId + " Cards :" + cards);
+                } catch (RuntimeException e) {
+                    getLogger().error("Purging User " + userId + " failed, it continues with the next run", e);
+                }
+            }
+            return purged;
+        }
+    }
+
     /**
      * This method checks if a user with the provided userId exists in the userRepository.
      *
@@ -0,0 +1,3 @@
+-- CardRepository: cards of a category that are due for repetition
+create index idx_card_category_next_date on card (category_id, next_date_to_repeat);
+-- CategoryRepository.findCategoriesByOwner uses the index h2 creates for the foreign key on category.owner_id
@@ -0,0 +1,2 @@
+-- CardRepository keyset pages: seek by category and card id, already ordered by id
+create index idx_card_category_id on card (category_id, id);
@@ -0,0 +1,10 @@
+-- Materialized counters per category, maintained by the card service and repaired by the reconciliation job.
+-- The number of cards to repeat is not stored, it is counted on the index on (category_id, next_date_to_repeat)
+-- when it is read, or taken from the due card index when that is enabled.
+alter table category add column card_count integer default 0 not null;
+alter table category add column review_count integer default 0 not null;
+
+-- Backfill the counters of the existing categories, the same statement the reconciliation job runs.
+update category set
+    card_count = (select count(*) from card k where k.category_id = category.id),
+    review_count = (select coalesce(sum(k.counter_right + k.counter_false), 0) from card k where k.category_id = category.id);
@@ -0,0 +1,3 @@
+-- Checkpoint of the bulk rescheduling of the cards, one row with id 1.
+-- sequence is the repetition sequence the cards are scheduled with, finished_at is null while the job is not done.
+create table reschedule_checkpoint (id integer not null, sequence varchar(255) not null, last_card_id bigint not null, processed bigint not null, updated bigint not null, started_at timestamp(6) not null, finished_at timestamp(6), primary key (id));
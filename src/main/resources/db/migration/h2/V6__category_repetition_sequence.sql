@@ -0,0 +1,2 @@
+-- Repetition sequence of a category as comma separated days per number of correct answers in a row, null for the configured default sequence.
+alter table category add column repetition_sequence varchar(255);
@@ -0,0 +1,14 @@
+-- Schema as it was created by hibernate (ddl-auto=update) before the migrations were introduced
+create table card2brain_user (id bigint not null, first_name varchar(255), mail_address varchar(255), password varchar(255), role varchar(255), user_name varchar(255), primary key (id)) engine=InnoDB;
+create table card2brain_user_seq (next_val bigint) engine=InnoDB;
+insert into card2brain_user_seq values ( 1 );
+create table category (id bigint not null, category_name varchar(255), owner_id bigint, primary key (id)) engine=InnoDB;
+create table category_seq (next_val bigint) engine=InnoDB;
+insert into category_seq values ( 1 );
+create table card (id bigint not null, answer varchar(255), answered_last_time datetime(6), correct_answers_in_row integer not null, counter_false integer not null, counter_right integer not null, next_date_to_repeat date, question varchar(255), category_id bigint, primary key (id)) engine=InnoDB;
+create table card_seq (next_val bigint) engine=InnoDB;
+insert into card_seq values ( 1 );
+
+alter table card2brain_user add constraint UK_ne90wlrigixatdhhlhraibtdk unique (mail_address);
+alter table card add constraint FKboxg8vi3gmvj54cgmks4mc88r foreign key (category_id) references category (id);
+alter table category add constraint FKgcfwyo3l9ppgg4b43q3w5l189 foreign key (owner_id) references card2brain_user (id);
@@ -0,0 +1,4 @@
+-- CardRepository: cards of a category that are due for repetition
+create index idx_card_category_next_date on card (category_id, next_date_to_repeat);
+-- CategoryRepository.findCategoriesByOwner, replaces the index InnoDB created implicitly for the foreign key
+create index idx_category_owner on category (owner_id);
@@ -0,0 +1,2 @@
+-- Time the deletion of a user was requested, null for active users. Users with a time are purged in chunks by the user service.
+alter table card2brain_user add column deleted_at datetime(6);
@@ -0,0 +1,2 @@
+-- Version of the tokens of a user, written into every token and incremented to revoke the issued tokens.
+alter table card2brain_user add column token_version integer default 0 not null;
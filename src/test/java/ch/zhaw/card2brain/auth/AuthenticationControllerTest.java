@@ -21,6 +21,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -69,7 +70,7 @@ class AuthenticationControllerTest extends EmptyDb {
         // check response Token
         JSONObject obj = new JSONObject(response.getContentAsString());
         String token = obj.get("token").toString();
-        String userEmail = jwtService.extractUsername(token);
+        String userEmail = jwtService.verify(token).getSubject();
         assertEquals("nik@laus.com", userEmail);
 
     }
@@ -164,7 +165,7 @@ class AuthenticationControllerTest extends EmptyDb {
 
 
     /**
-     * Test method for {@link AuthenticationController#authenticate(LoginDto)}.
+     * Test method for {@link AuthenticationController#authenticate(LoginDto, jakarta.servlet.http.HttpServletRequest)}.
      * Test to authenticate endpoint by sending a login request with valid loginDto and checking that a valid JWT is returned.
      *
      * @throws Exception
@@ -193,10 +194,36 @@ class AuthenticationControllerTest extends EmptyDb {
         // check response Token
         JSONObject obj = new JSONObject(response.getContentAsString());
         String token = obj.get("token").toString();
-        String userEmail = jwtService.extractUsername(token);
+        String userEmail = jwtService.verify(token).getSubject();
         assertEquals("tokenTestUser@Tests.com", userEmail);
 
     }
 
+    /**
+     * Test method for the login throttling: after the failed attempts allowed per mail address, the next attempt is
+     * rejected with 429 and a Retry-After header, even with the correct password.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAuthenticateIsThrottled() throws Exception {
+        // prepare
+        User user = new User("throttled", "user", "throttled@Tests.com");
+        user.setPassword(passwordEncoder.encode("Password"));
+        userService.addUser(user);
+        LoginDto wrongPassword = new LoginDto(user.getMailAddress(), "Wrong");
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/auth/authenticate").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(wrongPassword)))
+                    .andExpect(status().is4xxClientError());
+        }
 
+        // act
+        MvcResult mvcResult = mockMvc.perform(post("/api/auth/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginDto(user.getMailAddress(), "Password"))))
+                .andExpect(status().isTooManyRequests()).andReturn();
+
+        // assert
+        assertNotNull(mvcResult.getResponse().getHeader("Retry-After"));
+    }
 }
@@ -60,7 +60,7 @@ class AuthenticationServiceTest extends EmptyDb {
         AuthenticationResponse response = authenticationService.register(testUser);
         assertNotNull(response);
         assertNotNull(response.getToken());
-        assertEquals(testUser.getMailAddress(), jwtService.extractUsername(response.getToken()));
+        assertEquals(testUser.getMailAddress(), jwtService.verify(response.getToken()).getSubject());
     }
 
     /**
@@ -75,7 +75,7 @@ class AuthenticationServiceTest extends EmptyDb {
         AuthenticationResponse response = authenticationService.authenticate(loginDto);
         assertNotNull(response);
         assertNotNull(response.getToken());
-        assertEquals(testUser.getMailAddress(), jwtService.extractUsername(response.getToken()));
+        assertEquals(testUser.getMailAddress(), jwtService.verify(response.getToken()).getSubject());
     }
 
     /**
@@ -0,0 +1,53 @@
+package ch.zhaw.card2brain.auth;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.dto.LoginDto;
+import ch.zhaw.card2brain.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the rehash on login: a password stored with another cost than card2brain.password-hashing.strength
+ * is hashed again with the configured cost after a successful login.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = {"card2brain.password-hashing.strength=5", "card2brain.password-hashing.calibrate-on-startup=false"})
+class PasswordRehashTest extends EmptyDb {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    /**
+     * Tests that the hash of a cost 4 password is replaced by a cost 5 hash after the login, and that the password still matches.
+     */
+    @Test
+    void rehashesOnLogin() throws InterruptedException {
+        //arrange
+        User user = new User("rehashUser", "Rehash", "rehash@email.com");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("Password"));
+        user = userRepository.save(user);
+
+        //act
+        AuthenticationResponse response = authenticationService.authenticate(new LoginDto("rehash@email.com", "Password"));
+
+        //assert
+        assertNotNull(response.getToken());
+        String hash = user.getPassword();
+        for (int attempt = 0; attempt < 100 && !hash.startsWith("$2a$05$"); attempt++) {
+            Thread.sleep(50);
+            hash = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        }
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertTrue(new BCryptPasswordEncoder().matches("Password", hash));
+        assertNotNull(authenticationService.authenticate(new LoginDto("rehash@email.com", "Password")).getToken());
+    }
+}
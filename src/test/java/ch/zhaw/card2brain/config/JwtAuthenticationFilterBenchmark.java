@@ -0,0 +1,128 @@
+package ch.zhaw.card2brain.config;
+
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.model.User;
+import ch.zhaw.card2brain.repository.UserRepository;
+import ch.zhaw.card2brain.services.TokenVersionCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JMH benchmark of the JWT verification of an authenticated request. It is not run by the tests; run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ch.zhaw.card2brain.config.JwtAuthenticationFilterBenchmark}
+ * or start {@link #main(String[])} from the IDE.
+ * <p>
+ * formerFilterPath is the former implementation, which decoded the key, built a parser and verified the token three times:
+ * for the username, and for the username and the expiration in the validation.
+ * uncachedFilter runs the filter with a parser built once and one verification per request, cachedFilter
+ * additionally reuses the claims of the verified token. The former path read the user per request, which is stubbed here without
+ * a database; the filter builds the principal from the claims and checks the token version in memory.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET_KEY = "703273357638792F413F4428472B4B6250655368566D597133743677397A2443";
+
+    private User user;
+
+    private String token;
+
+    private JwtAuthenticationFilter uncachedFilter;
+
+    private JwtAuthenticationFilter cachedFilter;
+
+    @Setup
+    public void setUp() {
+        user = TestDataGenerator.GET_DEFAULT_USER();
+        user.setId(1L);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(0);
+        TokenVersionCache tokenVersionCache = new TokenVersionCache(10000, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(tokenVersionCache, "userRepository", userRepository);
+        JwtService uncachedService = new JwtService(0);
+        JwtService cachedService = new JwtService(10000);
+        token = uncachedService.generateToken(user);
+        uncachedFilter = new JwtAuthenticationFilter(uncachedService, tokenVersionCache);
+        cachedFilter = new JwtAuthenticationFilter(cachedService, tokenVersionCache);
+    }
+
+    @Benchmark
+    public boolean formerFilterPath() {
+        String username = parseWithNewParser(token).getSubject();
+        UserDetails userDetails = loadUserByUsername(username);
+        return parseWithNewParser(token).getSubject().equals(userDetails.getUsername()) && !parseWithNewParser(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Authentication uncachedFilter() throws ServletException, IOException {
+        return filter(uncachedFilter);
+    }
+
+    @Benchmark
+    public Authentication cachedFilter() throws ServletException, IOException {
+        return filter(cachedFilter);
+    }
+
+    private Authentication filter(JwtAuthenticationFilter filter) throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categories/");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private UserDetails loadUserByUsername(String username) {
+        // stands in for the query of the user by mail address, which every request made before the principal was built from the claims
+        return user;
+    }
+
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY))).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthenticationFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
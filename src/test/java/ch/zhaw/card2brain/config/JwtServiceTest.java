@@ -0,0 +1,101 @@
+package ch.zhaw.card2brain.config;
+
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link JwtService}: a token is verified once and its claims are reused, a changed token is rejected.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+class JwtServiceTest {
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = TestDataGenerator.GET_DEFAULT_USER();
+        user.setId(42L);
+    }
+
+    /**
+     * Tests that the claims of a verified token are reused and the token is valid.
+     */
+    @Test
+    void verifiedTokenIsCached() {
+        //arrange
+        JwtService jwtService = new JwtService(10);
+        String token = jwtService.generateToken(user);
+
+        //act
+        Claims first = jwtService.verify(token);
+        Claims second = jwtService.verify(token);
+
+        //assert
+        assertSame(first, second);
+        assertEquals(user.getMailAddress(), jwtService.verify(token).getSubject());
+        assertEquals("42", first.get("ID"));
+        assertTrue(jwtService.isTokenValid(first));
+    }
+
+    /**
+     * Tests that a token with a changed signature is rejected, also after the original token was verified.
+     */
+    @Test
+    void changedTokenIsRejected() {
+        //arrange
+        JwtService jwtService = new JwtService(10);
+        String token = jwtService.generateToken(user);
+        jwtService.verify(token);
+        String changed = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        //act & assert
+        assertThrows(SignatureException.class, () -> jwtService.verify(changed));
+    }
+
+    /**
+     * Tests that every token is verified when the cache is disabled.
+     */
+    @Test
+    void tokenIsVerifiedWithoutCache() {
+        //arrange
+        JwtService jwtService = new JwtService(0);
+        String token = jwtService.generateToken(user);
+
+        //act
+        Claims first = jwtService.verify(token);
+        Claims second = jwtService.verify(token);
+
+        //assert
+        assertNotSame(first, second);
+        assertEquals(first.getSubject(), second.getSubject());
+    }
+
+    /**
+     * Tests that the principal is built from the claims of a token, with the token version of the user.
+     */
+    @Test
+    void principalIsBuiltFromClaims() {
+        //arrange
+        JwtService jwtService = new JwtService(10);
+        String token = jwtService.generateToken(user);
+
+        //act
+        JwtPrincipal principal = jwtService.toPrincipal(jwtService.verify(token));
+
+        //assert
+        assertEquals(new JwtPrincipal(42L, user.getMailAddress(), 0), principal);
+        assertEquals(user.getMailAddress(), principal.getName());
+        assertTrue(jwtService.isTokenValid(jwtService.verify(token)));
+    }
+}
@@ -4,6 +4,9 @@ import ch.zhaw.card2brain.GenerateTestuserWithToken;
 import ch.zhaw.card2brain.TestData.TestDataCompare;
 import ch.zhaw.card2brain.TestData.TestDataGenerator;
 import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardImportResultDto;
+import ch.zhaw.card2brain.dto.CardPageDto;
+import ch.zhaw.card2brain.dto.ImportJobDto;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
@@ -11,6 +14,7 @@ import ch.zhaw.card2brain.objectmapper.CardMapper;
 import ch.zhaw.card2brain.repository.CategoryRepository;
 import ch.zhaw.card2brain.repository.UserRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -21,13 +25,22 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -224,6 +237,90 @@ class CardRestControllerTest extends GenerateTestuserWithToken {
 
     }
 
+    /**
+     * Test to retrieve all cards from a category page by page with the cursor of the previous page.
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testGetCardPagesByCategory() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        List<Card> cards = TestDataGenerator.GET_TEST_CARDS(category);
+        saveTransientEntity(category.getOwner(), category);
+        cardRepository.saveAll(cards);
+
+        //act
+        List<CardDto> cardDtosResponse = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        Long cursor = 0L;
+        while (cursor != null) {
+            MvcResult mvcResult = mockMvc.perform(get("/api/cards/page").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString()).param("afterId", cursor.toString()).param("limit", "20")).andExpect(status().isOk()).andReturn();
+            CardPageDto page = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CardPageDto.class);
+            cardDtosResponse.addAll(page.getCards());
+            pageSizes.add(page.getCards().size());
+            cursor = page.getNextCursor();
+        }
+
+        //assert
+        assertEquals(List.of(20, 20, 10), pageSizes);
+        List<CardDto> expectedDtos = cardRepository.findCardByCategory_Id(category.getId()).stream().map((Card card) -> cardMapper.mapToCardDto(card)).collect(Collectors.toList());
+        Assertions.assertTrue(TestDataCompare.COMPARE_CARD_DTO_LISTS(expectedDtos, cardDtosResponse), "Expected cardDto list is different from the paged cardDto list");
+    }
+
+    /**
+     * Test to retrieve all cards from a category as a streamed JSON array.
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testStreamCardsByCategory() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        List<Card> cards = TestDataGenerator.GET_TEST_CARDS(category);
+        saveTransientEntity(category.getOwner(), category);
+        cardRepository.saveAll(cards);
+
+        //act
+        MvcResult asyncResult = mockMvc.perform(get("/api/cards/stream").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString())).andExpect(request().asyncStarted()).andReturn();
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+        List<CardDto> cardDtosResponse = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<List<CardDto>>() {
+        });
+
+        //assert
+        List<CardDto> expectedDtos = cardRepository.findCardByCategory_Id(category.getId()).stream().map((Card card) -> cardMapper.mapToCardDto(card)).collect(Collectors.toList());
+        assertEquals(expectedDtos.size(), cardDtosResponse.size());
+        Assertions.assertTrue(TestDataCompare.COMPARE_CARD_DTO_LISTS(expectedDtos, cardDtosResponse), "Expected cardDto list is different from the streamed cardDto list");
+    }
+
+    /**
+     * Test for the stream API endpoint when category does not exist in the database, the error is returned before the stream starts.
+     *
+     * @throws Exception if the operation fails
+     */
+    @Test
+    public void testStreamCardsButCategoryDoesNotExist() throws Exception {
+        //act
+        MvcResult mvcResult = mockMvc.perform(get("/api/cards/stream").header("Authorization", "Bearer " + token).param("categoryId", "123456789")).andExpect(status().isNotFound()).andReturn();
+
+        //assert
+        assertTrue(mvcResult.getResolvedException().getMessage().contains("Category with categoryId :123456789 not found."));
+    }
+
+    /**
+     * Test for the card page API endpoint when category does not exist in the database.
+     *
+     * @throws Exception if the operation fails
+     */
+    @Test
+    public void testGetCardPageButCategoryDoesNotExist() throws Exception {
+        //act
+        MvcResult mvcResult = mockMvc.perform(get("/api/cards/page").header("Authorization", "Bearer " + token).param("categoryId", "123456789")).andExpect(status().isNotFound()).andReturn();
+
+        //assert
+        assertTrue(mvcResult.getResolvedException().getMessage().contains("Category with categoryId :123456789 not found."));
+    }
+
     /**
      * Test for get cards by category API endpoint when category does not exist in the database.
      *
@@ -295,6 +392,217 @@ class CardRestControllerTest extends GenerateTestuserWithToken {
         return mutation;
     }
 
+    /**
+     * Test method to test the import API endpoint with a CSV upload: quoted fields are read, the header and invalid rows are skipped.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testImportCardsFromCsv() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        saveTransientEntity(category.getOwner(), category);
+        String csv = "question,answer\r\n1+1,2\r\n\"Capital of France, Europe\",\"\"\"Paris\"\"\"\r\n\"Multi\nline\",yes\r\nno answer,\r\n";
+
+        //act
+        MvcResult mvcResult = mockMvc.perform(post("/api/cards/import").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString()).contentType("text/csv").content(csv)).andExpect(status().isOk()).andReturn();
+
+        //assert
+        CardImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CardImportResultDto.class);
+        assertEquals(3, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of("Row 4: Card is invalid. Please enter an answer."), result.getErrors());
+        List<Card> cards = cardRepository.findCardByCategory_Id(category.getId());
+        assertEquals(List.of("1+1", "Capital of France, Europe", "Multi\nline"), cards.stream().map(Card::getQuestion).sorted().toList());
+        assertTrue(cards.stream().anyMatch(card -> card.getAnswer().equals("\"Paris\"")));
+        assertEquals(3, categoryRepository.findById(category.getId()).orElseThrow().getCardCount());
+    }
+
+    /**
+     * Test method to test the import API endpoint with a CSV upload with a byte order mark, a field longer than a card
+     * can hold and too many columns: the header is recognized, the rows are rejected and the next lines are read.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testImportCardsFromCsvRejectsOversizedRows() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        saveTransientEntity(category.getOwner(), category);
+        String csv = "\uFEFFquestion,answer\n" + "x".repeat(300) + ",answer\n1+1,2\na,b,c\n2+2,4\n";
+
+        //act
+        MvcResult mvcResult = mockMvc.perform(post("/api/cards/import").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString()).contentType("text/csv").content(csv)).andExpect(status().isOk()).andReturn();
+
+        //assert
+        CardImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CardImportResultDto.class);
+        assertEquals(2, result.getAccepted());
+        assertEquals(List.of("Row 1: Field is longer than 255 characters", "Row 3: Row has more than two columns"), result.getErrors());
+        assertEquals(List.of("1+1", "2+2"), cardRepository.findCardByCategory_Id(category.getId()).stream().map(Card::getQuestion).sorted().toList());
+    }
+
+    /**
+     * Test method to test the import API endpoint with a CSV upload with a quoted field longer than a card can hold
+     * which spans several lines: the lines of the field are skipped with it and the next row is read.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testImportCardsFromCsvSkipsOversizedMultilineField() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        saveTransientEntity(category.getOwner(), category);
+        String csv = "\"" + "x".repeat(300) + "\nhidden,row\n\"\"quoted\"\"\nanother,row\",answer\n1+1,2\n";
+
+        //act
+        MvcResult mvcResult = mockMvc.perform(post("/api/cards/import").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString()).contentType("text/csv").content(csv)).andExpect(status().isOk()).andReturn();
+
+        //assert
+        CardImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CardImportResultDto.class);
+        assertEquals(1, result.getAccepted());
+        assertEquals(List.of("Row 1: Field is longer than 255 characters"), result.getErrors());
+        assertEquals(List.of("1+1"), cardRepository.findCardByCategory_Id(category.getId()).stream().map(Card::getQuestion).toList());
+    }
+
+    /**
+     * Test method to test the import API endpoint with an NDJSON upload larger than one batch, with a row which is not valid JSON.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testImportCardsFromNdjson() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        saveTransientEntity(category.getOwner(), category);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            ndjson.append("{\"question\":\"Q").append(i).append("\",\"answer\":\"A").append(i).append("\"}\n");
+        }
+        ndjson.append("{\"question\":\n");
+
+        //act
+        MvcResult mvcResult = mockMvc.perform(post("/api/cards/import").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString()).contentType("application/x-ndjson").content(ndjson.toString())).andExpect(status().isOk()).andReturn();
+
+        //assert
+        CardImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CardImportResultDto.class);
+        assertEquals(2500, result.getAccepted());
+        assertEquals(List.of("Row 2501: Row is not valid JSON"), result.getErrors());
+        assertEquals(2500, cardRepository.findCardByCategory_Id(category.getId()).size());
+        assertEquals(2500, categoryRepository.findById(category.getId()).orElseThrow().getCardCount());
+    }
+
+    /**
+     * Test method to test the import API endpoint, but the category does not exist.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testImportCardsButCategoryDoesNotExist() throws Exception {
+        //act
+        MvcResult mvcResult = mockMvc.perform(post("/api/cards/import").header("Authorization", "Bearer " + token).param("categoryId", "123456789").contentType("text/csv").content("1+1,2\n")).andExpect(status().isNotFound()).andReturn();
+
+        //assert
+        assertTrue(mvcResult.getResolvedException().getMessage().contains("Category with categoryId :123456789 not found."));
+    }
+
+    /**
+     * Test method to test the export API endpoint of a category: the gzip compressed NDJSON lines contain the cards with their scheduling state.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testExportCardsOfACategory() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        List<Card> cards = TestDataGenerator.GET_TEST_CARDS(category);
+        cards.get(0).setCounterRight(3);
+        cards.get(0).setCorrectAnswersInRow(2);
+        cards.get(0).setNextDateToRepeat(LocalDate.of(2030, 1, 31));
+        saveTransientEntity(category.getOwner(), category);
+        cardRepository.saveAll(cards);
+
+        //act
+        MvcResult asyncResult = mockMvc.perform(get("/api/cards/export").header("Authorization", "Bearer " + token).param("categoryId", category.getId().toString())).andExpect(request().asyncStarted()).andReturn();
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+        //assert
+        assertEquals("attachment; filename=\"category-" + category.getId() + ".ndjson.gz\"", mvcResult.getResponse().getHeader("Content-Disposition"));
+        List<String> lines = gunzipLines(mvcResult.getResponse().getContentAsByteArray());
+        assertEquals(50, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals(cards.get(0).getId(), first.get("id").asLong());
+        assertEquals(cards.get(0).getQuestion(), first.get("question").asText());
+        assertEquals(3, first.get("counterRight").asInt());
+        assertEquals(2, first.get("correctAnswersInRow").asInt());
+        assertEquals("2030-01-31", first.get("nextDateToRepeat").asText());
+    }
+
+    /**
+     * Test method to test the export API endpoint of a user: the gzip compressed CSV file contains the cards of all categories of the user.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testExportCardsOfAUserAsCsv() throws Exception {
+        //arrange
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        saveTransientEntity(category.getOwner(), category);
+        Category otherCategory = categoryRepository.save(TestDataGenerator.GET_TEST_CATEGORY("Englisch", category.getOwner()));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(category));
+        cardRepository.save(new Card("Hello, world", "Hallo \"Welt\"", otherCategory));
+
+        //act
+        MvcResult asyncResult = mockMvc.perform(get("/api/cards/export").header("Authorization", "Bearer " + token).param("userId", category.getOwner().getId().toString()).param("format", "CSV")).andExpect(request().asyncStarted()).andReturn();
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+
+        //assert
+        List<String> lines = gunzipLines(mvcResult.getResponse().getContentAsByteArray());
+        assertEquals(52, lines.size());
+        assertEquals("id,categoryId,question,answer,counterRight,counterFalse,correctAnswersInRow,nextDateToRepeat,answeredLastTime", lines.get(0));
+        assertTrue(lines.get(51).contains(",\"Hello, world\",\"Hallo \"\"Welt\"\"\",0,0,0,1970-01-01,"));
+    }
+
+    /**
+     * Test method to test the export API endpoint, but the user does not exist.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testExportCardsButUserDoesNotExist() throws Exception {
+        //act & assert
+        mockMvc.perform(get("/api/cards/export").header("Authorization", "Bearer " + token).param("userId", "123456789")).andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test method to test the Anki import API endpoints: the upload is accepted at once and a package without collection fails in the background.
+     *
+     * @throws Exception - if any exception occurs while executing the test case
+     */
+    @Test
+    public void testImportAnkiPackageWithoutCollection() throws Exception {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+
+        //act
+        MvcResult mvcResult = mockMvc.perform(post("/api/cards/import/anki").header("Authorization", "Bearer " + token).param("userId", user.getId().toString()).contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1, 2, 3})).andExpect(status().isAccepted()).andReturn();
+        ImportJobDto job = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ImportJobDto.class);
+        for (int i = 0; i < 100 && !job.getStatus().equals("FAILED"); i++) {
+            Thread.sleep(50);
+            job = objectMapper.readValue(mockMvc.perform(get("/api/cards/import/anki/" + job.getJobId()).header("Authorization", "Bearer " + token)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString(), ImportJobDto.class);
+        }
+
+        //assert
+        assertEquals("FAILED", job.getStatus());
+        assertEquals(0, job.getImported());
+        mockMvc.perform(get("/api/cards/import/anki/unknown").header("Authorization", "Bearer " + token)).andExpect(status().isNotFound());
+    }
+
+    private static List<String> gunzipLines(byte[] content) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(content)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
     /**
      * Saves transient entities.
      *
@@ -269,10 +269,41 @@ class CategoryRestControllerTest extends GenerateTestuserWithToken {
         });
         assertThat(exception.getMessage()).isEqualTo("Category with categoryId :" + cat1.getId() + " not found.");
     }
-}
-
 
+    /**
+     * Test case for cloning a category with its cards into a new category of the same user.
+     * Verifies that a 201 Created status is returned and the clone contains a copy of every card.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void cloneCategoryTest() throws Exception {
+        //arrange
+        categoryRepository.save(cat1);
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(cat1));
 
+        //act
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/categories/clone").header("Authorization", "Bearer " + token).param("categoryId", String.valueOf(cat1.getId())).param("categoryName", "Informatik Kopie").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isCreated()).andReturn();
 
+        //assert
+        CategoryDto clone = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CategoryDto.class);
+        assertEquals("Informatik Kopie", clone.getCategoryName());
+        assertEquals(50, cardRepository.findCardByCategory_Id(clone.getId()).size());
+        assertEquals(50, cardRepository.findCardByCategory_Id(cat1.getId()).size());
+    }
 
+    /**
+     * Test case for cloning a category which does not exist.
+     * Verifies that a 404 Not Found status is returned and the correct error message is displayed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void cloneNotValidCategoryTest() throws Exception {
+        //act
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/categories/clone").header("Authorization", "Bearer " + token).param("categoryId", "123456789").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isNotFound()).andReturn();
 
+        //assert
+        assertEquals("Category with categoryId :123456789 not found.", mvcResult.getResolvedException().getMessage());
+    }
+}
@@ -4,7 +4,10 @@ import ch.zhaw.card2brain.GenerateTestuserWithToken;
 import ch.zhaw.card2brain.TestData.TestDataCompare;
 import ch.zhaw.card2brain.TestData.TestDataGenerator;
 import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.CardPageDto;
 import ch.zhaw.card2brain.dto.LearnDto;
+import ch.zhaw.card2brain.dto.LearnResultDto;
+import ch.zhaw.card2brain.dto.LearnSessionDto;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
@@ -32,6 +35,8 @@ import java.util.List;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -156,6 +161,44 @@ class LearnRestControllerTest extends GenerateTestuserWithToken {
     }
 
 
+    /**
+     * Test method to verify that all answers of a learning session can be submitted in one request.
+     * The answers to existing cards are applied, the answer to a deleted card is reported as not found.
+     *
+     * @throws Exception if the request to the endpoint fails
+     */
+    @Test
+    void cardsLearnedInOneBatch() throws Exception {
+        //arrange
+        Card secondCard = cardRepository.save(TestDataGenerator.GET_TEST_CARD(card.getCategory()));
+        Card deletedCard = cardRepository.save(TestDataGenerator.GET_TEST_CARD(card.getCategory()));
+        cardRepository.delete(deletedCard);
+        List<LearnDto> learnDtos = List.of(new LearnDto(card.getId(), true), new LearnDto(secondCard.getId(), false), new LearnDto(deletedCard.getId(), true), new LearnDto(card.getId(), true));
+
+        //test
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/learns/batch").header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(learnDtos))).andExpect(status().isOk()).andReturn();
+
+        //assert
+        List<LearnResultDto> results = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isUpdated());
+        assertTrue(results.get(1).isUpdated());
+        assertFalse(results.get(2).isUpdated());
+        assertEquals(deletedCard.getId(), results.get(2).getCardId());
+        assertEquals("Card does not exist", results.get(2).getError());
+        assertTrue(results.get(3).isUpdated());
+
+        Card expectedCard = cardRepository.findCardById(card.getId());
+        assertEquals(card.getCounterRight() + 2, expectedCard.getCounterRight());
+        assertEquals(card.getCorrectAnswersInRow() + 2, expectedCard.getCorrectAnswersInRow());
+        assertEquals(repetitionService.getNextRepetitionDate(card.getCorrectAnswersInRow() + 2), expectedCard.getNextDateToRepeat());
+
+        Card expectedSecondCard = cardRepository.findCardById(secondCard.getId());
+        assertEquals(secondCard.getCounterFalse() + 1, expectedSecondCard.getCounterFalse());
+        assertEquals(secondCard.getCounterRight(), expectedSecondCard.getCounterRight());
+    }
+
     /**
      * Test method to verify that when trying to get all cards to learn for a non-existing category,
      * a "not found" error is returned with a corresponding error message.
@@ -201,6 +244,34 @@ class LearnRestControllerTest extends GenerateTestuserWithToken {
 
     }
 
+    /**
+     * Test method to get the cards to learn of a category page by page.
+     * The 25 cards to learn are returned in two pages, the second page has no next cursor.
+     *
+     * @throws Exception in case an error occurs during the request/response process
+     */
+    @Test
+    void getCardPagesToLearn() throws Exception {
+        //arrange
+        Category categoryToRepeat = TestDataGenerator.GET_TEST_CATEGORY("CategoryToRepeat", user);
+        categoryRepository.save(categoryToRepeat);
+        List<Card> cardList = TestDataGenerator.GET_TEST_CARDS(categoryToRepeat);
+        cardRepository.saveAll(arrangeDateForCardList(cardList));
+
+        //act
+        MvcResult firstResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/learns/page").header("Authorization", "Bearer " + token).param("categoryId", String.valueOf(categoryToRepeat.getId())).param("limit", "20")).andExpect(status().isOk()).andReturn();
+        CardPageDto firstPage = objectMapper.readValue(firstResult.getResponse().getContentAsString(), CardPageDto.class);
+        MvcResult secondResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/learns/page").header("Authorization", "Bearer " + token).param("categoryId", String.valueOf(categoryToRepeat.getId())).param("afterId", String.valueOf(firstPage.getNextCursor())).param("limit", "20")).andExpect(status().isOk()).andReturn();
+        CardPageDto secondPage = objectMapper.readValue(secondResult.getResponse().getContentAsString(), CardPageDto.class);
+
+        //assert
+        assertEquals(20, firstPage.getCards().size());
+        assertEquals(5, secondPage.getCards().size());
+        assertNull(secondPage.getNextCursor());
+        assertTrue(containsTheRightCard(firstPage.getCards()));
+        assertTrue(containsTheRightCard(secondPage.getCards()));
+    }
+
     /**
      * Test method to get all the cards to learn in a specific category.
      * In this test, there are no cards to learn.
@@ -287,7 +358,30 @@ class LearnRestControllerTest extends GenerateTestuserWithToken {
         return cardList;
     }
 
-}
-
+    /**
+     * Test method to verify that a learn session serves the due card, applies its answer and is not found after it was ended.
+     *
+     * @throws Exception if the request to the endpoint fails
+     */
+    @Test
+    void learnSessionServesCardsAndAppliesAnswers() throws Exception {
+        //arrange
+        MvcResult started = mockMvc.perform(MockMvcRequestBuilders.post("/api/learns/sessions").param("categoryId", card.getCategory().getId().toString()).header("Authorization", "Bearer " + token)).andExpect(status().isCreated()).andReturn();
+        String sessionId = objectMapper.readValue(started.getResponse().getContentAsString(), LearnSessionDto.class).getSessionId();
 
+        //act
+        MvcResult cards = mockMvc.perform(MockMvcRequestBuilders.get("/api/learns/sessions/" + sessionId + "/cards").param("count", "10").header("Authorization", "Bearer " + token)).andExpect(status().isOk()).andReturn();
+        MvcResult answers = mockMvc.perform(MockMvcRequestBuilders.post("/api/learns/sessions/" + sessionId + "/answers").header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(List.of(new LearnDto(card.getId(), true))))).andExpect(status().isOk()).andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/learns/sessions/" + sessionId).header("Authorization", "Bearer " + token)).andExpect(status().isOk());
 
+        //assert
+        List<CardDto> cardDtos = objectMapper.readValue(cards.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        List<LearnResultDto> results = objectMapper.readValue(answers.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        assertEquals(List.of(card.getId()), cardDtos.stream().map(CardDto::getId).toList());
+        assertTrue(results.get(0).isUpdated());
+        assertEquals(1, cardRepository.findById(card.getId()).orElseThrow().getCounterRight());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/learns/sessions/" + sessionId + "/cards").header("Authorization", "Bearer " + token)).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,143 @@
+package ch.zhaw.card2brain.controller;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.config.JwtService;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.User;
+import ch.zhaw.card2brain.services.CategoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query count regression test for the list endpoints.
+ * Every list endpoint has to read its DTOs with exactly one SQL statement, neither the category nor the owner
+ * of the listed rows may be loaded. The requests are authenticated without a token; a request with a token does not read the user
+ * either, the JWT filter builds the principal from the claims of the token.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ReadEndpointQueryCountTest extends EmptyDb {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private User owner;
+    private Category category;
+
+    /**
+     * Saves a user with two categories, the first category has three cards, and counts the cards of the categories
+     * like the nightly reconciliation.
+     */
+    @BeforeEach
+    void setUp() {
+        emptyDB();
+        owner = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        category = categoryRepository.save(TestDataGenerator.GET_TEST_CATEGORY("Mathematik", owner));
+        categoryRepository.save(TestDataGenerator.GET_TEST_CATEGORY("Englisch", owner));
+        cardRepository.saveAll(List.of(new Card("1+1", "2", category), new Card("2+2", "4", category), new Card("3+3", "6", category)));
+        categoryService.reconcileCounters();
+    }
+
+    @Test
+    void cardListingIssuesOneStatement() throws Exception {
+        //act
+        long statements = countStatements(get("/api/cards/").param("categoryId", category.getId().toString()), 3);
+
+        //assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void learnListingIssuesOneStatement() throws Exception {
+        //act
+        long statements = countStatements(get("/api/learns/").param("categoryId", category.getId().toString()), 3);
+
+        //assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void categoryListingIssuesOneStatement() throws Exception {
+        //act
+        long statements = countStatements(get("/api/categories/").param("userId", owner.getId().toString()), 2);
+
+        //assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void categoryListingContainsCardCounts() throws Exception {
+        //act & assert
+        mockMvc.perform(get("/api/categories/").param("userId", owner.getId().toString()).with(user(owner.getMailAddress())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].numberOfCards").value(3))
+                .andExpect(jsonPath("$[0].toLearn").value(3))
+                .andExpect(jsonPath("$[1].numberOfCards").value(0))
+                .andExpect(jsonPath("$[1].toLearn").value(0));
+    }
+
+    @Test
+    void infoIssuesOneStatement() throws Exception {
+        //act
+        long statements = countStatements(get("/api/users/info").param("userId", owner.getId().toString()), 2);
+
+        //assert
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void tokenRequestIssuesNoUserQuery() throws Exception {
+        //arrange
+        String token = jwtService.generateToken(owner);
+        MockHttpServletRequestBuilder request = get("/api/categories/").param("userId", owner.getId().toString()).header("Authorization", "Bearer " + token);
+        mockMvc.perform(request).andExpect(status().isOk());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //act
+        mockMvc.perform(request).andExpect(status().isOk()).andExpect(jsonPath("$.length()").value(2));
+
+        //assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private long countStatements(MockHttpServletRequestBuilder request, int expectedSize) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request.with(user(owner.getMailAddress()))).andExpect(status().isOk()).andExpect(jsonPath("$.length()").value(expectedSize));
+        return statistics.getPrepareStatementCount();
+    }
+}
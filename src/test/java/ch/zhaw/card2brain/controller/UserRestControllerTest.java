@@ -3,6 +3,8 @@ package ch.zhaw.card2brain.controller;
 import ch.zhaw.card2brain.GenerateTestuserWithToken;
 import ch.zhaw.card2brain.TestData.TestDataCompare;
 import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.auth.AuthenticationService;
+import ch.zhaw.card2brain.config.JwtService;
 import ch.zhaw.card2brain.dto.UserDto;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
@@ -55,6 +57,12 @@ class UserRestControllerTest extends GenerateTestuserWithToken {
     @Autowired
     UserMapper userMapper;
 
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private JwtService jwtService;
+
     /**
      * Test method to check that updating a user's information returns a 200 OK status code and updates the user's information in the database.
      * The method creates an example user, sends a PUT request to the "/api/users/" endpoint with a JSON body containing the updated user's information,
@@ -138,6 +146,31 @@ class UserRestControllerTest extends GenerateTestuserWithToken {
     }
 
 
+    /**
+     * Test method to check that the tokens of a user are revoked by the change of their password,
+     * while a token issued after the change is accepted.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void tokenIsRevokedByPasswordChange() throws Exception {
+        //arrange
+        User user = new User("revoked", "firstname", "revoked@mail.com");
+        user.setPassword("Password");
+        String userToken = authenticationService.register(user).getToken();
+        mockMvc.perform(get("/api/users/").header("Authorization", "Bearer " + userToken)).andExpect(status().isOk());
+        UserDto userDto = userMapper.toUserDto(userRepository.getUserById(user.getId()));
+        userDto.setPassword("new Password");
+
+        //act
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/users/").header("Authorization", "Bearer " + userToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(userDto))).andExpect(status().isOk());
+
+        //assert
+        mockMvc.perform(get("/api/users/").header("Authorization", "Bearer " + userToken)).andExpect(status().isForbidden());
+        String newToken = jwtService.generateToken(userRepository.getUserById(user.getId()));
+        mockMvc.perform(get("/api/users/").header("Authorization", "Bearer " + newToken)).andExpect(status().isOk());
+    }
+
     /**
      * Test method to check that deleting a user with a valid id returns a 200 OK status code and deletes the user from the database.
      * The method creates an example user, sends a DELETE request to the "/api/users/" endpoint with the user's id as a parameter,
@@ -0,0 +1,135 @@
+package ch.zhaw.card2brain.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the inserts of new cards into an in-memory H2 database, reported as inserts per second.
+ * It is not run by the tests; run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ch.zhaw.card2brain.repository.BatchInsertBenchmark}
+ * or start {@link #main(String[])} from the IDE.
+ * <p>
+ * The benchmarks send the statements Hibernate sends for the two id configurations, with the card table of the migrations:
+ * roundTripPerInsert reads one id from a sequence with increment 1 and executes every insert on its own (the former mapping),
+ * pooledLoBatched reads one id per 50 cards from a sequence with increment 50 and sends the inserts as JDBC batches of 50.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    private static final int CARDS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    private static final String INSERT_SQL = "INSERT INTO card (id, question, answer, correct_answers_in_row, counter_false, counter_right, next_date_to_repeat, category_id)"
+            + " VALUES (?, ?, ?, 0, 0, 0, DATE '1970-01-01', 1)";
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:batchInsertBenchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE card_seq_single START WITH 1 INCREMENT BY 1");
+            statement.execute("CREATE SEQUENCE card_seq START WITH 1 INCREMENT BY " + BATCH_SIZE);
+            statement.execute("CREATE TABLE card (id BIGINT NOT NULL, answer VARCHAR(255), answered_last_time TIMESTAMP(6), correct_answers_in_row INTEGER NOT NULL,"
+                    + " counter_false INTEGER NOT NULL, counter_right INTEGER NOT NULL, next_date_to_repeat DATE, question VARCHAR(255), category_id BIGINT, PRIMARY KEY (id))");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE card");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARDS)
+    public void roundTripPerInsert() throws SQLException {
+        try (PreparedStatement nextId = connection.prepareStatement("SELECT NEXT VALUE FOR card_seq_single");
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < CARDS; i++) {
+                setCard(insert, nextValue(nextId), i);
+                insert.executeUpdate();
+            }
+        }
+        connection.commit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARDS)
+    public void pooledLoBatched() throws SQLException {
+        try (PreparedStatement nextId = connection.prepareStatement("SELECT NEXT VALUE FOR card_seq");
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            long id = 0;
+            for (int i = 0; i < CARDS; i++) {
+                if (i % BATCH_SIZE == 0) {
+                    id = nextValue(nextId); // the lowest id of the next 50
+                }
+                setCard(insert, id++, i);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private static long nextValue(PreparedStatement nextId) throws SQLException {
+        try (ResultSet resultSet = nextId.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void setCard(PreparedStatement insert, long id, int i) throws SQLException {
+        insert.setLong(1, id);
+        insert.setString(2, "Question " + i);
+        insert.setString(3, "Answer " + i);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package ch.zhaw.card2brain.repository;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for the id allocation and the JDBC batching of inserts.
+ * The ids of 50 inserts are allocated with one sequence call (pooled-lo), so the inserts are sent as JDBC batches.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchInsertTest extends EmptyDb {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Tests that 120 cards are inserted with three sequence calls and three batches instead of one round trip per card and id.
+     */
+    @Test
+    void cardsAreInsertedInBatches() {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        Category category = categoryRepository.save(TestDataGenerator.GET_DEFAULT_CATEGORY_TO_USER(user));
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            cards.add(new Card("Question " + i, "Answer " + i, category));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //act
+        List<Card> saved = cardRepository.saveAll(cards);
+
+        //assert
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 7, "Statements: " + statistics.getPrepareStatementCount());
+        assertEquals(saved.get(0).getId() + 49, saved.get(49).getId());
+    }
+}
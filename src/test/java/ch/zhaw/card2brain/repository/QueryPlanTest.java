@@ -0,0 +1,153 @@
+package ch.zhaw.card2brain.repository;
+
+import ch.zhaw.card2brain.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with the H2 query plans that the hot repository queries use indexes.
+ * The repository methods are called and the statements hibernate sends for them are captured by a {@link StatementInspector},
+ * so the plans are those of the real queries.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ch.zhaw.card2brain.repository.QueryPlanTest$CapturingStatementInspector")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+     * Captures the statements hibernate prepares, the test reads the last one.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    /**
+     * Test for {@link CardRepository#findAllByCategoryIdAndNextDateToRepeatIsLessThanEqual(long, LocalDate)}.
+     */
+    @Test
+    void dueCardsOfACategoryUseCompositeIndex() {
+        //arrange
+        LocalDate today = LocalDate.now();
+        cardRepository.findAllByCategoryIdAndNextDateToRepeatIsLessThanEqual(1L, today);
+
+        //act
+        String plan = explainLastStatement(1L, today);
+
+        //assert
+        assertTrue(usesIndex(plan, "IDX_CARD_CATEGORY_NEXT_DATE", "CATEGORY_ID = ?1 AND NEXT_DATE_TO_REPEAT <= ?2"), plan);
+    }
+
+    /**
+     * Test for {@link CategoryRepository#findCategoriesByOwner(User)}.
+     */
+    @Test
+    void categoriesOfAUserUseOwnerIndex() {
+        //arrange
+        User owner = new User();
+        owner.setId(1L);
+        categoryRepository.findCategoriesByOwner(owner);
+
+        //act
+        String plan = explainLastStatement(1L);
+
+        //assert
+        assertTrue(usesIndex(plan, "", "OWNER_ID = ?1"), plan);
+    }
+
+    /**
+     * Test for {@link CardRepository#findSchedulesByOwnerId(long)}, which loads the due card index of a user.
+     */
+    @Test
+    void schedulesOfAUserUseOwnerAndCategoryIndex() {
+        //arrange
+        cardRepository.findSchedulesByOwnerId(1L);
+
+        //act
+        String plan = explainLastStatement(1L);
+
+        //assert
+        assertTrue(usesIndex(plan, "", "OWNER_ID = ?1"), plan);
+        assertTrue(Pattern.compile("/\\* PUBLIC\\.[A-Z0-9_]+: CATEGORY_ID = [A-Z0-9_]+\\.ID").matcher(plan.replaceAll("\\s+", " ")).find(), plan);
+    }
+
+    /**
+     * Test for {@link CardRepository#findByCategory_IdAndIdGreaterThanOrderByCategoryIdAscIdAsc(long, long, org.springframework.data.domain.Pageable)}.
+     * The page has to be read by seeking in an index of the category, sorted by id, without sorting the cards of the category.
+     */
+    @Test
+    void cardPageOfACategorySeeksByIdInIndex() {
+        //arrange
+        cardRepository.findByCategory_IdAndIdGreaterThanOrderByCategoryIdAscIdAsc(1L, 0L, PageRequest.of(0, 101));
+
+        //act
+        String plan = explainLastStatement(1L, 0L, 0, 101);
+
+        //assert
+        assertTrue(usesIndex(plan, "", "CATEGORY_ID = ?1"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    /**
+     * Checks if the plan contains an index lookup with the specified condition.
+     * H2 writes an index lookup as a comment with the index name and the condition, a table scan is written as tableScan.
+     *
+     * @param plan      the plan of the query
+     * @param index     the name of the index, or an empty string for any index
+     * @param condition the condition of the index lookup
+     * @return true if the plan contains the index lookup
+     */
+    private boolean usesIndex(String plan, String index, String condition) {
+        String indexName = index.isEmpty() ? "[A-Z0-9_]+" : index;
+        return Pattern.compile("/\\* PUBLIC\\." + indexName + ": " + Pattern.quote(condition)).matcher(plan.replaceAll("\\s+", " ")).find();
+    }
+
+    /**
+     * Explains the last statement hibernate prepared, with the parameters of the repository call in the order they are bound.
+     */
+    private String explainLastStatement(Object... parameters) {
+        List<String> statements = CapturingStatementInspector.STATEMENTS;
+        assertFalse(statements.isEmpty(), "no statement was captured");
+        String sql = statements.get(statements.size() - 1);
+        assertEquals(parameters.length, sql.chars().filter(c -> c == '?').count(), sql);
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+    }
+}
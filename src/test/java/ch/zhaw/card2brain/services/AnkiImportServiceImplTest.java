@@ -0,0 +1,171 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.dto.ImportJobDto;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for {@link AnkiImportServiceImpl}. The packages are built with a minimal collection of the Anki 2.1 schema.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest
+class AnkiImportServiceImplTest extends EmptyDb {
+
+    @Autowired
+    private AnkiImportService ankiImportService;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that the decks become categories and the notes cards with their review history, notes without text are skipped.
+     */
+    @Test
+    void importsDecksAndNotesWithTheirSchedule() throws Exception {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        LocalDate today = LocalDate.now();
+        Path apkg = buildPackage(today.minusDays(100));
+
+        //act
+        ImportJobDto job;
+        try (var inputStream = Files.newInputStream(apkg)) {
+            job = awaitJob(ankiImportService.startImport(user.getId(), inputStream).getJobId());
+        }
+
+        //assert
+        assertEquals("DONE", job.getStatus());
+        assertEquals(2, job.getCategories());
+        assertEquals(4, job.getTotal());
+        assertEquals(3, job.getImported());
+        assertEquals(1, job.getSkipped());
+        Map<String, Category> categories = categoryRepository.findCategoriesByOwner(user).stream().collect(Collectors.toMap(Category::getCategoryName, Function.identity()));
+        assertEquals(List.of(categories.get("Default").getId(), categories.get("Spanish::Verbs").getId()), job.getCategoryIds());
+        assertEquals(Map.of("Default", 1, "Spanish::Verbs", 2), categories.values().stream().collect(Collectors.toMap(Category::getCategoryName, Category::getCardCount)));
+        Map<String, Card> cards = cardRepository.findCardByCategory_Id(categories.get("Spanish::Verbs").getId()).stream().collect(Collectors.toMap(Card::getQuestion, Function.identity()));
+        Card reviewed = cards.get("hola");
+        assertEquals("hello", reviewed.getAnswer());
+        assertEquals(5, reviewed.getCounterRight());
+        assertEquals(1, reviewed.getCounterFalse());
+        assertEquals(today.plusDays(5), reviewed.getNextDateToRepeat());
+        assertEquals(7, reviewed.getCorrectAnswersInRow());
+        assertEquals(today.plusDays(5).minusDays(30).atStartOfDay(), reviewed.getAnsweredLastTime());
+        assertTrue(cards.get("casa").getNextDateToRepeat().isBefore(today));
+        assertEquals("Q&A", cardRepository.findCardByCategory_Id(categories.get("Default").getId()).get(0).getQuestion());
+    }
+
+    /**
+     * Tests that a deck whose name is not a valid category fails the import before a category or a card is written.
+     */
+    @Test
+    void invalidDeckNameFailsBeforeAnythingIsWritten() throws Exception {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        Path apkg = buildPackage(LocalDate.now(), " ");
+
+        //act
+        ImportJobDto job;
+        try (var inputStream = Files.newInputStream(apkg)) {
+            job = awaitJob(ankiImportService.startImport(user.getId(), inputStream).getJobId());
+        }
+
+        //assert
+        assertEquals("FAILED", job.getStatus());
+        assertEquals(List.of(), job.getCategoryIds());
+        assertEquals(0, job.getImported());
+        assertTrue(categoryRepository.findCategoriesByOwner(user).isEmpty());
+        assertEquals(0, cardRepository.count());
+    }
+
+    /**
+     * Tests that a collection which is larger than the maximum size is not extracted.
+     */
+    @Test
+    void collectionLargerThanTheMaximumIsNotExtracted() throws Exception {
+        //arrange
+        Path apkg = buildPackage(LocalDate.now());
+
+        //act
+        IOException exception = assertThrows(IOException.class, () -> new AnkiPackageReader(apkg, new ObjectMapper(), 1024));
+
+        //assert
+        assertTrue(exception.getMessage().contains("larger than 1024 bytes"));
+    }
+
+    private ImportJobDto awaitJob(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ImportJobDto job = ankiImportService.getJob(jobId);
+            if (job.getStatus().equals("DONE") || job.getStatus().equals("FAILED")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Import " + jobId + " did not finish");
+    }
+
+    private Path buildPackage(LocalDate creationDate) throws Exception {
+        return buildPackage(creationDate, "Spanish::Verbs");
+    }
+
+    private Path buildPackage(LocalDate creationDate, String secondDeckName) throws Exception {
+        Path collection = tempDir.resolve("collection.anki2");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + collection); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE col (id integer primary key, crt integer not null, decks text not null)");
+            statement.execute("CREATE TABLE notes (id integer primary key, flds text not null)");
+            statement.execute("CREATE TABLE cards (id integer primary key, nid integer not null, did integer not null, ord integer not null, type integer not null,"
+                    + " queue integer not null, due integer not null, ivl integer not null, reps integer not null, lapses integer not null)");
+            try (PreparedStatement col = connection.prepareStatement("INSERT INTO col VALUES (1, ?, ?)")) {
+                col.setLong(1, creationDate.atStartOfDay(ZoneId.systemDefault()).toEpochSecond());
+                col.setString(2, "{\"1\": {\"name\": \"Default\"}, \"2\": {\"name\": \"" + secondDeckName + "\"}}");
+                col.execute();
+            }
+            statement.execute("INSERT INTO notes VALUES (11, '<b>hola</b>' || char(31) || 'hello'), (12, 'casa' || char(31) || 'house'),"
+                    + " (13, '<img src=\"x.png\">' || char(31) || 'picture'), (14, 'Q&amp;A' || char(31) || 'A')");
+            statement.execute("INSERT INTO cards VALUES (21, 11, 2, 0, 2, 2, 105, 30, 6, 1), (22, 12, 2, 0, 0, 0, 1, 0, 0, 0),"
+                    + " (23, 12, 2, 1, 0, 0, 2, 0, 0, 0), (24, 13, 1, 0, 0, 0, 3, 0, 0, 0), (25, 14, 1, 0, 0, 0, 4, 0, 0, 0)");
+        }
+        Path apkg = tempDir.resolve("deck.apkg");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(apkg))) {
+            zip.putNextEntry(new ZipEntry("collection.anki2"));
+            Files.copy(collection, zip);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("media"));
+            zip.write("{}".getBytes());
+            zip.closeEntry();
+        }
+        return apkg;
+    }
+}
@@ -2,9 +2,12 @@ package ch.zhaw.card2brain.services;
 
 import ch.zhaw.card2brain.EmptyDb;
 import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.dto.InfoDto;
+import ch.zhaw.card2brain.exception.CardNotFoundException;
 import ch.zhaw.card2brain.exception.CardNotValidException;
 import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.Learn;
 import ch.zhaw.card2brain.model.User;
 import ch.zhaw.card2brain.repository.UserRepository;
 import org.junit.jupiter.api.Test;
@@ -17,8 +20,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,6 +48,9 @@ class Card2BrainDbCardServiceTests extends EmptyDb {
 
     @Autowired
     RepetitionService repetitionService;
+
+    @Autowired
+    CategoryService categoryService;
     private User user;
     private Category category;
     @Autowired
@@ -200,6 +210,48 @@ class Card2BrainDbCardServiceTests extends EmptyDb {
         assertEquals(testee.get().getNextDateToRepeat(), repetitionService.getNextRepetitionDate(0));
     }
 
+    /**
+     * Test for the {@link CardService#repeated(long, boolean)} method.
+     * The method tests that answers given at the same time to the same card are all counted.
+     */
+    @Test
+    public void testRepeatedConcurrentAnswers() throws Exception {
+
+        //arrange
+        final int ANSWERS = 20;
+        Card card = TestDataGenerator.GET_DEFAULT_CARD();
+        userRepository.save(card.getCategory().getOwner());
+        categoryRepository.save(card.getCategory());
+        cardRepository.save(card);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //act
+        List<Future<?>> answers = new ArrayList<>();
+        for (int i = 0; i < ANSWERS; i++) {
+            answers.add(executor.submit(() -> cardService.repeated(card.getId(), true)));
+        }
+        for (Future<?> answer : answers) {
+            answer.get();
+        }
+        executor.shutdown();
+
+        //assert
+        Card testee = cardRepository.findById(card.getId()).orElseThrow();
+        assertEquals(ANSWERS, testee.getCounterRight());
+        assertEquals(ANSWERS, testee.getCorrectAnswersInRow());
+        assertEquals(repetitionService.getNextRepetitionDate(ANSWERS), testee.getNextDateToRepeat());
+    }
+
+    /**
+     * Test for the {@link CardService#repeated(long, boolean)} method with a card that does not exist.
+     */
+    @Test
+    public void testRepeatedCardDoesNotExist() {
+        //act & assert
+        Exception exception = assertThrows(CardNotFoundException.class, () -> cardService.repeated(Long.MAX_VALUE, true));
+        assertEquals("Card does not exist", exception.getMessage());
+    }
+
     /**
      * Test method for {@link CardService#getAllCardsOfACategoryById(long)}.
      * This method tests the retrieval of all cards of a category by category id.
@@ -418,6 +470,58 @@ class Card2BrainDbCardServiceTests extends EmptyDb {
     }
 
 
+    /**
+     * Test that the counters of a category follow added, answered and deleted cards without counting the cards again.
+     * A wrong answer schedules the card for today, so it stays due.
+     */
+    @Test
+    public void testCategoryCountersFollowCardChanges() {
+        //arrange
+        Card card = TestDataGenerator.GET_DEFAULT_CARD();
+        Category category = card.getCategory();
+        userRepository.save(category.getOwner());
+        categoryRepository.save(category);
+        categoryService.reconcileCounters();
+        Card first = cardService.addCard(new Card("Question 1", "Answer 1", category));
+        Card second = cardService.addCard(new Card("Question 2", "Answer 2", category));
+
+        //act
+        cardService.repeated(first.getId(), true);
+        cardService.repeated(second.getId(), false);
+        cardService.repeated(List.of(new Learn(true, second.getId()), new Learn(true, second.getId())));
+        cardService.deleteCard(cardService.getCard(first.getId()));
+
+        //assert
+        InfoDto counted = categoryService.getCategoryInfos(category.getOwner().getId()).get(0);
+        assertEquals(1, counted.getNumberOfCards());
+        assertEquals(0, counted.getToLearn());
+        assertEquals(3, counted.getNumberOfReviews());
+    }
+
+    /**
+     * Test that the reconciliation repairs counters which drifted because cards were changed directly in the database.
+     */
+    @Test
+    public void testReconcileCategoryCounters() {
+        //arrange
+        Card card = TestDataGenerator.GET_DEFAULT_CARD();
+        card.setCounterRight(4);
+        card.setCounterFalse(2);
+        saveTransientInstance(card);
+        cardRepository.save(card);
+        categoryService.reconcileCounters();
+        cardRepository.save(new Card("Question", "Answer", card.getCategory()));
+
+        //act
+        categoryService.reconcileCounters();
+
+        //assert
+        InfoDto counted = categoryService.getCategoryInfos(card.getCategory().getOwner().getId()).get(0);
+        assertEquals(2, counted.getNumberOfCards());
+        assertEquals(2, counted.getToLearn());
+        assertEquals(6, counted.getNumberOfReviews());
+    }
+
     /**
      * Check if the right cards are still in the database and the rest are deleted.
      *
@@ -7,9 +7,11 @@ import ch.zhaw.card2brain.exception.CategoryAlreadyExistsException;
 import ch.zhaw.card2brain.exception.CategoryNotFoundException;
 import ch.zhaw.card2brain.exception.CategoryNotValidException;
 import ch.zhaw.card2brain.exception.UserNotFoundException;
+import ch.zhaw.card2brain.model.Card;
 import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
 import ch.zhaw.card2brain.objectmapper.CategoryMapper;
+import ch.zhaw.card2brain.repository.CardRepository;
 import ch.zhaw.card2brain.repository.CategoryRepository;
 import ch.zhaw.card2brain.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +22,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -60,6 +63,12 @@ class Card2BrainDbCategoryServiceTests extends EmptyDb {
     @Autowired
     private CategoryMapper categoryMapper;
 
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
 
     @BeforeEach
     void setUp() {
@@ -374,4 +383,92 @@ class Card2BrainDbCategoryServiceTests extends EmptyDb {
 
     }
 
+    /**
+     * Test the {@link CategoryService#setRepetitionSequence(long, List)} method.
+     * The answers to a card of the category are scheduled with the sequence of the category, an empty sequence restores the default sequence.
+     */
+    @Test
+    void testSetRepetitionSequence() {
+        // Arrange
+        Category category = categoryRepository.save(new Category("Vokabeln", testUser));
+        Card card = cardRepository.save(new Card("Frage", "Antwort", category));
+
+        // Act
+        categoryService.setRepetitionSequence(category.getId(), List.of(1, 4));
+        cardService.repeated(card.getId(), true);
+        LocalDate afterCorrectAnswer = cardRepository.findById(card.getId()).orElseThrow().getNextDateToRepeat();
+        cardService.repeated(card.getId(), false);
+        LocalDate afterWrongAnswer = cardRepository.findById(card.getId()).orElseThrow().getNextDateToRepeat();
+        categoryService.setRepetitionSequence(category.getId(), List.of());
+        cardService.repeated(card.getId(), true);
+        LocalDate withDefaultSequence = cardRepository.findById(card.getId()).orElseThrow().getNextDateToRepeat();
+
+        // Assert
+        assertEquals(LocalDate.now().plusDays(4), afterCorrectAnswer);
+        assertEquals(LocalDate.now().plusDays(1), afterWrongAnswer);
+        assertEquals(LocalDate.now().plusDays(2), withDefaultSequence);
+        assertNull(categoryRepository.findById(category.getId()).orElseThrow().getRepetitionSequence());
+    }
+
+    /**
+     * Test the {@link CategoryService#setRepetitionSequence(long, List)} method with a negative day and with a category which does not exist.
+     */
+    @Test
+    void testSetRepetitionSequenceNotValid() {
+        // Arrange
+        Category category = categoryRepository.save(new Category("Vokabeln", testUser));
+
+        // Act & Assert
+        assertThrows(CategoryNotValidException.class, () -> categoryService.setRepetitionSequence(category.getId(), List.of(1, -4)));
+        CategoryNotFoundException exception = assertThrows(CategoryNotFoundException.class, () -> categoryService.setRepetitionSequence(123456789L, List.of(1, 4)));
+        assertEquals("Category with categoryId :123456789 not found.", exception.getMessage());
+    }
+
+    /**
+     * Test the {@link CategoryService#cloneCategory(long, Long, String)} method for another user.
+     * The cards are copied as new cards, the clone has the repetition sequence and the counters of the category,
+     * and cards added afterwards get ids which do not collide with the copies.
+     */
+    @Test
+    void testCloneCategoryForAnotherUser() {
+        // Arrange
+        Category category = categoryRepository.save(new Category("Vokabeln", testUser));
+        List<Card> cards = cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(category));
+        cardService.repeated(cards.get(0).getId(), true);
+        categoryService.setRepetitionSequence(category.getId(), List.of(1, 4));
+        User teacher = new User("teacher", "Teacher", "teacher@mail.com");
+        teacher.setPassword("Password");
+        userRepository.save(teacher);
+
+        // Act
+        Category clone = categoryService.cloneCategory(category.getId(), teacher.getId(), "Klasse 1a");
+        Card added = cardService.addCard(new Card("Neue Frage", "Neue Antwort", clone));
+
+        // Assert
+        Category storedClone = categoryRepository.findById(clone.getId()).orElseThrow();
+        assertEquals("Klasse 1a", storedClone.getCategoryName());
+        assertEquals(teacher.getId(), storedClone.getOwner().getId());
+        assertEquals("1,4", storedClone.getRepetitionSequence());
+        assertEquals(51, storedClone.getCardCount());
+        List<Card> copies = cardRepository.findCardByCategory_Id(clone.getId());
+        assertEquals(51, copies.stream().map(Card::getId).distinct().count());
+        assertTrue(copies.stream().noneMatch(copy -> cards.stream().anyMatch(card -> card.getId().equals(copy.getId()))));
+        assertTrue(copies.stream().filter(copy -> !copy.getId().equals(added.getId())).allMatch(copy -> copy.getCounterRight() == 0 && copy.getCorrectAnswersInRow() == 0
+                && copy.getNextDateToRepeat().equals(LocalDate.of(1970, 1, 1))));
+        assertEquals(cards.stream().map(Card::getQuestion).sorted().toList(), copies.stream().filter(copy -> !copy.getId().equals(added.getId())).map(Card::getQuestion).sorted().toList());
+        assertEquals(50, cardRepository.findCardByCategory_Id(category.getId()).size());
+    }
+
+    /**
+     * Test the {@link CategoryService#cloneCategory(long, Long, String)} method with a category and an owner which do not exist.
+     */
+    @Test
+    void testCloneCategoryNotFound() {
+        // Arrange
+        Category category = categoryRepository.save(new Category("Vokabeln", testUser));
+
+        // Act & Assert
+        assertThrows(CategoryNotFoundException.class, () -> categoryService.cloneCategory(123456789L, null, null));
+        assertThrows(UserNotFoundException.class, () -> categoryService.cloneCategory(category.getId(), 123456789L, null));
+    }
 }
@@ -3,6 +3,7 @@ package ch.zhaw.card2brain.services;
 import ch.zhaw.card2brain.EmptyDb;
 import ch.zhaw.card2brain.TestData.TestDataGenerator;
 import ch.zhaw.card2brain.exception.*;
+import ch.zhaw.card2brain.model.Category;
 import ch.zhaw.card2brain.model.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -379,4 +380,34 @@ class Card2BrainDbUserServiceTests extends EmptyDb {
         assertFalse(userRepository.findById(addedUser.getId()).isPresent());
     }
 
+    /**
+     * Test method to test the deletion of a user with categories and cards.
+     * The cards and the categories of the user are deleted with the user, the cards of other users are kept.
+     */
+    @Test
+    void testDeleteUserWithCategoriesAndCards() {
+        //arrange
+        User user = new User("username", "firstname", "mail@example.com");
+        user.setPassword("Password");
+        userService.addUser(user);
+        User otherUser = new User("other", "firstname", "other@example.com");
+        otherUser.setPassword("Password");
+        userService.addUser(otherUser);
+        Category math = categoryRepository.save(new Category("Mathematik", user));
+        Category french = categoryRepository.save(new Category("Franzoesisch", user));
+        Category otherCategory = categoryRepository.save(new Category("Mathematik", otherUser));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(math));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(french));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(otherCategory));
+
+        //act
+        userService.delete(user);
+
+        //assert
+        assertFalse(userRepository.findById(user.getId()).isPresent());
+        assertTrue(categoryRepository.findCategoriesByOwner(user).isEmpty());
+        assertTrue(cardRepository.findCardByCategory_Id(math.getId()).isEmpty());
+        assertTrue(cardRepository.findCardByCategory_Id(french.getId()).isEmpty());
+        assertEquals(50, cardRepository.findCardByCategory_Id(otherCategory.getId()).size());
+    }
 }
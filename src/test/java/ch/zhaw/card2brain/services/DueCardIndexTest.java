@@ -0,0 +1,136 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.dto.InfoDto;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for {@link DueCardIndex}. The index is loaded from the database and then kept up to date by the {@link CardService},
+ * which it is while the due dates are smoothed, so the due cards and their number are read from it.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = "card2brain.repetition.load-smoothing.enabled=true")
+class DueCardIndexTest extends EmptyDb {
+
+    @Autowired
+    private DueCardIndex dueCardIndex;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    /**
+     * Tests that reviews, adds and deletes through the card service are applied to a loaded index.
+     */
+    @Test
+    void indexFollowsReviewsAddsAndDeletes() {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        Category category = categoryRepository.save(TestDataGenerator.GET_DEFAULT_CATEGORY_TO_USER(user));
+        List<Card> cards = cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(category).subList(0, 3));
+        LocalDate today = LocalDate.now();
+        int[] dueBeforeChanges = dueCardIndex.countDueByDay(user.getId(), today, 400);
+
+        //act
+        cardService.repeated(cards.get(0).getId(), true);
+        cardService.deleteCard(cards.get(1));
+        cardService.addCard(new Card("Question", "Answer", category));
+
+        //assert
+        assertEquals(0, Arrays.stream(dueBeforeChanges).sum());
+        assertEquals(1, dueCardIndex.getCorrectAnswersInRow(user.getId(), cards.get(0).getId()));
+        assertEquals(-1, dueCardIndex.getCorrectAnswersInRow(user.getId(), cards.get(1).getId()));
+        assertEquals(0, dueCardIndex.getCorrectAnswersInRow(user.getId(), cards.get(2).getId()));
+        int[] dueByDay = dueCardIndex.countDueByDay(user.getId(), today, 400);
+        assertEquals(1, Arrays.stream(dueByDay).sum());
+    }
+
+    /**
+     * Tests that the index returns the same due histogram after it was cleared and loaded again.
+     */
+    @Test
+    void reloadedIndexMatchesDatabase() {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        Category category = categoryRepository.save(TestDataGenerator.GET_DEFAULT_CATEGORY_TO_USER(user));
+        List<Card> cards = cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(category).subList(0, 2));
+        LocalDate today = LocalDate.now();
+        dueCardIndex.countDueByDay(user.getId(), today, 400);
+        cardService.repeated(cards.get(0).getId(), true);
+        int[] dueInIndex = dueCardIndex.countDueByDay(user.getId(), today, 400);
+
+        //act
+        dueCardIndex.clear();
+
+        //assert
+        assertArrayEquals(dueInIndex, dueCardIndex.countDueByDay(user.getId(), today, 400));
+        assertEquals(1, dueCardIndex.getCorrectAnswersInRow(user.getId(), cards.get(0).getId()));
+    }
+
+    /**
+     * Tests that the cards to learn and the number of cards to repeat per category are read from the index and follow the reviews.
+     */
+    @Test
+    void dueCardsAreReadFromTheIndex() {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        Category category = categoryRepository.save(TestDataGenerator.GET_DEFAULT_CATEGORY_TO_USER(user));
+        List<Card> cards = cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(category).subList(0, 3));
+        categoryService.reconcileCounters();
+        int dueBefore = categoryService.getCategoryInfos(user.getId()).get(0).getToLearn();
+
+        //act
+        cardService.repeated(cards.get(1).getId(), true);
+
+        //assert
+        assertEquals(3, dueBefore);
+        assertEquals(List.of(cards.get(0).getId(), cards.get(2).getId()), cardService.getCardsForRepetition(category).stream().map(Card::getId).sorted().toList());
+        InfoDto info = categoryService.getCategoryInfos(user.getId()).get(0);
+        assertEquals(3, info.getNumberOfCards());
+        assertEquals(2, info.getToLearn());
+        assertEquals(1, info.getNumberOfReviews());
+    }
+
+    /**
+     * Tests that the index is not kept when it is disabled and the due dates are not smoothed, so a change is seen by the next read.
+     */
+    @Test
+    void indexIsNotKeptWithoutSmoothing() {
+        //arrange
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        Category category = categoryRepository.save(TestDataGenerator.GET_DEFAULT_CATEGORY_TO_USER(user));
+        Card card = cardRepository.save(TestDataGenerator.GET_TEST_CARDS(category).get(0));
+        DueCardIndex testee = new DueCardIndex(10, false, false);
+        ReflectionTestUtils.setField(testee, "cardRepository", cardRepository);
+        int streakBefore = testee.getCorrectAnswersInRow(user.getId(), card.getId());
+
+        //act
+        testee.reviewed(user.getId(), card.getId(), true, new LocalDate[]{LocalDate.now()});
+        cardService.repeated(card.getId(), true);
+
+        //assert
+        assertEquals(0, streakBefore);
+        assertEquals(1, testee.getCorrectAnswersInRow(user.getId(), card.getId()));
+    }
+}
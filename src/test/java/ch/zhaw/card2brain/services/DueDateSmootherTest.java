@@ -0,0 +1,96 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.Learn;
+import ch.zhaw.card2brain.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for {@link DueDateSmoother}. The answers are written through the {@link CardService} with load smoothing enabled.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = "card2brain.repetition.load-smoothing.enabled=true")
+class DueDateSmootherTest extends EmptyDb {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private DueCardIndex dueCardIndex;
+
+    private Category category;
+    private LocalDate today;
+
+    /**
+     * Saves a user with five cards due in 30 days and three cards due in 29 days.
+     */
+    @BeforeEach
+    void setUp() {
+        emptyDB();
+        dueCardIndex.clear();
+        User user = userRepository.save(TestDataGenerator.GET_DEFAULT_USER());
+        category = categoryRepository.save(TestDataGenerator.GET_DEFAULT_CATEGORY_TO_USER(user));
+        today = LocalDate.now();
+        List<Card> scheduled = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            scheduled.add(card(6, today.plusDays(i < 5 ? 30 : 29)));
+        }
+        cardRepository.saveAll(scheduled);
+    }
+
+    /**
+     * Tests that the answers of one batch are moved to the least loaded days of the window and spread over them.
+     */
+    @Test
+    void batchIsSpreadOverLeastLoadedDays() {
+        //arrange
+        Card first = cardRepository.save(card(6, today));
+        Card second = cardRepository.save(card(6, today));
+
+        //act
+        cardService.repeated(List.of(new Learn(true, first.getId()), new Learn(true, second.getId())));
+
+        //assert
+        assertEquals(today.plusDays(31), cardRepository.findById(first.getId()).orElseThrow().getNextDateToRepeat());
+        assertEquals(today.plusDays(28), cardRepository.findById(second.getId()).orElseThrow().getNextDateToRepeat());
+    }
+
+    /**
+     * Tests that intervals shorter than the minimal interval are not smoothed.
+     */
+    @Test
+    void shortIntervalIsNotSmoothed() {
+        //arrange
+        Card card = cardRepository.save(card(0, today));
+
+        //act
+        cardService.repeated(card.getId(), true);
+
+        //assert
+        assertEquals(today.plusDays(2), cardRepository.findById(card.getId()).orElseThrow().getNextDateToRepeat());
+    }
+
+    private Card card(int correctAnswersInRow, LocalDate nextDateToRepeat) {
+        Card card = new Card("Question", "Answer", category);
+        card.setCorrectAnswersInRow(correctAnswersInRow);
+        card.setNextDateToRepeat(nextDateToRepeat);
+        return card;
+    }
+}
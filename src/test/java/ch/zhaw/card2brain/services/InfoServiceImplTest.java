@@ -40,6 +40,8 @@ class InfoServiceImplTest extends EmptyDb {
     @Autowired
     CardRepository cardRepository;
     @Autowired
+    CategoryService categoryService;
+    @Autowired
     private InfoService infoService;
 
     /**
@@ -81,6 +83,8 @@ class InfoServiceImplTest extends EmptyDb {
         int noCardsToLearnCards = 250;
         int noCardsToLearnToLearn = 0;
         cardRepository.saveAll(getCards(withOutCardsToRepeate, noCardsToLearnToLearn, noCardsToLearnCards));
+        // the cards were saved without the card service, so their number is counted like in the nightly reconciliation
+        categoryService.reconcileCounters();
 
         List<InfoDto> infoDtos = infoService.getInfos(user);
 
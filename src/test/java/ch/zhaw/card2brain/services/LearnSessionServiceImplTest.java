@@ -0,0 +1,206 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.dto.CardDto;
+import ch.zhaw.card2brain.dto.LearnResultDto;
+import ch.zhaw.card2brain.dto.LearnSessionDto;
+import ch.zhaw.card2brain.exception.CategoryNotFoundException;
+import ch.zhaw.card2brain.exception.LearnSessionNotFoundException;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.Learn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for {@link LearnSessionServiceImpl}, with windows of two cards, at most five cards per session
+ * and a short time to live. The scheduled eviction is disabled.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = {"card2brain.learn.session.window-size=2", "card2brain.learn.session.max-cards=5", "card2brain.learn.session.ttl=2s", "card2brain.learn.session.eviction-interval-ms=3600000"})
+class LearnSessionServiceImplTest extends EmptyDb {
+
+    @Autowired
+    private LearnSessionService learnSessionService;
+
+    private Category category;
+
+    private final List<Card> dueCards = new ArrayList<>();
+
+    /**
+     * Saves a category with three due cards and one card which is not due.
+     */
+    @BeforeEach
+    void setUp() {
+        emptyDB();
+        category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        userRepository.save(category.getOwner());
+        categoryRepository.save(category);
+        dueCards.clear();
+        for (int i = 1; i <= 3; i++) {
+            dueCards.add(cardRepository.save(new Card("Frage " + i, "Antwort " + i, category)));
+        }
+        Card notDue = new Card("Frage 4", "Antwort 4", category);
+        notDue.setNextDateToRepeat(LocalDate.now().plusDays(1));
+        cardRepository.save(notDue);
+    }
+
+    /**
+     * Tests that a session serves every due card once, in id order and across windows.
+     */
+    @Test
+    void sessionServesDueCardsInWindows() {
+        //arrange
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+
+        //act
+        List<CardDto> first = learnSessionService.nextCards(session.getSessionId(), 2);
+        List<CardDto> second = learnSessionService.nextCards(session.getSessionId(), 2);
+        List<CardDto> third = learnSessionService.nextCards(session.getSessionId(), 2);
+
+        //assert
+        assertEquals(List.of(dueCards.get(0).getId(), dueCards.get(1).getId()), first.stream().map(CardDto::getId).toList());
+        assertEquals(List.of(dueCards.get(2).getId()), second.stream().map(CardDto::getId).toList());
+        assertTrue(third.isEmpty());
+    }
+
+    /**
+     * Tests that a request for more cards than the window size is limited to the window size.
+     */
+    @Test
+    void nextCardsAreLimitedToTheWindowSize() {
+        //arrange
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+
+        //act
+        List<CardDto> cards = learnSessionService.nextCards(session.getSessionId(), 100);
+
+        //assert
+        assertEquals(2, cards.size());
+    }
+
+    /**
+     * Tests that a session serves at most max-cards cards.
+     */
+    @Test
+    void sessionServesAtMostMaxCards() {
+        //arrange
+        for (int i = 5; i <= 10; i++) {
+            cardRepository.save(new Card("Frage " + i, "Antwort " + i, category));
+        }
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+
+        //act
+        int served = 0;
+        List<CardDto> cards;
+        do {
+            cards = learnSessionService.nextCards(session.getSessionId(), 2);
+            served += cards.size();
+        } while (!cards.isEmpty());
+
+        //assert
+        assertEquals(5, session.getMaxCards());
+        assertEquals(5, served);
+    }
+
+    /**
+     * Tests that the answers of a session are applied to the cards.
+     */
+    @Test
+    void answersAreApplied() {
+        //arrange
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+        CardDto card = learnSessionService.nextCards(session.getSessionId(), 1).get(0);
+
+        //act
+        List<LearnResultDto> results = learnSessionService.answer(session.getSessionId(), List.of(new Learn(true, card.getId())));
+
+        //assert
+        assertTrue(results.get(0).isUpdated());
+        assertEquals(1, cardRepository.findById(card.getId()).orElseThrow().getCounterRight());
+    }
+
+    /**
+     * Tests that a card of another category can not be answered in a session, the other answers are applied.
+     */
+    @Test
+    void cardOfAnotherCategoryIsNotAnswered() {
+        //arrange
+        Category other = categoryRepository.save(new Category("Andere", category.getOwner()));
+        Card foreign = cardRepository.save(new Card("Fremde Frage", "Fremde Antwort", other));
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+        CardDto card = learnSessionService.nextCards(session.getSessionId(), 1).get(0);
+
+        //act
+        List<LearnResultDto> results = learnSessionService.answer(session.getSessionId(), List.of(new Learn(true, foreign.getId()), new Learn(true, card.getId())));
+
+        //assert
+        assertEquals(List.of(foreign.getId(), card.getId()), results.stream().map(LearnResultDto::getCardId).toList());
+        assertFalse(results.get(0).isUpdated());
+        assertEquals("Card is not in the category of the session", results.get(0).getError());
+        assertTrue(results.get(1).isUpdated());
+        assertEquals(0, cardRepository.findById(foreign.getId()).orElseThrow().getCounterRight());
+        assertEquals(1, cardRepository.findById(card.getId()).orElseThrow().getCounterRight());
+    }
+
+    /**
+     * Tests that an ended session can not be used anymore.
+     */
+    @Test
+    void endedSessionIsNotFound() {
+        //arrange
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+
+        //act
+        learnSessionService.endSession(session.getSessionId());
+
+        //assert
+        assertThrows(LearnSessionNotFoundException.class, () -> learnSessionService.nextCards(session.getSessionId(), 1));
+        assertThrows(LearnSessionNotFoundException.class, () -> learnSessionService.endSession(session.getSessionId()));
+    }
+
+    /**
+     * Tests that a session which was not used within the time to live is evicted.
+     */
+    @Test
+    void expiredSessionIsEvicted() throws InterruptedException {
+        //arrange
+        LearnSessionDto session = learnSessionService.startSession(category.getId());
+        int openSessions = learnSessionService.getSessionCount();
+
+        //act
+        Thread.sleep(2500);
+        learnSessionService.evictExpiredSessions();
+
+        //assert
+        assertTrue(openSessions > 0);
+        assertEquals(0, learnSessionService.getSessionCount());
+        assertThrows(LearnSessionNotFoundException.class, () -> learnSessionService.nextCards(session.getSessionId(), 1));
+    }
+
+    /**
+     * Tests that a session can not be started for a category which does not exist.
+     */
+    @Test
+    void sessionOfMissingCategoryIsNotStarted() {
+        //act & assert
+        assertThrows(CategoryNotFoundException.class, () -> learnSessionService.startSession(category.getId() + 1000));
+    }
+}
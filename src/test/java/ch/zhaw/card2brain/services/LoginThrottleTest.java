@@ -0,0 +1,128 @@
+package ch.zhaw.card2brain.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link LoginThrottle}: the attempts are limited per mail address and per client address,
+ * a successful login gives its attempt back.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+class LoginThrottleTest {
+
+    private LoginThrottle throttle(int maxKeys) {
+        return new LoginThrottle(true, 3, Duration.ofMinutes(1), 5, Duration.ofMinutes(1), maxKeys, 4);
+    }
+
+    /**
+     * Tests that the attempts of a mail address are limited to the burst, independent of the case of the address.
+     */
+    @Test
+    void limitsAttemptsPerMailAddress() {
+        //arrange
+        LoginThrottle loginThrottle = throttle(1000);
+
+        //act
+        long first = loginThrottle.tryAcquire("max@mail.com", "10.0.0.1");
+        long second = loginThrottle.tryAcquire("Max@Mail.com", "10.0.0.2");
+        long third = loginThrottle.tryAcquire("max@mail.com", "10.0.0.3");
+        long fourth = loginThrottle.tryAcquire("max@mail.com", "10.0.0.4");
+
+        //assert
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertEquals(0, third);
+        assertTrue(fourth > 0 && fourth <= 61);
+        assertEquals(0, loginThrottle.tryAcquire("other@mail.com", "10.0.0.4"));
+    }
+
+    /**
+     * Tests that the attempts of a client address are limited over all mail addresses.
+     */
+    @Test
+    void limitsAttemptsPerClientAddress() {
+        //arrange
+        LoginThrottle loginThrottle = throttle(1000);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, loginThrottle.tryAcquire("user" + i + "@mail.com", "10.0.0.1"));
+        }
+
+        //act & assert
+        assertTrue(loginThrottle.tryAcquire("user5@mail.com", "10.0.0.1") > 0);
+        assertEquals(0, loginThrottle.tryAcquire("user5@mail.com", "10.0.0.2"));
+    }
+
+    /**
+     * Tests that successful logins give their attempts back.
+     */
+    @Test
+    void successfulLoginsAreNotLimited() {
+        //arrange
+        LoginThrottle loginThrottle = throttle(1000);
+
+        //act & assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, loginThrottle.tryAcquire("max@mail.com", "10.0.0.1"));
+            loginThrottle.release("max@mail.com", "10.0.0.1");
+        }
+    }
+
+    /**
+     * Tests that the number of buckets is bounded, a dropped bucket starts full again.
+     */
+    @Test
+    void bucketsAreBounded() {
+        //arrange
+        LoginThrottle loginThrottle = throttle(8);
+
+        //act
+        for (int i = 0; i < 100; i++) {
+            loginThrottle.tryAcquire("user" + i + "@mail.com", null);
+        }
+
+        //assert
+        assertEquals(0, loginThrottle.tryAcquire("user0@mail.com", null));
+    }
+
+    /**
+     * Tests that a full stripe drops the buckets which are full again first, so an exhausted bucket is kept.
+     */
+    @Test
+    void exhaustedBucketsAreEvictedLast() {
+        //arrange
+        LoginThrottle loginThrottle = new LoginThrottle(true, 3, Duration.ofMinutes(1), 5, Duration.ofMinutes(1), 2, 1);
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.tryAcquire("victim@mail.com", null);
+        }
+
+        //act
+        for (int i = 0; i < 10; i++) {
+            loginThrottle.tryAcquire("user" + i + "@mail.com", null);
+        }
+
+        //assert
+        assertTrue(loginThrottle.tryAcquire("victim@mail.com", null) > 0);
+    }
+
+    /**
+     * Tests that a disabled throttle allows every attempt.
+     */
+    @Test
+    void disabledThrottleAllowsEveryAttempt() {
+        //arrange
+        LoginThrottle loginThrottle = new LoginThrottle(false, 1, Duration.ofMinutes(1), 1, Duration.ofMinutes(1), 10, 1);
+
+        //act & assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, loginThrottle.tryAcquire("max@mail.com", "10.0.0.1"));
+        }
+    }
+}
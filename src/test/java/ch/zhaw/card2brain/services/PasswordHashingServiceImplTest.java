@@ -0,0 +1,184 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.exception.ExceptionHandlerAdvice;
+import ch.zhaw.card2brain.exception.ServerBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link PasswordHashingServiceImpl}: the passwords are hashed on the pool, and a request which finds
+ * the queue full is rejected with a {@link ServerBusyException}, which is answered with 503 and a Retry-After header.
+ * Hashes with another cost than the configured one need a rehash, and the calibration measures the cost per strength.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+class PasswordHashingServiceImplTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordHashingServiceImpl passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        PasswordEncoder blockingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                if ("block".contentEquals(rawPassword)) {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        passwordHashingService = new PasswordHashingServiceImpl();
+        ReflectionTestUtils.setField(passwordHashingService, "passwordEncoder", blockingEncoder);
+        ReflectionTestUtils.setField(passwordHashingService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 1);
+        ReflectionTestUtils.setField(passwordHashingService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(passwordHashingService, "retryAfter", Duration.ofSeconds(3));
+        ReflectionTestUtils.setField(passwordHashingService, "strength", 4);
+        passwordHashingService.startPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashingService.stopPool();
+    }
+
+    /**
+     * Tests that a hashed password matches and that the hash is timed.
+     */
+    @Test
+    void hashesOnThePool() {
+        //act
+        String hash = passwordHashingService.encode("Password");
+
+        //assert
+        assertTrue(passwordHashingService.matches("Password", hash));
+        assertFalse(passwordHashingService.matches("password", hash));
+        assertEquals(3, meterRegistry.get("card2brain.password.hash").timer().count());
+        assertEquals(3, meterRegistry.get("card2brain.password.queue-wait").timer().count());
+    }
+
+    /**
+     * Tests that a password is rejected when the thread is busy and the queue is full, and that the rejection
+     * is answered with 503 and a Retry-After header.
+     */
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        //arrange
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("block"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("Password"));
+        while (meterRegistry.get("card2brain.password.queue-depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        //act
+        ServerBusyException exception = assertThrows(ServerBusyException.class, () -> passwordHashingService.encode("Password"));
+        ResponseEntity<String> response = new ExceptionHandlerAdvice().handleException(exception);
+
+        //assert
+        assertEquals(1, meterRegistry.get("card2brain.password.rejected").counter().count());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a password is hashed in the background and that a background hash is skipped when the queue is half full,
+     * without counting it as a rejected login.
+     */
+    @Test
+    void encodesLater() throws Exception {
+        //act
+        String hash = passwordHashingService.encodeLater("Password").get(10, TimeUnit.SECONDS);
+
+        //assert
+        assertTrue(passwordHashingService.matches("Password", hash));
+
+        //arrange
+        CompletableFuture<String> running = passwordHashingService.encodeLater("block");
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = passwordHashingService.encodeLater("Password");
+
+        //act
+        CompletableFuture<String> rejected = passwordHashingService.encodeLater("Password");
+
+        //assert
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ServerBusyException.class, exception.getCause());
+        assertEquals(0, meterRegistry.get("card2brain.password.rejected").counter().count());
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that only bcrypt hashes with another cost than the configured one need a rehash.
+     */
+    @Test
+    void needsRehashWhenCostDiffers() {
+        //arrange
+        String currentHash = new BCryptPasswordEncoder(4).encode("Password");
+        String olderHash = new BCryptPasswordEncoder(5).encode("Password");
+
+        //act & assert
+        assertFalse(passwordHashingService.needsRehash(currentHash));
+        assertTrue(passwordHashingService.needsRehash(olderHash));
+        assertTrue(passwordHashingService.needsRehash(olderHash.replaceFirst("^\\$2a", "\\$2b")));
+        assertFalse(passwordHashingService.needsRehash("{noop}Password"));
+        assertFalse(passwordHashingService.needsRehash(null));
+    }
+
+    /**
+     * Tests that the calibration stops at the first cost over the target latency and suggests the cost before it.
+     */
+    @Test
+    void calibratesUpToTheTargetLatency() {
+        //act
+        PasswordHashingService.Calibration calibration = passwordHashingService.calibrate(Duration.ZERO);
+
+        //assert
+        assertEquals(4, calibration.suggestedStrength());
+        assertEquals(1, calibration.millisPerStrength().size());
+        assertTrue(calibration.millisPerStrength().get(4) > 0);
+    }
+}
@@ -0,0 +1,101 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.repository.CategoryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JMH benchmark of the lookup of the next repetition date. It is not run by the tests; run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=ch.zhaw.card2brain.services.RepetitionServiceBenchmark}
+ * or start {@link #main(String[])} from the IDE, and add {@code -prof gc} to the JMH options to see the allocations per lookup.
+ * <p>
+ * boxedLookup is the former implementation, which read the day from the clock and the days from a List of Integer.
+ * defaultLookup and categoryLookup use the compiled sequences with the cached day, categoryLookup with one of
+ * {@code categories} categories which have their own sequence.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepetitionServiceBenchmark {
+
+    @Param({"10", "10000"})
+    private int categories;
+
+    private RepetitionServiceImpl repetitionService;
+
+    private final List<Integer> boxedSequence = List.of(0, 2, 3, 5, 7, 9, 14, 30, 45, 60, 90);
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private int correctAnswersInRow;
+
+    private long categoryId;
+
+    @Setup
+    public void setUp() {
+        List<Object[]> sequences = new ArrayList<>();
+        for (long id = 1; id <= categories; id++) {
+            sequences.add(new Object[]{id, "0,1,3,7,14,30,60,120"});
+        }
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findRepetitionSequences()).thenReturn(sequences);
+
+        repetitionService = new RepetitionServiceImpl();
+        ReflectionTestUtils.setField(repetitionService, "clock", clock);
+        ReflectionTestUtils.setField(repetitionService, "categoryRepository", categoryRepository);
+        categoryId = categories / 2;
+    }
+
+    @Benchmark
+    public LocalDate boxedLookup() {
+        correctAnswersInRow = (correctAnswersInRow + 1) & 15;
+        return LocalDate.now(clock).plusDays(boxedSequence.get(Math.min(correctAnswersInRow, boxedSequence.size() - 1)));
+    }
+
+    @Benchmark
+    public LocalDate defaultLookup() {
+        correctAnswersInRow = (correctAnswersInRow + 1) & 15;
+        return repetitionService.getNextRepetitionDate(correctAnswersInRow);
+    }
+
+    @Benchmark
+    public LocalDate categoryLookup() {
+        correctAnswersInRow = (correctAnswersInRow + 1) & 15;
+        return repetitionService.getNextRepetitionDate(categoryId, correctAnswersInRow);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RepetitionServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
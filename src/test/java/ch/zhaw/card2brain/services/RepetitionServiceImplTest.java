@@ -1,5 +1,6 @@
 package ch.zhaw.card2brain.services;
 
+import ch.zhaw.card2brain.repository.CategoryRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import java.time.Clock;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.List;
 
 import static org.mockito.Mockito.doReturn;
 /**
@@ -39,6 +41,9 @@ class RepetitionServiceImplTest {
     @Mock
     private Clock clock;
 
+    @Mock
+    private CategoryRepository categoryRepository;
+
 
     @BeforeEach
     public void initMocks() {
@@ -72,4 +77,42 @@ class RepetitionServiceImplTest {
 
     }
 
+    /**
+     * Tests the {@link RepetitionServiceImpl#getNextRepetitionDate(long, int)} method with a category which has its own sequence
+     * and with a category which uses the default sequence.
+     */
+    @Test
+    void getNextRepetitionDateOfACategory() {
+        //arrange
+        List<Object[]> sequences = List.<Object[]>of(new Object[]{5L, "1,4"});
+        doReturn(sequences).when(categoryRepository).findRepetitionSequences();
+
+        //act & assert
+        Assertions.assertTrue(repetitionService.hasCategorySequences());
+        Assertions.assertEquals(LocalDate.of(2022, 1, 14), repetitionService.getNextRepetitionDate(5L, 0));
+        Assertions.assertEquals(LocalDate.of(2022, 1, 17), repetitionService.getNextRepetitionDate(5L, 1));
+        Assertions.assertEquals(LocalDate.of(2022, 1, 17), repetitionService.getNextRepetitionDate(5L, 7));
+        Assertions.assertEquals(LocalDate.of(2022, 1, 15), repetitionService.getNextRepetitionDate(6L, 1));
+    }
+
+    /**
+     * Tests that the sequences are read again after a sequence was changed.
+     */
+    @Test
+    void changedSequenceIsReadAgain() {
+        //arrange
+        doReturn(List.<Object[]>of(new Object[]{5L, "1,4"})).when(categoryRepository).findRepetitionSequences();
+        LocalDate before = repetitionService.getNextRepetitionDate(5L, 1);
+        doReturn(List.<Object[]>of(new Object[]{5L, "1,10"})).when(categoryRepository).findRepetitionSequences();
+
+        //act
+        LocalDate cached = repetitionService.getNextRepetitionDate(5L, 1);
+        repetitionService.repetitionSequenceChanged(5L);
+        LocalDate after = repetitionService.getNextRepetitionDate(5L, 1);
+
+        //assert
+        Assertions.assertEquals(LocalDate.of(2022, 1, 17), before);
+        Assertions.assertEquals(before, cached);
+        Assertions.assertEquals(LocalDate.of(2022, 1, 23), after);
+    }
 }
@@ -0,0 +1,135 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.repository.CardRepositoryCustom.Schedule;
+import ch.zhaw.card2brain.repository.RescheduleCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for {@link RescheduleServiceImpl}, with the repetition sequence 0, 1, 4 and chunks of two cards.
+ * The rescheduling at startup is disabled, the tests start the job themselves.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = {"card2brain.repetition.sequence=0,1,4", "card2brain.reschedule.enabled=false", "card2brain.reschedule.chunk-size=2", "card2brain.reschedule.parallelism=2"})
+class RescheduleServiceImplTest extends EmptyDb {
+
+    private static final String DEFAULT_SEQUENCE = "0,2,3,5,7,9,14,30,45,60,90";
+
+    private static final LocalDateTime ANSWERED = LocalDateTime.now().minusDays(10).withNano(0);
+
+    @Autowired
+    private RescheduleService rescheduleService;
+
+    @Autowired
+    private RescheduleCheckpointRepository checkpointRepository;
+
+    private Category category;
+
+    private final List<Card> cards = new ArrayList<>();
+
+    /**
+     * Saves five cards, answered ten days ago and scheduled with the default sequence, with 0 to 4 correct answers in a row.
+     */
+    @BeforeEach
+    void setUp() {
+        emptyDB();
+        category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        userRepository.save(category.getOwner());
+        categoryRepository.save(category);
+        cards.clear();
+        int[] defaultDays = {0, 2, 3, 5, 7};
+        for (int inRow = 0; inRow < defaultDays.length; inRow++) {
+            Card card = new Card("Frage " + inRow, "Antwort " + inRow, category);
+            card.setCorrectAnswersInRow(inRow);
+            card.setAnsweredLastTime(ANSWERED);
+            card.setNextDateToRepeat(ANSWERED.toLocalDate().plusDays(defaultDays[inRow]));
+            cards.add(cardRepository.save(card));
+        }
+    }
+
+    /**
+     * Records the default sequence again, so the test contexts started later do not reschedule their cards at startup.
+     */
+    @AfterEach
+    void tearDown() {
+        checkpointRepository.start(DEFAULT_SEQUENCE, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    /**
+     * Tests that all cards get the repetition date of the configured sequence and that the counters are counted again.
+     */
+    @Test
+    void cardsAreRescheduledWithTheConfiguredSequence() {
+        //act
+        RescheduleService.Progress progress = rescheduleService.reschedule();
+
+        //assert
+        int[] expectedDays = {0, 1, 4, 4, 4};
+        for (int i = 0; i < cards.size(); i++) {
+            assertEquals(ANSWERED.toLocalDate().plusDays(expectedDays[i]), cardRepository.findById(cards.get(i).getId()).orElseThrow().getNextDateToRepeat());
+        }
+        assertEquals(5, progress.processed());
+        assertEquals(4, progress.updated());
+        assertFalse(progress.running());
+        assertTrue(checkpointRepository.find().orElseThrow().isFinished());
+        assertEquals("0,1,4", checkpointRepository.find().orElseThrow().sequence());
+        assertEquals(5, categoryRepository.findById(category.getId()).orElseThrow().getCardCount());
+    }
+
+    /**
+     * Tests that an interrupted job continues after the last card of its checkpoint.
+     */
+    @Test
+    void interruptedJobContinuesAfterTheCheckpoint() {
+        //arrange
+        checkpointRepository.start("0,1,4", LocalDateTime.now(), null);
+        checkpointRepository.advance(cards.get(1).getId(), 2, 1);
+
+        //act
+        RescheduleService.Progress progress = rescheduleService.reschedule();
+
+        //assert
+        assertEquals(ANSWERED.toLocalDate().plusDays(2), cardRepository.findById(cards.get(1).getId()).orElseThrow().getNextDateToRepeat());
+        assertEquals(ANSWERED.toLocalDate().plusDays(4), cardRepository.findById(cards.get(2).getId()).orElseThrow().getNextDateToRepeat());
+        assertEquals(5, progress.processed());
+        assertEquals(4, progress.updated());
+    }
+
+    /**
+     * Tests that a card which was answered after its schedule was read is not changed.
+     */
+    @Test
+    void cardAnsweredInTheMeantimeIsNotChanged() {
+        //arrange
+        Card card = cards.get(1);
+        Schedule readBeforeAnswer = new Schedule(card.getId(), category.getId(), 0, ANSWERED.minusDays(1), LocalDate.now());
+
+        //act
+        int changed = cardRepository.rescheduleCards(List.of(readBeforeAnswer));
+
+        //assert
+        assertEquals(0, changed);
+        assertEquals(ANSWERED.toLocalDate().plusDays(2), cardRepository.findById(card.getId()).orElseThrow().getNextDateToRepeat());
+    }
+}
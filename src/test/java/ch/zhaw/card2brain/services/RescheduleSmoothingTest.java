@@ -0,0 +1,96 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.repository.RescheduleCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for the rescheduling of {@link RescheduleServiceImpl} with load smoothing enabled, with the repetition sequence 0, 1, 30
+ * and chunks of two cards. The rescheduling at startup is disabled, the test starts the job itself.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = {"card2brain.repetition.sequence=0,1,30", "card2brain.reschedule.enabled=false", "card2brain.reschedule.chunk-size=2",
+        "card2brain.reschedule.parallelism=2", "card2brain.repetition.load-smoothing.enabled=true"})
+class RescheduleSmoothingTest extends EmptyDb {
+
+    private static final String DEFAULT_SEQUENCE = "0,2,3,5,7,9,14,30,45,60,90";
+
+    @Autowired
+    private RescheduleService rescheduleService;
+
+    @Autowired
+    private RescheduleCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private DueCardIndex dueCardIndex;
+
+    private final List<Card> cards = new ArrayList<>();
+
+    private LocalDate today;
+
+    /**
+     * Saves five cards answered today with two correct answers in a row, scheduled with the default sequence in five days.
+     */
+    @BeforeEach
+    void setUp() {
+        emptyDB();
+        dueCardIndex.clear();
+        Category category = TestDataGenerator.GET_DEFAULT_CATEGORY();
+        userRepository.save(category.getOwner());
+        categoryRepository.save(category);
+        today = LocalDate.now();
+        cards.clear();
+        for (int i = 0; i < 5; i++) {
+            Card card = new Card("Frage " + i, "Antwort " + i, category);
+            card.setCorrectAnswersInRow(2);
+            card.setAnsweredLastTime(LocalDateTime.now().withNano(0));
+            card.setNextDateToRepeat(today.plusDays(5));
+            cards.add(cardRepository.save(card));
+        }
+    }
+
+    /**
+     * Records the default sequence again, so the test contexts started later do not reschedule their cards at startup.
+     */
+    @AfterEach
+    void tearDown() {
+        checkpointRepository.start(DEFAULT_SEQUENCE, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    /**
+     * Tests that the cards which get the same date of the sequence are spread over the window around it and that the due card index sees the new dates.
+     */
+    @Test
+    void rescheduledDatesAreSmoothed() {
+        //act
+        RescheduleService.Progress progress = rescheduleService.reschedule();
+
+        //assert
+        Set<LocalDate> dates = cards.stream().map(card -> cardRepository.findById(card.getId()).orElseThrow().getNextDateToRepeat()).collect(Collectors.toSet());
+        assertEquals(Set.of(today.plusDays(28), today.plusDays(29), today.plusDays(30), today.plusDays(31), today.plusDays(32)), dates);
+        assertEquals(5, progress.updated());
+        assertEquals(List.of(1, 1, 1, 1, 1), Arrays.stream(dueCardIndex.countDueByDay(cards.get(0).getCategory().getOwner().getId(), today.plusDays(28), 5)).boxed().toList());
+    }
+}
@@ -0,0 +1,102 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.model.Learn;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ReviewJournal}.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+class ReviewJournalTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2023-01-16T18:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that answers which were not sealed are recovered by the next journal, in order and with unique answer times.
+     */
+    @Test
+    void recoverAnswersOfAnEarlierRun() throws IOException {
+        //arrange
+        ReviewJournal journal = new ReviewJournal(directory, clock);
+        Learn first = journal.append(1L, true);
+        Learn second = journal.append(2L, false);
+        journal.close();
+
+        //act
+        List<ReviewJournal.Segment> segments = new ReviewJournal(directory, clock).recover();
+
+        //assert
+        assertEquals(1, segments.size());
+        List<Learn> learns = segments.get(0).learns();
+        assertEquals(2, learns.size());
+        assertEquals(1L, learns.get(0).getCardId());
+        assertTrue(learns.get(0).isCorrect());
+        assertEquals(first.getAnsweredAt(), learns.get(0).getAnsweredAt());
+        assertEquals(2L, learns.get(1).getCardId());
+        assertFalse(learns.get(1).isCorrect());
+        assertEquals(second.getAnsweredAt(), learns.get(1).getAnsweredAt());
+        assertTrue(second.getAnsweredAt().isAfter(first.getAnsweredAt()));
+    }
+
+    /**
+     * Tests that a record which was only partly written is not replayed.
+     */
+    @Test
+    void recoverIgnoresIncompleteRecord() throws IOException {
+        //arrange
+        ReviewJournal journal = new ReviewJournal(directory, clock);
+        journal.append(1L, true);
+        journal.close();
+        try (var files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 0, 0, 0, 0, 2, 1}, StandardOpenOption.APPEND);
+        }
+
+        //act
+        List<ReviewJournal.Segment> segments = new ReviewJournal(directory, clock).recover();
+
+        //assert
+        assertEquals(1, segments.get(0).learns().size());
+    }
+
+    /**
+     * Tests that a sealed and deleted segment is not recovered and that sealing an empty segment returns null.
+     */
+    @Test
+    void sealedAndDeletedSegmentIsNotRecovered() throws IOException {
+        //arrange
+        ReviewJournal journal = new ReviewJournal(directory, clock);
+        journal.append(1L, true);
+
+        //act
+        ReviewJournal.Segment segment = journal.seal();
+        segment.delete();
+
+        //assert
+        assertEquals(1, segment.learns().size());
+        assertEquals(0, journal.size());
+        assertNull(journal.seal());
+        journal.close();
+        assertTrue(new ReviewJournal(directory, clock).recover().isEmpty());
+    }
+}
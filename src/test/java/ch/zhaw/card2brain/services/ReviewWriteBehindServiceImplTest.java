@@ -0,0 +1,121 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.dto.LearnResultDto;
+import ch.zhaw.card2brain.model.Card;
+import ch.zhaw.card2brain.model.Learn;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for {@link ReviewWriteBehindServiceImpl}, with the write-behind mode enabled and the scheduled flush disabled.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = {"card2brain.learn.write-behind.enabled=true", "card2brain.learn.write-behind.journal-directory=target/test-journal", "card2brain.learn.write-behind.flush-interval-ms=3600000"})
+class ReviewWriteBehindServiceImplTest extends EmptyDb {
+
+    @Autowired
+    private LearnService learnService;
+
+    @Autowired
+    private ReviewWriteBehindService reviewWriteBehindService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private RepetitionService repetitionService;
+
+    /**
+     * Tests that answers are written to the card only with the flush.
+     */
+    @Test
+    void answersAreWrittenWithTheFlush() {
+        //arrange
+        Card card = saveCard();
+
+        //act
+        learnService.cardWasShown(new Learn(true, card.getId()));
+        learnService.cardWasShown(new Learn(true, card.getId()));
+        learnService.cardWasShown(new Learn(false, card.getId()));
+        int depthBeforeFlush = reviewWriteBehindService.getDepth();
+        int counterRightBeforeFlush = cardRepository.findById(card.getId()).orElseThrow().getCounterRight();
+        reviewWriteBehindService.flush();
+
+        //assert
+        assertEquals(3, depthBeforeFlush);
+        assertEquals(0, counterRightBeforeFlush);
+        assertEquals(0, reviewWriteBehindService.getDepth());
+        Card testee = cardRepository.findById(card.getId()).orElseThrow();
+        assertEquals(2, testee.getCounterRight());
+        assertEquals(1, testee.getCounterFalse());
+        assertEquals(0, testee.getCorrectAnswersInRow());
+        assertEquals(repetitionService.getNextRepetitionDate(0), testee.getNextDateToRepeat());
+    }
+
+    /**
+     * Tests that the answers of the batch endpoint are journaled as well, so they do not hide the single answers
+     * to the same card which are not yet flushed, and that answers to missing cards are reported.
+     */
+    @Test
+    void batchAnswersAreJournaled() {
+        //arrange
+        Card card = saveCard();
+
+        //act
+        learnService.cardWasShown(new Learn(false, card.getId()));
+        List<LearnResultDto> results = learnService.cardsWereShown(List.of(new Learn(true, card.getId()), new Learn(true, -1L)));
+        int counterBeforeFlush = cardRepository.findById(card.getId()).orElseThrow().getCounterRight();
+        reviewWriteBehindService.flush();
+
+        //assert
+        assertEquals(0, counterBeforeFlush);
+        assertTrue(results.get(0).isUpdated());
+        assertFalse(results.get(1).isUpdated());
+        Card testee = cardRepository.findById(card.getId()).orElseThrow();
+        assertEquals(1, testee.getCounterRight());
+        assertEquals(1, testee.getCounterFalse());
+        assertEquals(1, testee.getCorrectAnswersInRow());
+    }
+
+    /**
+     * Tests that answers which are older than the last answer of the card are skipped, as in a replay of the journal.
+     */
+    @Test
+    void replayedAnswersAreSkipped() {
+        //arrange
+        Card card = saveCard();
+        Learn learn = new Learn(true, card.getId());
+        learn.setAnsweredAt(LocalDateTime.now().withNano(0));
+
+        //act
+        boolean[] firstWrite = cardService.repeatedIfNewer(List.of(learn));
+        boolean[] replay = cardService.repeatedIfNewer(List.of(learn));
+
+        //assert
+        assertEquals(true, firstWrite[0]);
+        assertEquals(false, replay[0]);
+        assertEquals(1, cardRepository.findById(card.getId()).orElseThrow().getCounterRight());
+    }
+
+    private Card saveCard() {
+        Card card = TestDataGenerator.GET_DEFAULT_CARD();
+        userRepository.save(card.getCategory().getOwner());
+        categoryRepository.save(card.getCategory());
+        return cardRepository.save(card);
+    }
+}
@@ -0,0 +1,91 @@
+package ch.zhaw.card2brain.services;
+
+import ch.zhaw.card2brain.EmptyDb;
+import ch.zhaw.card2brain.TestData.TestDataGenerator;
+import ch.zhaw.card2brain.exception.UserNotFoundException;
+import ch.zhaw.card2brain.model.Category;
+import ch.zhaw.card2brain.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the deletion of a user with more cards than card2brain.user-delete.max-cards:
+ * the user is marked as deleted at once and their data is removed in chunks by {@link UserService#purgeDeletedUsers()}.
+ *
+ * @author Niklaus Hänggi
+ * @author Alexander Studer
+ * @author Roman Joller
+ * @version 1.0
+ * @since 16.01.2023
+ */
+@SpringBootTest(properties = {"card2brain.user-delete.max-cards=10", "card2brain.user-delete.purge-chunk-size=7", "card2brain.user-delete.purge-interval-ms=3600000"})
+class UserPurgeTest extends EmptyDb {
+
+    @Autowired
+    private UserService userService;
+
+    private User user;
+
+    private Category math;
+
+    private Category french;
+
+    private Category otherCategory;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("heavy", "firstname", "heavy@example.com");
+        user.setPassword("Password");
+        userService.addUser(user);
+        User otherUser = new User("other", "firstname", "other.purge@example.com");
+        otherUser.setPassword("Password");
+        userService.addUser(otherUser);
+        math = categoryRepository.save(new Category("Mathematik", user));
+        french = categoryRepository.save(new Category("Franzoesisch", user));
+        otherCategory = categoryRepository.save(new Category("Mathematik", otherUser));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(math));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(french));
+        cardRepository.saveAll(TestDataGenerator.GET_TEST_CARDS(otherCategory));
+    }
+
+    @Test
+    void testDeleteMarksUserAsDeleted() {
+        //act
+        userService.delete(user);
+
+        //assert
+        User marked = userRepository.findById(user.getId()).orElseThrow();
+        assertNotNull(marked.getDeletedAt());
+        assertNull(marked.getMailAddress());
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(user.getId()));
+        assertTrue(userService.findAll().stream().noneMatch(active -> active.getId().equals(user.getId())));
+        assertEquals(50, cardRepository.findCardByCategory_Id(math.getId()).size());
+
+        User sameMail = new User("again", "firstname", "heavy@example.com");
+        sameMail.setPassword("Password");
+        assertNotNull(userService.addUser(sameMail).getId());
+    }
+
+    @Test
+    void testPurgeDeletedUsers() {
+        //arrange
+        userService.delete(user);
+
+        //act
+        int purged = userService.purgeDeletedUsers();
+
+        //assert
+        assertEquals(1, purged);
+        assertFalse(userRepository.findById(user.getId()).isPresent());
+        assertTrue(categoryRepository.findById(math.getId()).isEmpty());
+        assertTrue(categoryRepository.findById(french.getId()).isEmpty());
+        assertTrue(cardRepository.findCardByCategory_Id(math.getId()).isEmpty());
+        assertTrue(cardRepository.findCardByCategory_Id(french.getId()).isEmpty());
+        assertEquals(50, cardRepository.findCardByCategory_Id(otherCategory.getId()).size());
+        assertEquals(0, userService.purgeDeletedUsers());
+    }
+}